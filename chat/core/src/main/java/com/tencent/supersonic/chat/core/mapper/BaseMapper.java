@@ -42,6 +42,13 @@ public abstract class BaseMapper implements SchemaMapper {
     public abstract void doMap(QueryContext queryContext);
 
     public void addToSchemaMap(SchemaMapInfo schemaMap, Long modelId, SchemaElementMatch newElementMatch) {
+        addElementMatch(schemaMap, modelId, newElementMatch);
+    }
+
+    /***
+     * add the match unless the same element is already matched with a higher similarity
+     */
+    public static void addElementMatch(SchemaMapInfo schemaMap, Long modelId, SchemaElementMatch newElementMatch) {
         Map<Long, List<SchemaElementMatch>> modelElementMatches = schemaMap.getDataSetElementMatches();
         List<SchemaElementMatch> schemaElementMatches = modelElementMatches.putIfAbsent(modelId, new ArrayList<>());
         if (schemaElementMatches == null) {
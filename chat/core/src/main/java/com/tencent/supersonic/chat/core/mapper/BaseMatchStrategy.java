@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -49,6 +50,7 @@ public abstract class BaseMatchStrategy<T> implements MatchStrategy<T> {
         Set<T> results = new HashSet<>();
 
         Set<String> detectSegments = new HashSet<>();
+        BiPredicate<Integer, Integer> segmentFilter = getSegmentFilter(queryContext, detectDataSetIds);
 
         for (Integer startIndex = 0; startIndex <= text.length() - 1; ) {
 
@@ -58,7 +60,9 @@ public abstract class BaseMatchStrategy<T> implements MatchStrategy<T> {
                 if (index <= text.length()) {
                     String detectSegment = text.substring(startIndex, index).trim();
                     detectSegments.add(detectSegment);
-                    detectByStep(queryContext, results, detectDataSetIds, detectSegment, offset);
+                    if (segmentFilter.test(startIndex, index)) {
+                        detectByStep(queryContext, results, detectDataSetIds, detectSegment, offset);
+                    }
                 }
             }
             startIndex = mapperHelper.getStepIndex(regOffsetToLength, startIndex);
@@ -67,6 +71,13 @@ public abstract class BaseMatchStrategy<T> implements MatchStrategy<T> {
         return new ArrayList<>(results);
     }
 
+    /**
+     * the segments between the start and end index worth a detectByStep, all by default
+     */
+    protected BiPredicate<Integer, Integer> getSegmentFilter(QueryContext queryContext, Set<Long> detectDataSetIds) {
+        return (start, end) -> true;
+    }
+
     protected void detectByBatch(QueryContext queryContext, Set<T> results, Set<Long> detectDataSetIds,
             Set<String> detectSegments) {
         return;
@@ -3,7 +3,6 @@ package com.tencent.supersonic.chat.core.mapper;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.chat.api.pojo.SchemaElementMatch;
 import com.tencent.supersonic.chat.core.config.OptimizationConfig;
-import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.core.knowledge.DatabaseMapResult;
 import com.tencent.supersonic.chat.core.pojo.QueryContext;
 import com.tencent.supersonic.common.pojo.Constants;
@@ -13,8 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,14 +30,7 @@ public class DatabaseMatchStrategy extends BaseMatchStrategy<DatabaseMapResult>
     private OptimizationConfig optimizationConfig;
     @Autowired
     private MapperHelper mapperHelper;
-    private List<SchemaElement> allElements;
-
-    @Override
-    public Map<MatchText, List<DatabaseMapResult>> match(QueryContext queryContext, List<S2Term> terms,
-            Set<Long> detectDataSetIds) {
-        this.allElements = getSchemaElements(queryContext);
-        return super.match(queryContext, terms, detectDataSetIds);
-    }
+    private volatile ElementNameIndex nameIndex;
 
     @Override
     public boolean needDelete(DatabaseMapResult oneRoundResult, DatabaseMapResult existResult) {
@@ -61,12 +51,12 @@ public class DatabaseMatchStrategy extends BaseMatchStrategy<DatabaseMapResult>
         }
 
         Double metricDimensionThresholdConfig = getThreshold(queryContext);
-        Map<String, Set<SchemaElement>> nameToItems = getNameToItems(allElements);
+        Map<String, Set<SchemaElement>> nameToItems = getNameIndex(queryContext)
+                .getContainingNames(detectSegment, metricDimensionThresholdConfig);
 
         for (Entry<String, Set<SchemaElement>> entry : nameToItems.entrySet()) {
             String name = entry.getKey();
-            if (!name.contains(detectSegment)
-                    || mapperHelper.getSimilarity(detectSegment, name) < metricDimensionThresholdConfig) {
+            if (mapperHelper.getSimilarity(detectSegment, name) < metricDimensionThresholdConfig) {
                 continue;
             }
             Set<SchemaElement> schemaElements = entry.getValue();
@@ -85,11 +75,16 @@ public class DatabaseMatchStrategy extends BaseMatchStrategy<DatabaseMapResult>
         }
     }
 
-    private List<SchemaElement> getSchemaElements(QueryContext queryContext) {
-        List<SchemaElement> allElements = new ArrayList<>();
-        allElements.addAll(queryContext.getSemanticSchema().getDimensions());
-        allElements.addAll(queryContext.getSemanticSchema().getMetrics());
-        return allElements;
+    /**
+     * the name index of the semantic schema of the query, rebuilt when the schema is reloaded
+     */
+    private ElementNameIndex getNameIndex(QueryContext queryContext) {
+        ElementNameIndex index = nameIndex;
+        if (index == null || index.getSemanticSchema() != queryContext.getSemanticSchema()) {
+            index = ElementNameIndex.build(queryContext.getSemanticSchema());
+            nameIndex = index;
+        }
+        return index;
     }
 
     private Double getThreshold(QueryContext queryContext) {
@@ -110,16 +105,4 @@ public class DatabaseMatchStrategy extends BaseMatchStrategy<DatabaseMapResult>
         }
         return metricDimensionThresholdConfig;
     }
-
-    private Map<String, Set<SchemaElement>> getNameToItems(List<SchemaElement> models) {
-        return models.stream().collect(
-                Collectors.toMap(SchemaElement::getName, a -> {
-                    Set<SchemaElement> result = new HashSet<>();
-                    result.add(a);
-                    return result;
-                }, (k1, k2) -> {
-                    k1.addAll(k2);
-                    return k1;
-                }));
-    }
 }
@@ -0,0 +1,109 @@
+package com.tencent.supersonic.chat.core.mapper;
+
+import com.tencent.supersonic.chat.api.pojo.SemanticSchema;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from the characters and character pairs of the metric and dimension names to the
+ * names, built once for a semantic schema and then only read. The names are numbered by length, so
+ * a lookup walks the shortest posting list of the segment and stops at the first name that is too
+ * long to reach the similarity threshold.
+ */
+public class ElementNameIndex {
+
+    private final SemanticSchema semanticSchema;
+
+    private final String[] names;
+
+    private final List<Set<SchemaElement>> nameToElements;
+
+    private final Map<String, int[]> gramToNames;
+
+    private ElementNameIndex(SemanticSchema semanticSchema, String[] names, List<Set<SchemaElement>> nameToElements,
+            Map<String, int[]> gramToNames) {
+        this.semanticSchema = semanticSchema;
+        this.names = names;
+        this.nameToElements = nameToElements;
+        this.gramToNames = gramToNames;
+    }
+
+    public static ElementNameIndex build(SemanticSchema semanticSchema) {
+        List<SchemaElement> allElements = new ArrayList<>();
+        allElements.addAll(semanticSchema.getDimensions());
+        allElements.addAll(semanticSchema.getMetrics());
+        Map<String, Set<SchemaElement>> nameToItems = new TreeMap<>(
+                Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        for (SchemaElement element : allElements) {
+            if (element.getName() != null) {
+                nameToItems.computeIfAbsent(element.getName(), name -> new HashSet<>()).add(element);
+            }
+        }
+        String[] names = nameToItems.keySet().toArray(new String[0]);
+        List<Set<SchemaElement>> nameToElements = new ArrayList<>(nameToItems.values());
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            Set<String> grams = new HashSet<>();
+            for (int j = 0; j < names[i].length(); j++) {
+                grams.add(names[i].substring(j, j + 1));
+                if (j + 1 < names[i].length()) {
+                    grams.add(names[i].substring(j, j + 2));
+                }
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<String, int[]> gramToNames = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, ids) -> gramToNames.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return new ElementNameIndex(semanticSchema, names, nameToElements, gramToNames);
+    }
+
+    public SemanticSchema getSemanticSchema() {
+        return semanticSchema;
+    }
+
+    /**
+     * the names containing the segment that are short enough to reach the threshold, a name
+     * containing the segment has a similarity of the segment length divided by the name length
+     */
+    public Map<String, Set<SchemaElement>> getContainingNames(String segment, double threshold) {
+        Map<String, Set<SchemaElement>> result = new LinkedHashMap<>();
+        int[] candidates = null;
+        if (segment.length() == 1) {
+            candidates = gramToNames.get(segment);
+        } else {
+            for (int i = 0; i + 1 < segment.length(); i++) {
+                int[] ids = gramToNames.get(segment.substring(i, i + 2));
+                if (ids == null) {
+                    return result;
+                }
+                if (candidates == null || ids.length < candidates.length) {
+                    candidates = ids;
+                }
+            }
+        }
+        if (candidates == null) {
+            return result;
+        }
+        // one extra character of slack, the caller verifies the similarity
+        double maxLength = threshold > 0 ? segment.length() / threshold + 1 : Double.MAX_VALUE;
+        for (int id : candidates) {
+            if (names[id].length() > maxLength) {
+                break;
+            }
+            if (names[id].contains(segment)) {
+                result.put(names[id], nameToElements.get(id));
+            }
+        }
+        return result;
+    }
+}
@@ -10,7 +10,6 @@ import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.core.knowledge.EmbeddingResult;
 import com.tencent.supersonic.headless.core.knowledge.builder.BaseWordBuilder;
 import com.tencent.supersonic.headless.core.knowledge.helper.HanlpHelper;
-import com.tencent.supersonic.headless.server.service.KnowledgeService;
 import lombok.extern.slf4j.Slf4j;
 import java.util.List;
 import java.util.Objects;
@@ -21,12 +20,15 @@ import java.util.Objects;
 @Slf4j
 public class EmbeddingMapper extends BaseMapper {
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override
     public void doMap(QueryContext queryContext) {
         //1. query from embedding by queryText
-        String queryText = queryContext.getQueryText();
-        KnowledgeService knowledgeService = ContextUtils.getBean(KnowledgeService.class);
-        List<S2Term> terms = knowledgeService.getTerms(queryText);
+        List<S2Term> terms = queryContext.getTerms();
 
         EmbeddingMatchStrategy matchStrategy = ContextUtils.getBean(EmbeddingMatchStrategy.class);
         List<EmbeddingResult> matchResults = matchStrategy.getMatches(queryContext, terms);
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
@@ -54,6 +55,14 @@ public class HanlpDictMatchStrategy extends BaseMatchStrategy<HanlpMapResult> {
         return result;
     }
 
+    /**
+     * skip the segments that neither the prefix nor the suffix search can find
+     */
+    @Override
+    protected BiPredicate<Integer, Integer> getSegmentFilter(QueryContext queryContext, Set<Long> detectDataSetIds) {
+        return knowledgeService.getSegmentLattice(queryContext.getQueryText(), detectDataSetIds)::accept;
+    }
+
     @Override
     public boolean needDelete(HanlpMapResult oneRoundResult, HanlpMapResult existResult) {
         return getMapKey(oneRoundResult).equals(getMapKey(existResult))
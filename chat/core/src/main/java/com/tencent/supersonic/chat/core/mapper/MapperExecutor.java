@@ -0,0 +1,155 @@
+package com.tencent.supersonic.chat.core.mapper;
+
+import com.tencent.supersonic.chat.api.pojo.SchemaElementMatch;
+import com.tencent.supersonic.chat.api.pojo.SchemaMapInfo;
+import com.tencent.supersonic.chat.core.pojo.QueryContext;
+import com.tencent.supersonic.common.util.ThreadMdcUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Run the schema mappers in their configured order, each followed by its dependent mapper if it has
+ * one. A mapper that is not independent runs alone on the map info built so far, while consecutive
+ * independent mappers run at the same time, each on its own empty map info, and their matches are
+ * merged afterwards in the configured order.
+ * A stage that does not fit in the bounded queue runs on the calling thread.
+ */
+@Component
+@Slf4j
+public class MapperExecutor {
+
+    @Value("${mapper.parallel.enable:false}")
+    private boolean parallelEnable;
+
+    @Value("${mapper.parallel.threads:4}")
+    private int threads;
+
+    @Value("${mapper.parallel.queue.size:100}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "schema-mapper-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param costConsumer receives the time spent in each mapper, in the configured order
+     */
+    public void map(List<SchemaMapper> configuredMappers, QueryContext queryContext,
+            BiConsumer<SchemaMapper, Long> costConsumer) {
+        List<SchemaMapper> schemaMappers = new ArrayList<>();
+        for (SchemaMapper mapper : configuredMappers) {
+            schemaMappers.add(mapper);
+            if (mapper.getDependentMapper() != null) {
+                schemaMappers.add(mapper.getDependentMapper());
+            }
+        }
+        if (!parallelEnable) {
+            schemaMappers.forEach(mapper -> costConsumer.accept(mapper, runMapper(mapper, queryContext)));
+            return;
+        }
+        List<SchemaMapper> stage = new ArrayList<>();
+        for (SchemaMapper mapper : schemaMappers) {
+            if (mapper.isIndependent()) {
+                stage.add(mapper);
+                continue;
+            }
+            runStage(stage, queryContext, costConsumer);
+            stage.clear();
+            costConsumer.accept(mapper, runMapper(mapper, queryContext));
+        }
+        runStage(stage, queryContext, costConsumer);
+    }
+
+    private void runStage(List<SchemaMapper> stage, QueryContext queryContext,
+            BiConsumer<SchemaMapper, Long> costConsumer) {
+        if (stage.size() <= 1) {
+            stage.forEach(mapper -> costConsumer.accept(mapper, runMapper(mapper, queryContext)));
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        List<QueryContext> stageContexts = new ArrayList<>();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (SchemaMapper mapper : stage) {
+            QueryContext stageContext = new QueryContext();
+            BeanUtils.copyProperties(queryContext, stageContext, "candidateQueries", "mapInfo", "terms");
+            stageContext.setTerms(queryContext.getTerms());
+            stageContext.setMapInfo(new SchemaMapInfo());
+            stageContexts.add(stageContext);
+            try {
+                futures.add(executor.submit(ThreadMdcUtil.wrap(() -> runMapper(mapper, stageContext), mdcContext)));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(runMapper(mapper, stageContext)));
+            }
+        }
+        for (int i = 0; i < stage.size(); i++) {
+            SchemaMapper mapper = stage.get(i);
+            try {
+                costConsumer.accept(mapper, futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("mapper interrupted:{}", mapper.getClass().getSimpleName(), e);
+                continue;
+            } catch (ExecutionException e) {
+                // fail the query as the sequential mode does, the mappers not started yet are skipped
+                futures.subList(i + 1, futures.size()).forEach(future -> future.cancel(false));
+                log.error("mapper error:{}", mapper.getClass().getSimpleName(), e.getCause());
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+            merge(stageContexts.get(i).getMapInfo(), queryContext.getMapInfo());
+        }
+        log.debug("parallel mappers:{}, cost:{}", stage.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private long runMapper(SchemaMapper mapper, QueryContext queryContext) {
+        long startTime = System.currentTimeMillis();
+        mapper.map(queryContext);
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private void merge(SchemaMapInfo source, SchemaMapInfo target) {
+        for (Map.Entry<Long, List<SchemaElementMatch>> entry : source.getDataSetElementMatches().entrySet()) {
+            for (SchemaElementMatch elementMatch : entry.getValue()) {
+                BaseMapper.addElementMatch(target, entry.getKey(), elementMatch);
+            }
+        }
+    }
+}
@@ -9,4 +9,20 @@ import com.tencent.supersonic.chat.core.pojo.QueryContext;
 public interface SchemaMapper {
 
     void map(QueryContext queryContext);
+
+    /**
+     * an independent mapper only adds its own matches and does not read or change the matches of
+     * the mappers before it, so it can run at the same time as its independent neighbours
+     */
+    default boolean isIndependent() {
+        return false;
+    }
+
+    /**
+     * a mapper run right after this one, for the part of an independent mapper that reads the
+     * matches of the mappers before it, it runs on the merged matches of the stage
+     */
+    default SchemaMapper getDependentMapper() {
+        return null;
+    }
 }
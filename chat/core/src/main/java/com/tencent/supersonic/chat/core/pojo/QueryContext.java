@@ -11,6 +11,8 @@ import com.tencent.supersonic.chat.core.config.OptimizationConfig;
 import com.tencent.supersonic.chat.core.plugin.Plugin;
 import com.tencent.supersonic.chat.core.query.SemanticQuery;
 import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.headless.api.pojo.response.S2Term;
+import com.tencent.supersonic.headless.server.service.KnowledgeService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -47,6 +49,24 @@ public class QueryContext {
     private Map<String, Plugin> nameToPlugin;
     @JsonIgnore
     private List<Plugin> pluginList;
+    @JsonIgnore
+    private List<S2Term> terms;
+
+    public void setQueryText(String queryText) {
+        this.queryText = queryText;
+        this.terms = null;
+    }
+
+    /***
+     * the segmentation of the query text, computed on first use and shared by all the mappers
+     */
+    public synchronized List<S2Term> getTerms() {
+        if (terms == null) {
+            KnowledgeService knowledgeService = ContextUtils.getBean(KnowledgeService.class);
+            terms = knowledgeService.getTerms(queryText);
+        }
+        return terms;
+    }
 
     public List<SemanticQuery> getCandidateQueries() {
         OptimizationConfig optimizationConfig = ContextUtils.getBean(OptimizationConfig.class);
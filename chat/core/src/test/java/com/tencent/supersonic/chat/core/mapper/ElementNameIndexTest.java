@@ -0,0 +1,46 @@
+package com.tencent.supersonic.chat.core.mapper;
+
+import com.tencent.supersonic.chat.api.pojo.DataSetSchema;
+import com.tencent.supersonic.chat.api.pojo.SemanticSchema;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+class ElementNameIndexTest {
+
+    @Test
+    void testGetContainingNames() {
+        List<String> names = Arrays.asList("访问次数", "访问用户数", "停留时长", "用户名", "部门", "访问次数");
+        DataSetSchema dataSetSchema = new DataSetSchema();
+        for (int i = 0; i < names.size(); i++) {
+            SchemaElement element = SchemaElement.builder().dataSet(1L).id((long) i).name(names.get(i))
+                    .type(i % 2 == 0 ? SchemaElementType.METRIC : SchemaElementType.DIMENSION).build();
+            if (i % 2 == 0) {
+                dataSetSchema.getMetrics().add(element);
+            } else {
+                dataSetSchema.getDimensions().add(element);
+            }
+        }
+        ElementNameIndex index = ElementNameIndex.build(new SemanticSchema(new ArrayList<>(
+                Collections.singletonList(dataSetSchema))));
+
+        Assertions.assertEquals(new TreeSet<>(Arrays.asList("访问次数", "访问用户数")),
+                new TreeSet<>(index.getContainingNames("访问", 0.3).keySet()));
+        Assertions.assertEquals(2, index.getContainingNames("访问次数", 0.3).get("访问次数").size());
+        Assertions.assertEquals(Arrays.asList("用户名", "访问用户数"),
+                new ArrayList<>(index.getContainingNames("用户", 0.3).keySet()));
+        Assertions.assertEquals(Collections.singletonList("用户名"),
+                new ArrayList<>(index.getContainingNames("用户", 0.6).keySet()));
+        Assertions.assertEquals(Collections.singletonList("部门"),
+                new ArrayList<>(index.getContainingNames("部", 0.5).keySet()));
+        Assertions.assertTrue(index.getContainingNames("访数", 0.3).isEmpty());
+        Assertions.assertTrue(index.getContainingNames("城市", 0.3).isEmpty());
+    }
+}
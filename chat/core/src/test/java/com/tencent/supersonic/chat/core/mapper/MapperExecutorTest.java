@@ -0,0 +1,169 @@
+package com.tencent.supersonic.chat.core.mapper;
+
+import com.tencent.supersonic.chat.api.pojo.SchemaElementMatch;
+import com.tencent.supersonic.chat.core.pojo.QueryContext;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class MapperExecutorTest {
+
+    @Test
+    void testParallelSameAsSequential() {
+        List<SchemaMapper> mappers = Arrays.asList(
+                new FixedMapper(new long[]{1L, 2L}, 0.5),
+                new FixedMapper(new long[]{2L, 3L}, 0.8),
+                new CountingMapper());
+
+        List<String> sequentialCosts = new ArrayList<>();
+        QueryContext sequential = buildQueryContext();
+        buildExecutor(false).map(mappers, sequential,
+                (mapper, cost) -> sequentialCosts.add(mapper.getClass().getSimpleName()));
+
+        MapperExecutor executor = buildExecutor(true);
+        List<String> parallelCosts = new ArrayList<>();
+        QueryContext parallel = buildQueryContext();
+        executor.map(mappers, parallel, (mapper, cost) -> parallelCosts.add(mapper.getClass().getSimpleName()));
+        executor.destroy();
+
+        Assertions.assertEquals(sequentialCosts, parallelCosts);
+        Assertions.assertEquals(matches(sequential), matches(parallel));
+        Assertions.assertEquals(Arrays.asList("1:0.5", "2:0.8", "3:0.8", "9:3.0"), matches(parallel));
+    }
+
+    @Test
+    void testDependentMapperSeesStage() {
+        List<SchemaMapper> mappers = Arrays.asList(
+                new FixedMapper(new long[]{1L, 2L}, 0.5),
+                new FixedMapper(new long[]{3L}, 0.8, new CountingMapper()));
+
+        List<String> sequentialCosts = new ArrayList<>();
+        QueryContext sequential = buildQueryContext();
+        buildExecutor(false).map(mappers, sequential,
+                (mapper, cost) -> sequentialCosts.add(mapper.getClass().getSimpleName()));
+
+        MapperExecutor executor = buildExecutor(true);
+        List<String> parallelCosts = new ArrayList<>();
+        QueryContext parallel = buildQueryContext();
+        executor.map(mappers, parallel, (mapper, cost) -> parallelCosts.add(mapper.getClass().getSimpleName()));
+        executor.destroy();
+
+        Assertions.assertEquals(Arrays.asList("FixedMapper", "FixedMapper", "CountingMapper"), parallelCosts);
+        Assertions.assertEquals(sequentialCosts, parallelCosts);
+        Assertions.assertEquals(matches(sequential), matches(parallel));
+        Assertions.assertEquals(Arrays.asList("1:0.5", "2:0.5", "3:0.8", "9:3.0"), matches(parallel));
+    }
+
+    @Test
+    void testMapperError() {
+        List<SchemaMapper> mappers = Arrays.asList(
+                new FixedMapper(new long[]{1L}, 0.5),
+                new FailingMapper(),
+                new FixedMapper(new long[]{2L}, 0.8));
+        IllegalStateException sequentialError = Assertions.assertThrows(IllegalStateException.class,
+                () -> buildExecutor(false).map(mappers, buildQueryContext(), (mapper, cost) -> {
+                }));
+
+        MapperExecutor executor = buildExecutor(true);
+        IllegalStateException parallelError = Assertions.assertThrows(IllegalStateException.class,
+                () -> executor.map(mappers, buildQueryContext(), (mapper, cost) -> {
+                }));
+        executor.destroy();
+        Assertions.assertEquals(sequentialError.getMessage(), parallelError.getMessage());
+    }
+
+    private MapperExecutor buildExecutor(boolean parallelEnable) {
+        MapperExecutor executor = new MapperExecutor();
+        ReflectionTestUtils.setField(executor, "parallelEnable", parallelEnable);
+        ReflectionTestUtils.setField(executor, "threads", 2);
+        ReflectionTestUtils.setField(executor, "queueSize", 10);
+        executor.init();
+        return executor;
+    }
+
+    private QueryContext buildQueryContext() {
+        QueryContext queryContext = new QueryContext();
+        queryContext.setQueryText("query");
+        queryContext.setTerms(Collections.emptyList());
+        return queryContext;
+    }
+
+    private List<String> matches(QueryContext queryContext) {
+        return queryContext.getMapInfo().getMatchedElements(1L).stream()
+                .sorted((a, b) -> Long.compare(a.getElement().getId(), b.getElement().getId()))
+                .map(match -> match.getElement().getId() + ":" + match.getSimilarity())
+                .collect(Collectors.toList());
+    }
+
+    private static SchemaElementMatch buildMatch(long id, double similarity) {
+        SchemaElement element = SchemaElement.builder().dataSet(1L).id(id).name("element" + id)
+                .type(SchemaElementType.METRIC).build();
+        return SchemaElementMatch.builder().element(element).similarity(similarity).build();
+    }
+
+    private static class FixedMapper extends BaseMapper {
+
+        private final long[] ids;
+
+        private final double similarity;
+
+        private final SchemaMapper dependentMapper;
+
+        FixedMapper(long[] ids, double similarity) {
+            this(ids, similarity, null);
+        }
+
+        FixedMapper(long[] ids, double similarity, SchemaMapper dependentMapper) {
+            this.ids = ids;
+            this.similarity = similarity;
+            this.dependentMapper = dependentMapper;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return true;
+        }
+
+        @Override
+        public SchemaMapper getDependentMapper() {
+            return dependentMapper;
+        }
+
+        @Override
+        public void doMap(QueryContext queryContext) {
+            for (long id : ids) {
+                addToSchemaMap(queryContext.getMapInfo(), 1L, buildMatch(id, similarity));
+            }
+        }
+    }
+
+    private static class FailingMapper implements SchemaMapper {
+
+        @Override
+        public boolean isIndependent() {
+            return true;
+        }
+
+        @Override
+        public void map(QueryContext queryContext) {
+            throw new IllegalStateException("mapper failed");
+        }
+    }
+
+    private static class CountingMapper extends BaseMapper {
+
+        @Override
+        public void doMap(QueryContext queryContext) {
+            int count = queryContext.getMapInfo().getMatchedElements(1L).size();
+            addToSchemaMap(queryContext.getMapInfo(), 1L, buildMatch(9L, count));
+        }
+    }
+}
@@ -4,13 +4,18 @@ import com.tencent.supersonic.headless.core.knowledge.DictWord;
 import com.tencent.supersonic.chat.server.service.impl.SchemaService;
 import com.tencent.supersonic.chat.server.service.impl.WordService;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import com.tencent.supersonic.headless.server.service.KnowledgeService;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -27,6 +32,18 @@ public class ApplicationStartedListener implements CommandLineRunner {
     private WordService wordService;
     @Autowired
     private SchemaService schemaService;
+    @Autowired
+    private SchemaVersionUtils schemaVersionUtils;
+
+    @Value("${reload.knowledge.full.interval:600000}")
+    private Long fullSyncInterval;
+
+    /**
+     * the schema version the knowledge was synced at, read before the words are fetched so that
+     * changes made during a sync move the version again
+     */
+    private volatile long syncedSchemaVersion = -1;
+    private volatile long syncedTime;
 
     @Override
     public void run(String... args) {
@@ -38,9 +55,11 @@ public class ApplicationStartedListener implements CommandLineRunner {
         try {
             log.debug("ApplicationStartedInit start");
 
+            long schemaVersion = schemaVersionUtils.getVersion();
             List<DictWord> dictWords = wordService.getAllDictWords();
             wordService.setPreDictWords(dictWords);
             knowledgeService.reloadAllData(dictWords);
+            syncVersion(schemaVersion);
 
             log.debug("ApplicationStartedInit end");
             isOk = true;
@@ -59,23 +78,40 @@ public class ApplicationStartedListener implements CommandLineRunner {
     }
 
     /***
-     * reload knowledge task
+     * reload knowledge task, only when the schema version moved since the last sync or a full sync
+     * is due to pick up changes made by other instances. The words added and removed since the
+     * last sync are applied to the knowledge, the rest stays as it is.
      */
     @Scheduled(cron = "${reload.knowledge.corn:0 0/1 * * * ?}")
     public void reloadKnowledge() {
         log.debug("reloadKnowledge start");
 
         try {
+            long schemaVersion = schemaVersionUtils.getVersion();
+            if (schemaVersion == syncedSchemaVersion
+                    && System.currentTimeMillis() - syncedTime < fullSyncInterval) {
+                log.debug("schema version has not changed, reloadKnowledge end");
+                return;
+            }
             List<DictWord> dictWords = wordService.getAllDictWords();
-            List<DictWord> preDictWords = wordService.getPreDictWords();
-
-            if (CollectionUtils.isEqualCollection(dictWords, preDictWords)) {
+            Set<DictWord> preDictWords = new HashSet<>(wordService.getPreDictWords());
+            Set<DictWord> currentDictWords = new HashSet<>(dictWords);
+            List<DictWord> removedWords = preDictWords.stream()
+                    .filter(dictWord -> !currentDictWords.contains(dictWord))
+                    .collect(Collectors.toList());
+            List<DictWord> addedWords = currentDictWords.stream()
+                    .filter(dictWord -> !preDictWords.contains(dictWord))
+                    .collect(Collectors.toList());
+            syncVersion(schemaVersion);
+            if (CollectionUtils.isEmpty(removedWords) && CollectionUtils.isEmpty(addedWords)) {
                 log.debug("dictWords has not changed, reloadKnowledge end");
                 return;
             }
-            log.info("dictWords has changed");
+            log.info("dictWords has changed, schemaVersion:{}, removed:{}, added:{}", schemaVersion,
+                    removedWords.size(), addedWords.size());
             wordService.setPreDictWords(dictWords);
-            knowledgeService.updateOnlineKnowledge(wordService.getAllDictWords());
+            knowledgeService.removeOnlineKnowledge(removedWords);
+            knowledgeService.updateOnlineKnowledge(addedWords);
             schemaService.getCache().refresh(SchemaService.ALL_CACHE);
 
         } catch (Exception e) {
@@ -84,4 +120,9 @@ public class ApplicationStartedListener implements CommandLineRunner {
 
         log.debug("reloadKnowledge end");
     }
+
+    private void syncVersion(long schemaVersion) {
+        syncedSchemaVersion = schemaVersion;
+        syncedTime = System.currentTimeMillis();
+    }
 }
@@ -4,7 +4,8 @@ public enum CostType {
     MAPPER(1, "mapper"),
     PARSER(2, "parser"),
     QUERY(3, "query"),
-    PROCESSOR(4, "processor");
+    PROCESSOR(4, "processor"),
+    SEGMENT(5, "segment");
 
     private Integer type;
     private String name;
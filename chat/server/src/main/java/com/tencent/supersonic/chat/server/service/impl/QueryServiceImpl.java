@@ -23,6 +23,7 @@ import com.tencent.supersonic.chat.core.corrector.SemanticCorrector;
 import com.tencent.supersonic.headless.core.knowledge.HanlpMapResult;
 import com.tencent.supersonic.headless.core.knowledge.SearchService;
 import com.tencent.supersonic.chat.core.query.semantic.SemanticInterpreter;
+import com.tencent.supersonic.chat.core.mapper.MapperExecutor;
 import com.tencent.supersonic.chat.core.mapper.SchemaMapper;
 import com.tencent.supersonic.chat.core.parser.SemanticParser;
 import com.tencent.supersonic.chat.core.plugin.Plugin;
@@ -125,6 +126,9 @@ public class QueryServiceImpl implements QueryService {
     @Autowired
     private KnowledgeService knowledgeService;
 
+    @Autowired
+    private MapperExecutor mapperExecutor;
+
     @Value("${time.threshold: 100}")
     private Integer timeThreshold;
 
@@ -144,15 +148,18 @@ public class QueryServiceImpl implements QueryService {
         ChatContext chatCtx = chatService.getOrCreateContext(queryReq.getChatId());
         List<StatisticsDO> timeCostDOList = new ArrayList<>();
 
-        // 1. mapper
-        schemaMappers.forEach(mapper -> {
-            long startTime = System.currentTimeMillis();
-            mapper.map(queryCtx);
-            timeCostDOList.add(StatisticsDO.builder().cost((int) (System.currentTimeMillis() - startTime))
-                    .interfaceName(mapper.getClass().getSimpleName()).type(CostType.MAPPER.getType()).build());
-        });
+        // 1. segment once, shared by the mappers
+        long segmentStartTime = System.currentTimeMillis();
+        queryCtx.getTerms();
+        timeCostDOList.add(StatisticsDO.builder().cost((int) (System.currentTimeMillis() - segmentStartTime))
+                .interfaceName(CostType.SEGMENT.getName()).type(CostType.SEGMENT.getType()).build());
+
+        // 2. mapper
+        mapperExecutor.map(schemaMappers, queryCtx, (mapper, cost) ->
+                timeCostDOList.add(StatisticsDO.builder().cost(cost.intValue())
+                        .interfaceName(mapper.getClass().getSimpleName()).type(CostType.MAPPER.getType()).build()));
 
-        // 2. parser
+        // 3. parser
         semanticParsers.forEach(parser -> {
             long startTime = System.currentTimeMillis();
             parser.parse(queryCtx, chatCtx);
@@ -161,7 +168,7 @@ public class QueryServiceImpl implements QueryService {
             log.debug("{} result:{}", parser.getClass().getSimpleName(), JsonUtil.toString(queryCtx));
         });
 
-        // 3. corrector
+        // 4. corrector
         List<SemanticQuery> candidateQueries = queryCtx.getCandidateQueries();
         if (CollectionUtils.isNotEmpty(candidateQueries)) {
             for (SemanticQuery semanticQuery : candidateQueries) {
@@ -175,7 +182,7 @@ public class QueryServiceImpl implements QueryService {
             }
         }
 
-        // 4. processor
+        // 5. processor
         parseProcessors.forEach(processor -> {
             long startTime = System.currentTimeMillis();
             processor.process(parseResult, queryCtx, chatCtx);
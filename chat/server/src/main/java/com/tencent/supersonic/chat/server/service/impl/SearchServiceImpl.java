@@ -28,7 +28,6 @@ import com.tencent.supersonic.chat.server.service.ConfigService;
 import com.tencent.supersonic.chat.server.service.SearchService;
 import com.tencent.supersonic.common.pojo.enums.DictWordType;
 import com.tencent.supersonic.common.util.ContextUtils;
-import com.tencent.supersonic.headless.server.service.KnowledgeService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.BeanUtils;
@@ -73,9 +72,6 @@ public class SearchServiceImpl implements SearchService {
     @Autowired
     private ConfigService configService;
 
-    @Autowired
-    private KnowledgeService knowledgeService;
-
     @Override
     public List<SearchResult> search(QueryReq queryReq) {
         // 1. check search enable
@@ -87,21 +83,20 @@ public class SearchServiceImpl implements SearchService {
             }
         }
 
-        String queryText = queryReq.getQueryText();
         // 2.get meta info
         SemanticSchema semanticSchemaDb = schemaService.getSemanticSchema();
         List<SchemaElement> metricsDb = semanticSchemaDb.getMetrics();
         final Map<Long, String> modelToName = semanticSchemaDb.getDataSetIdToName();
 
         // 3.detect by segment
-        List<S2Term> originals = knowledgeService.getTerms(queryText);
+        QueryContext queryContext = new QueryContext();
+        BeanUtils.copyProperties(queryReq, queryContext);
+        List<S2Term> originals = queryContext.getTerms();
         log.info("hanlp parse result: {}", originals);
         MapperHelper mapperHelper = ContextUtils.getBean(MapperHelper.class);
         Set<Long> detectDataSetIds = mapperHelper.getDataSetIds(queryReq.getDataSetId(),
                 agentService.getAgent(agentId));
 
-        QueryContext queryContext = new QueryContext();
-        BeanUtils.copyProperties(queryReq, queryContext);
         Map<MatchText, List<HanlpMapResult>> regTextMap =
                 searchMatchStrategy.match(queryContext, originals, detectDataSetIds);
         regTextMap.entrySet().stream().forEach(m -> HanlpHelper.transLetterOriginal(m.getValue()));
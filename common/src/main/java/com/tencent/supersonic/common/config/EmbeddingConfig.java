@@ -38,7 +38,37 @@ public class EmbeddingConfig {
     @Value("${embedding.metric.analyzeQuery.nResult:5}")
     private int metricAnalyzeQueryResultNum;
 
+    /**
+     * texts sent to the embedding model in one call
+     */
+    @Value("${embedding.batch.size:32}")
+    private int embeddingBatchSize;
+
+    /**
+     * recently embedded texts kept in memory, 0 disables the cache
+     */
+    @Value("${embedding.cache.size:10000}")
+    private int embeddingCacheSize;
+
     @Value("${inMemoryEmbeddingStore.persistent.path:/tmp}")
     private String embeddingStorePersistentPath;
 
+    /**
+     * flat scans all embeddings, hnsw searches an approximate nearest neighbour graph
+     */
+    @Value("${inMemoryEmbeddingStore.index.type:flat}")
+    private String embeddingStoreIndexType;
+
+    @Value("${inMemoryEmbeddingStore.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${inMemoryEmbeddingStore.hnsw.efConstruction:200}")
+    private int hnswEfConstruction;
+
+    /**
+     * candidates kept while searching, higher gives better recall and slower retrieval
+     */
+    @Value("${inMemoryEmbeddingStore.hnsw.efSearch:100}")
+    private int hnswEfSearch;
+
 }
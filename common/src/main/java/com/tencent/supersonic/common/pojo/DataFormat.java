@@ -1,9 +1,10 @@
 package com.tencent.supersonic.common.pojo;
 
+import java.io.Serializable;
 import lombok.Data;
 
 @Data
-public class DataFormat {
+public class DataFormat implements Serializable {
 
     private boolean needMultiply100;
 
@@ -1,5 +1,6 @@
 package com.tencent.supersonic.common.pojo;
 
+import java.io.Serializable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class QueryColumn {
+public class QueryColumn implements Serializable {
 
     private String name;
     private String type;
@@ -0,0 +1,132 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.common.config.EmbeddingConfig;
+import com.tencent.supersonic.common.util.ContextUtils;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compute embeddings through the embedding model in batches and keep the least recently used
+ * ones, so that the same texts in later calls are not sent to the model again. Entries are keyed
+ * by the name of the model, the embeddings of different models are never mixed up.
+ */
+@Component
+@Slf4j
+public class EmbeddingCache {
+
+    private static final String MODEL_PREFIX = "langchain4j.embedding-model";
+
+    /**
+     * the properties telling embedding models apart, in lower case without separators
+     */
+    private static final Set<String> MODEL_PROPERTIES = new HashSet<>(
+            Arrays.asList("provider", "modelname", "modelid", "modelpath", "baseurl"));
+
+    @Autowired
+    private EmbeddingConfig embeddingConfig;
+
+    @Autowired
+    private Environment environment;
+
+    private Cache<String, Embedding> cache;
+
+    /**
+     * the configured model, blank if it is not configured
+     */
+    private String configuredModelName;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().maximumSize(embeddingConfig.getEmbeddingCacheSize()).build();
+        configuredModelName = getModelName(environment);
+    }
+
+    /**
+     * @return the provider, model and url properties of the embedding model, e.g.
+     *         {@code provider=open_ai,open-ai.model-name=text-embedding-ada-002}
+     */
+    public static String getModelName(Environment environment) {
+        Map<String, String> properties = Binder.get(environment)
+                .bind(MODEL_PREFIX, Bindable.mapOf(String.class, String.class)).orElse(Collections.emptyMap());
+        return new TreeMap<>(properties).entrySet().stream()
+                .filter(entry -> isModelProperty(entry.getKey()))
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    public Embedding embed(String text) {
+        return embedAll(Collections.singletonList(text)).get(0);
+    }
+
+    /**
+     * @return the embeddings in the order of the texts
+     */
+    public List<Embedding> embedAll(List<String> texts) {
+        EmbeddingModel embeddingModel = ContextUtils.getBean(EmbeddingModel.class);
+        String modelName = StringUtils.isBlank(configuredModelName) ? embeddingModel.getClass().getName()
+                : configuredModelName;
+        return embedAll(embeddingModel, modelName, texts);
+    }
+
+    /**
+     * @param modelName the name the embeddings of the model are cached under
+     * @return the embeddings in the order of the texts
+     */
+    public List<Embedding> embedAll(EmbeddingModel embeddingModel, String modelName, List<String> texts) {
+        Embedding[] embeddings = new Embedding[texts.size()];
+        Map<String, List<Integer>> misses = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            Embedding embedding = cache.getIfPresent(getKey(modelName, texts.get(i)));
+            if (embedding != null) {
+                embeddings[i] = embedding;
+            } else {
+                misses.computeIfAbsent(texts.get(i), text -> new ArrayList<>()).add(i);
+            }
+        }
+        int batchSize = Math.max(1, embeddingConfig.getEmbeddingBatchSize());
+        for (List<String> batch : Lists.partition(new ArrayList<>(misses.keySet()), batchSize)) {
+            List<TextSegment> segments = batch.stream().map(TextSegment::from).collect(Collectors.toList());
+            List<Embedding> batchEmbeddings = embeddingModel.embedAll(segments).content();
+            for (int i = 0; i < batch.size(); i++) {
+                Embedding embedding = batchEmbeddings.get(i);
+                cache.put(getKey(modelName, batch.get(i)), embedding);
+                for (Integer index : misses.get(batch.get(i))) {
+                    embeddings[index] = embedding;
+                }
+            }
+        }
+        log.debug("embed texts:{}, cache misses:{}", texts.size(), misses.size());
+        return Arrays.asList(embeddings);
+    }
+
+    private static boolean isModelProperty(String key) {
+        String name = key.substring(key.lastIndexOf('.') + 1);
+        return MODEL_PROPERTIES.contains(name.replaceAll("[-_]", "").toLowerCase());
+    }
+
+    private String getKey(String modelName, String text) {
+        return modelName + ":" + text;
+    }
+}
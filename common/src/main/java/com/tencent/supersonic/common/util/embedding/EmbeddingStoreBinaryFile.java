@@ -0,0 +1,141 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.google.gson.Gson;
+import com.tencent.supersonic.common.util.embedding.InMemoryS2EmbeddingStore.InMemoryEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Binary file of an in-memory embedding store: a fixed header, the vectors packed as raw floats
+ * and a metadata section with the id and the json of the embedded object of every entry.
+ * <pre>
+ * int magic, int format version, int count, int dimension, long metadata offset
+ * float[count * dimension]
+ * (int length, utf8 id, int length, utf8 json or -1 for null)[count]
+ * </pre>
+ * Files are streamed through a small buffer into a temp file which replaces the previous file
+ * atomically, and memory-mapped when read.
+ */
+final class EmbeddingStoreBinaryFile {
+
+    private static final int MAGIC = 0x53324553;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private static final Gson GSON = new Gson();
+
+    private EmbeddingStoreBinaryFile() {
+    }
+
+    static void write(Path file, List<String> ids, List<Embedding> embeddings, List<?> embedded)
+            throws IOException {
+        int dimension = embeddings.isEmpty() ? 0 : embeddings.get(0).dimensions();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(ids.size()).putInt(dimension)
+                    .putLong(HEADER_BYTES + (long) ids.size() * dimension * Float.BYTES);
+            for (Embedding embedding : embeddings) {
+                for (float value : embedding.vector()) {
+                    if (buffer.remaining() < Float.BYTES) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putFloat(value);
+                }
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                putString(channel, buffer, ids.get(i));
+                putString(channel, buffer, embedded.get(i) == null ? null : GSON.toJson(embedded.get(i)));
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static InMemoryEmbeddingStore<EmbeddingQuery> read(Path file) throws IOException {
+        InMemoryEmbeddingStore<EmbeddingQuery> store = new InMemoryEmbeddingStore<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("embedding store file is too large to map:" + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("not an embedding store file:" + file);
+            }
+            int count = buffer.getInt();
+            int dimension = buffer.getInt();
+            long metadataOffset = buffer.getLong();
+            FloatBuffer vectors = buffer.asFloatBuffer();
+            buffer.position((int) metadataOffset);
+            for (int i = 0; i < count; i++) {
+                float[] vector = new float[dimension];
+                vectors.get(vector);
+                String id = getString(buffer);
+                String json = getString(buffer);
+                EmbeddingQuery embedded = json == null ? null : GSON.fromJson(json, EmbeddingQuery.class);
+                store.add(id, Embedding.from(vector), embedded);
+            }
+        }
+        return store;
+    }
+
+    private static void putString(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            drain(channel, buffer);
+        }
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        if (buffer.remaining() < bytes.length) {
+            drain(channel, buffer);
+        }
+        if (bytes.length > buffer.remaining()) {
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
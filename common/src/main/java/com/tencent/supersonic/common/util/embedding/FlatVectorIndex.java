@@ -0,0 +1,297 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.tencent.supersonic.common.util.embedding.HnswIndex.Match;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Exact cosine nearest neighbour search over normalized vectors packed row by row into one
+ * float array, so scoring is a dot product over contiguous memory and only the final k matches
+ * are allocated. Large indexes are scanned in chunks on the common fork join pool.
+ * <p>
+ * Rows are append only: a writer fills the row behind the published size and then publishes a
+ * new block, readers scan the block they started with and never take a lock. Removed rows are
+ * only marked in a tombstone bitmap and skipped by the scan, the owner rebuilds the index once
+ * they pile up.
+ *
+ * @param <T> the item kept for every vector
+ */
+public class FlatVectorIndex<T> {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 32768;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int parallelThreshold;
+
+    /**
+     * row of every item by identity, guarded by this
+     */
+    private final Map<T, Integer> rows = new IdentityHashMap<>();
+
+    /**
+     * replaced under the lock of this on every add and remove
+     */
+    private volatile Block block;
+
+    public FlatVectorIndex() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public FlatVectorIndex(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * the number of live rows
+     */
+    public int size() {
+        Block current = block;
+        return current == null ? 0 : current.size - current.removed;
+    }
+
+    public synchronized void add(float[] vector, T item) {
+        Block current = block;
+        if (current == null) {
+            current = new Block(new float[INITIAL_CAPACITY * vector.length], new Object[INITIAL_CAPACITY],
+                    new long[tombstoneWords(INITIAL_CAPACITY)], vector.length, 0, 0);
+        }
+        if (vector.length != current.dimension) {
+            throw new IllegalArgumentException(String.format("embedding dimension %d does not match %d",
+                    vector.length, current.dimension));
+        }
+        float[] vectors = current.vectors;
+        Object[] items = current.items;
+        long[] tombstones = current.tombstones;
+        if (current.size == items.length) {
+            int capacity = grow(items.length, current.dimension);
+            vectors = Arrays.copyOf(vectors, capacity * current.dimension);
+            items = Arrays.copyOf(items, capacity);
+            tombstones = Arrays.copyOf(tombstones, tombstoneWords(capacity));
+        }
+        float[] normalized = HnswIndex.normalize(vector);
+        System.arraycopy(normalized, 0, vectors, current.size * current.dimension, current.dimension);
+        items[current.size] = item;
+        rows.put(item, current.size);
+        block = new Block(vectors, items, tombstones, current.dimension, current.size + 1, current.removed);
+    }
+
+    /**
+     * mark the row of the item as removed, searches started before may still return it
+     *
+     * @return false if the item is not in the index
+     */
+    public synchronized boolean remove(T item) {
+        Integer row = rows.remove(item);
+        if (row == null) {
+            return false;
+        }
+        Block current = block;
+        // the item stays referenced, a concurrent scan may have picked the row already
+        current.tombstones[row >>> 6] |= 1L << row;
+        block = new Block(current.vectors, current.items, current.tombstones, current.dimension, current.size,
+                current.removed + 1);
+        return true;
+    }
+
+    /**
+     * find the k most similar items, ordered by descending cosine similarity
+     */
+    public List<Match<T>> search(float[] vector, int k) {
+        Block current = block;
+        if (current == null || current.size == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        if (vector.length != current.dimension) {
+            throw new IllegalArgumentException(String.format("embedding dimension %d does not match %d",
+                    vector.length, current.dimension));
+        }
+        float[] query = HnswIndex.normalize(vector);
+        TopK topK;
+        if (current.size < parallelThreshold) {
+            topK = scan(current, query, 0, current.size, k);
+        } else {
+            int chunks = (current.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            topK = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> scan(current, query, chunk * CHUNK_SIZE,
+                            Math.min(current.size, (chunk + 1) * CHUNK_SIZE), k))
+                    .reduce(TopK::merge)
+                    .orElseGet(() -> new TopK(k));
+        }
+        return topK.toMatches(current.items);
+    }
+
+    private static TopK scan(Block block, float[] query, int from, int to, int k) {
+        TopK topK = new TopK(k);
+        float[] vectors = block.vectors;
+        int dimension = block.dimension;
+        long[] tombstones = block.tombstones;
+        boolean hasTombstones = block.removed > 0;
+        for (int row = from; row < to; row++) {
+            if (hasTombstones && (tombstones[row >>> 6] & (1L << row)) != 0) {
+                continue;
+            }
+            topK.offer(row, dot(vectors, row * dimension, query));
+        }
+        return topK;
+    }
+
+    /**
+     * four independent accumulators break the dependency chain of the sum, which lets the JIT
+     * pipeline and unroll the loop
+     */
+    static float dot(float[] vectors, int offset, float[] query) {
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int length = query.length;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            sum0 += vectors[offset + i] * query[i];
+            sum1 += vectors[offset + i + 1] * query[i + 1];
+            sum2 += vectors[offset + i + 2] * query[i + 2];
+            sum3 += vectors[offset + i + 3] * query[i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += vectors[offset + i] * query[i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    private static int tombstoneWords(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private static int grow(int capacity, int dimension) {
+        int maxRows = MAX_ARRAY_SIZE / dimension;
+        if (capacity >= maxRows) {
+            throw new IllegalStateException("flat vector index is full, rows:" + capacity);
+        }
+        return (int) Math.min(maxRows, capacity + (capacity >> 1) + 1L);
+    }
+
+    private static class Block {
+
+        private final float[] vectors;
+
+        private final Object[] items;
+
+        private final long[] tombstones;
+
+        private final int dimension;
+
+        private final int size;
+
+        private final int removed;
+
+        Block(float[] vectors, Object[] items, long[] tombstones, int dimension, int size, int removed) {
+            this.vectors = vectors;
+            this.items = items;
+            this.tombstones = tombstones;
+            this.dimension = dimension;
+            this.size = size;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * bounded min heap of row and score pairs, the root is the weakest of the best k rows
+     */
+    static class TopK {
+
+        private final int[] rows;
+
+        private final float[] scores;
+
+        private int size;
+
+        TopK(int k) {
+            this.rows = new int[k];
+            this.scores = new float[k];
+        }
+
+        void offer(int row, float score) {
+            if (size < rows.length) {
+                rows[size] = row;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                rows[0] = row;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.rows[i], other.scores[i]);
+            }
+            return this;
+        }
+
+        /**
+         * drain the heap into matches ordered by descending score
+         */
+        @SuppressWarnings("unchecked")
+        <T> List<Match<T>> toMatches(Object[] items) {
+            Match<T>[] matches = new Match[size];
+            while (size > 0) {
+                matches[size - 1] = new Match<>((T) items[rows[0]], scores[0]);
+                size--;
+                rows[0] = rows[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new ArrayList<>(Arrays.asList(matches));
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[parent] <= scores[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if (left < size && scores[left] < scores[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && scores[right] < scores[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(smallest, index);
+                index = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
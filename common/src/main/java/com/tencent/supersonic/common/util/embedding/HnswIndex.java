@@ -0,0 +1,340 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Hierarchical navigable small world graph over normalized vectors for approximate cosine
+ * nearest neighbour search. Items are added incrementally, searches run concurrently with each
+ * other and are excluded only while an item is being linked.
+ *
+ * @param <T> the item kept for every vector
+ */
+public class HnswIndex<T> {
+
+    private final int m;
+
+    private final int maxM0;
+
+    private final int efConstruction;
+
+    private final double levelMultiplier;
+
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Node<T>> nodes = new ArrayList<>();
+
+    private volatile int efSearch;
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(this.m);
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(float[] vector, T item) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            int id = nodes.size();
+            Node<T> node = new Node<>(normalized, item, level, m, maxM0);
+            nodes.add(node);
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > level; layer--) {
+                current = greedyClosest(normalized, current, layer);
+            }
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(normalized, current, efConstruction, layer, null);
+                List<Candidate> neighbours = selectNeighbours(candidates, m);
+                for (Candidate neighbour : neighbours) {
+                    node.link(layer, neighbour.id);
+                    link(neighbour.id, id, layer);
+                }
+                current = candidates.get(0).id;
+            }
+            if (level > maxLevel) {
+                entryPoint = id;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * find the approximate k most similar items, ordered by descending cosine similarity
+     */
+    public List<Match<T>> search(float[] vector, int k) {
+        return search(vector, k, null);
+    }
+
+    /**
+     * same as {@link #search(float[], int)} but only items passing the filter are returned,
+     * rejected items are still traversed so that they keep the graph connected
+     */
+    public List<Match<T>> search(float[] vector, int k, Predicate<T> filter) {
+        float[] normalized = normalize(vector);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return Collections.emptyList();
+            }
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                current = greedyClosest(normalized, current, layer);
+            }
+            List<Candidate> candidates = searchLayer(normalized, current, Math.max(efSearch, k), 0, filter);
+            List<Match<T>> matches = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && i < k; i++) {
+                Candidate candidate = candidates.get(i);
+                matches.add(new Match<>(nodes.get(candidate.id).item, 1 - candidate.distance));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        if (norm > 0) {
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] /= norm;
+            }
+        }
+        return normalized;
+    }
+
+    private double distance(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1 - dot;
+    }
+
+    private int greedyClosest(float[] vector, int start, int layer) {
+        int current = start;
+        double currentDistance = distance(vector, nodes.get(current).vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node<T> node = nodes.get(current);
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+                double neighbourDistance = distance(vector, nodes.get(neighbour).vector);
+                if (neighbourDistance < currentDistance) {
+                    current = neighbour;
+                    currentDistance = neighbourDistance;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * best first search of a layer, the result is ordered by ascending distance and only holds
+     * nodes accepted by the filter
+     */
+    private List<Candidate> searchLayer(float[] vector, int start, int ef, int layer, Predicate<T> filter) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+        Candidate first = new Candidate(start, distance(vector, nodes.get(start).vector));
+        visited.set(start);
+        candidates.add(first);
+        if (accept(start, filter)) {
+            results.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.distance > results.peek().distance) {
+                break;
+            }
+            Node<T> node = nodes.get(closest.id);
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbour = node.links[layer][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double neighbourDistance = distance(vector, nodes.get(neighbour).vector);
+                if (results.size() < ef || neighbourDistance < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, neighbourDistance);
+                    candidates.add(candidate);
+                    if (!accept(neighbour, filter)) {
+                        continue;
+                    }
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(c -> c.distance));
+        return ordered;
+    }
+
+    private boolean accept(int id, Predicate<T> filter) {
+        return filter == null || filter.test(nodes.get(id).item);
+    }
+
+    /**
+     * keep candidates closer to the base than to any selected neighbour, which spreads links in
+     * all directions, then fill up with the closest pruned ones
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            float[] vector = nodes.get(candidate.id).vector;
+            for (Candidate chosen : selected) {
+                if (distance(vector, nodes.get(chosen.id).vector) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private void link(int from, int to, int layer) {
+        Node<T> node = nodes.get(from);
+        if (node.link(layer, to)) {
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(node.linkCounts[layer] + 1);
+        for (int i = 0; i < node.linkCounts[layer]; i++) {
+            int neighbour = node.links[layer][i];
+            candidates.add(new Candidate(neighbour, distance(node.vector, nodes.get(neighbour).vector)));
+        }
+        candidates.add(new Candidate(to, distance(node.vector, nodes.get(to).vector)));
+        candidates.sort(Comparator.comparingDouble(c -> c.distance));
+        List<Candidate> selected = selectNeighbours(candidates, node.links[layer].length);
+        node.linkCounts[layer] = 0;
+        for (Candidate candidate : selected) {
+            node.link(layer, candidate.id);
+        }
+    }
+
+    public static class Match<T> {
+
+        private final T item;
+
+        private final double similarity;
+
+        Match(T item, double similarity) {
+            this.item = item;
+            this.similarity = similarity;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static class Node<T> {
+
+        private final float[] vector;
+
+        private final T item;
+
+        private final int[][] links;
+
+        private final int[] linkCounts;
+
+        Node(float[] vector, T item, int level, int m, int maxM0) {
+            this.vector = vector;
+            this.item = item;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? maxM0 : m];
+            }
+        }
+
+        /**
+         * @return false if the layer is full
+         */
+        boolean link(int layer, int id) {
+            if (linkCounts[layer] >= links[layer].length) {
+                return false;
+            }
+            links[layer][linkCounts[layer]++] = id;
+            return true;
+        }
+    }
+
+    private static class Candidate {
+
+        private final int id;
+
+        private final double distance;
+
+        Candidate(int id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+}
@@ -3,13 +3,10 @@ package com.tencent.supersonic.common.util.embedding;
 import static dev.langchain4j.internal.Utils.randomUUID;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
-import static java.util.Comparator.comparingDouble;
 
 import com.tencent.supersonic.common.config.EmbeddingConfig;
 import com.tencent.supersonic.common.util.ContextUtils;
 import dev.langchain4j.data.embedding.Embedding;
-import dev.langchain4j.model.embedding.EmbeddingModel;
-import dev.langchain4j.store.embedding.CosineSimilarity;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.RelevanceScore;
@@ -18,16 +15,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
@@ -40,20 +35,29 @@ import org.apache.commons.lang3.StringUtils;
 public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
 
     public static final String PERSISTENT_FILE_PRE = "InMemory.";
+    public static final String BINARY_FILE_SUFFIX = ".bin";
+    public static final String HNSW_INDEX = "hnsw";
     private static Map<String, InMemoryEmbeddingStore<EmbeddingQuery>> collectionNameToStore =
             new ConcurrentHashMap<>();
+    private static Map<String, Long> collectionNameToPersistedVersion = new ConcurrentHashMap<>();
 
     @Override
     public synchronized void addCollection(String collectionName) {
         InMemoryEmbeddingStore<EmbeddingQuery> embeddingStore = null;
         Path filePath = getPersistentPath(collectionName);
+        Path binaryFilePath = getBinaryPersistentPath(collectionName);
         try {
             EmbeddingConfig embeddingConfig = ContextUtils.getBean(EmbeddingConfig.class);
-            if (Files.exists(filePath) && !collectionName.equals(embeddingConfig.getMetaCollectionName())
+            if (!collectionName.equals(embeddingConfig.getMetaCollectionName())
                     && !collectionName.equals(embeddingConfig.getText2sqlCollectionName())) {
-                embeddingStore = InMemoryEmbeddingStore.fromFile(filePath);
-                embeddingStore.entries = new CopyOnWriteArraySet<>(embeddingStore.entries);
-                log.info("embeddingStore reload from file:{}", filePath);
+                if (Files.exists(binaryFilePath)) {
+                    embeddingStore = InMemoryEmbeddingStore.fromBinaryFile(binaryFilePath);
+                    collectionNameToPersistedVersion.put(collectionName, embeddingStore.getVersion());
+                    log.info("embeddingStore reload from file:{}", binaryFilePath);
+                } else if (Files.exists(filePath)) {
+                    embeddingStore = InMemoryEmbeddingStore.fromFile(filePath);
+                    log.info("embeddingStore reload from file:{}", filePath);
+                }
             }
         } catch (Exception e) {
             log.error("load persistentFile error, persistentFile:" + filePath, e);
@@ -61,6 +65,11 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
         if (Objects.isNull(embeddingStore)) {
             embeddingStore = new InMemoryEmbeddingStore();
         }
+        EmbeddingConfig embeddingConfig = ContextUtils.getBean(EmbeddingConfig.class);
+        if (HNSW_INDEX.equalsIgnoreCase(embeddingConfig.getEmbeddingStoreIndexType())) {
+            embeddingStore.enableHnswIndex(embeddingConfig.getHnswM(), embeddingConfig.getHnswEfConstruction(),
+                    embeddingConfig.getHnswEfSearch());
+        }
         collectionNameToStore.putIfAbsent(collectionName, embeddingStore);
     }
 
@@ -70,15 +79,31 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
         return Paths.get(embeddingConfig.getEmbeddingStorePersistentPath(), persistentFile);
     }
 
+    private Path getBinaryPersistentPath(String collectionName) {
+        Path filePath = getPersistentPath(collectionName);
+        return filePath.resolveSibling(filePath.getFileName() + BINARY_FILE_SUFFIX);
+    }
+
+    /**
+     * write the collections changed since the last flush in the binary format, a json file left
+     * by an earlier version is removed once its collection is written
+     */
     public void persistentToFile() {
         for (Entry<String, InMemoryEmbeddingStore<EmbeddingQuery>> entry : collectionNameToStore.entrySet()) {
-            Path filePath = getPersistentPath(entry.getKey());
+            String collectionName = entry.getKey();
+            InMemoryEmbeddingStore<EmbeddingQuery> embeddingStore = entry.getValue();
+            if (Objects.equals(collectionNameToPersistedVersion.get(collectionName), embeddingStore.getVersion())) {
+                continue;
+            }
+            Path filePath = getBinaryPersistentPath(collectionName);
             try {
                 Path directoryPath = filePath.getParent();
                 if (!Files.exists(directoryPath)) {
                     Files.createDirectories(directoryPath);
                 }
-                entry.getValue().serializeToFile(filePath);
+                long version = embeddingStore.serializeToBinaryFile(filePath);
+                collectionNameToPersistedVersion.put(collectionName, version);
+                Files.deleteIfExists(getPersistentPath(collectionName));
             } catch (Exception e) {
                 log.error("persistentToFile error, persistentFile:" + filePath, e);
             }
@@ -88,11 +113,12 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
     @Override
     public void addQuery(String collectionName, List<EmbeddingQuery> queries) {
         InMemoryEmbeddingStore<EmbeddingQuery> embeddingStore = getEmbeddingStore(collectionName);
-        EmbeddingModel embeddingModel = ContextUtils.getBean(EmbeddingModel.class);
-        for (EmbeddingQuery query : queries) {
-            String question = query.getQuery();
-            Embedding embedding = embeddingModel.embed(question).content();
-            embeddingStore.add(query.getQueryId(), embedding, query);
+        EmbeddingCache embeddingCache = ContextUtils.getBean(EmbeddingCache.class);
+        List<Embedding> embeddings = embeddingCache.embedAll(queries.stream()
+                .map(EmbeddingQuery::getQuery).collect(Collectors.toList()));
+        for (int i = 0; i < queries.size(); i++) {
+            EmbeddingQuery query = queries.get(i);
+            embeddingStore.add(query.getQueryId(), embeddings.get(i), query);
         }
     }
 
@@ -109,20 +135,23 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
 
     @Override
     public void deleteQuery(String collectionName, List<EmbeddingQuery> queries) {
-        //not support in InMemoryEmbeddingStore
+        InMemoryEmbeddingStore<EmbeddingQuery> embeddingStore = getEmbeddingStore(collectionName);
+        embeddingStore.removeAll(queries.stream().map(EmbeddingQuery::getQueryId).collect(Collectors.toList()));
     }
 
     @Override
     public List<RetrieveQueryResult> retrieveQuery(String collectionName, RetrieveQuery retrieveQuery, int num) {
         InMemoryEmbeddingStore<EmbeddingQuery> embeddingStore = getEmbeddingStore(collectionName);
-        EmbeddingModel embeddingModel = ContextUtils.getBean(EmbeddingModel.class);
+        EmbeddingCache embeddingCache = ContextUtils.getBean(EmbeddingCache.class);
 
         List<RetrieveQueryResult> results = new ArrayList<>();
 
         List<String> queryTextsList = retrieveQuery.getQueryTextsList();
         Map<String, String> filterCondition = retrieveQuery.getFilterCondition();
-        for (String queryText : queryTextsList) {
-            Embedding embeddedText = embeddingModel.embed(queryText).content();
+        List<Embedding> embeddedTexts = embeddingCache.embedAll(queryTextsList);
+        for (int i = 0; i < queryTextsList.size(); i++) {
+            String queryText = queryTextsList.get(i);
+            Embedding embeddedText = embeddedTexts.get(i);
             int maxResults = getMaxResults(num, filterCondition);
             List<EmbeddingMatch<EmbeddingQuery>> relevant = embeddingStore.findRelevant(embeddedText, maxResults);
 
@@ -176,7 +205,8 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
     /**
      * An {@link EmbeddingStore} that stores embeddings in memory.
      * <p>
-     * Uses a brute force approach by iterating over all embeddings to find the best matches.
+     * Uses a brute force scan over the vectors packed in a {@link FlatVectorIndex} to find the best
+     * matches, unless an approximate HNSW index is enabled.
      *
      * @param <Embedded> The class of the object that has been embedded.
      *         Typically, it is {@link dev.langchain4j.data.segment.TextSegment}.
@@ -190,6 +220,7 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
             String id;
             Embedding embedding;
             Embedded embedded;
+            transient volatile boolean deleted;
 
             Entry(String id, Embedding embedding, Embedded embedded) {
                 this.id = id;
@@ -218,7 +249,28 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
         }
 
         private static final InMemoryEmbeddingStoreJsonCodec CODEC = loadCodec();
-        private Set<Entry<Embedded>> entries = new CopyOnWriteArraySet<>();
+        /**
+         * insertion ordered and persisted, guarded by this. Deleted entries stay as tombstones
+         * until the store is compacted.
+         */
+        private List<Entry<Embedded>> entries = new ArrayList<>();
+        private transient Map<String, Entry<Embedded>> idToEntry = new ConcurrentHashMap<>();
+        private transient int tombstones;
+        private transient volatile FlatVectorIndex<Entry<Embedded>> flatIndex = new FlatVectorIndex<>();
+        private transient volatile HnswIndex<Entry<Embedded>> hnswIndex;
+        private transient int[] hnswParams;
+        /**
+         * count of modifications, guarded by this
+         */
+        private transient long version;
+
+        /**
+         * index the current and all later entries in an HNSW graph, which then serves findRelevant
+         */
+        public synchronized void enableHnswIndex(int m, int efConstruction, int efSearch) {
+            hnswParams = new int[]{m, efConstruction, efSearch};
+            hnswIndex = buildHnswIndex();
+        }
 
         @Override
         public String add(Embedding embedding) {
@@ -239,8 +291,117 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
             return id;
         }
 
+        /**
+         * add the entry or replace the entry with the same id
+         */
         public void add(String id, Embedding embedding, Embedded embedded) {
-            entries.add(new InMemoryEmbeddingStore.Entry<>(id, embedding, embedded));
+            Entry<Embedded> entry = new InMemoryEmbeddingStore.Entry<>(id, embedding, embedded);
+            synchronized (this) {
+                Entry<Embedded> previous = idToEntry.get(id);
+                if (entry.equals(previous)) {
+                    return;
+                }
+                if (previous != null) {
+                    markDeleted(previous);
+                }
+                entries.add(entry);
+                idToEntry.put(id, entry);
+                version++;
+                flatIndex.add(embedding.vector(), entry);
+                if (hnswIndex != null) {
+                    hnswIndex.add(embedding.vector(), entry);
+                }
+                compactIfNecessary();
+            }
+        }
+
+        public boolean remove(String id) {
+            return removeAll(Collections.singletonList(id)) > 0;
+        }
+
+        /**
+         * @return the number of removed entries
+         */
+        public synchronized int removeAll(Collection<String> ids) {
+            int removed = 0;
+            for (String id : ids) {
+                Entry<Embedded> entry = id == null ? null : idToEntry.remove(id);
+                if (entry != null) {
+                    markDeleted(entry);
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                version++;
+                compactIfNecessary();
+            }
+            return removed;
+        }
+
+        public int size() {
+            return idToEntry.size();
+        }
+
+        /**
+         * drop the tombstones and rebuild the indexes from the live entries
+         */
+        public synchronized void compact() {
+            entries.removeIf(entry -> entry.deleted);
+            tombstones = 0;
+            FlatVectorIndex<Entry<Embedded>> index = new FlatVectorIndex<>();
+            for (Entry<Embedded> entry : entries) {
+                index.add(entry.embedding.vector(), entry);
+            }
+            flatIndex = index;
+            if (hnswParams != null) {
+                hnswIndex = buildHnswIndex();
+            }
+        }
+
+        private void markDeleted(Entry<Embedded> entry) {
+            entry.deleted = true;
+            tombstones++;
+            flatIndex.remove(entry);
+        }
+
+        /**
+         * compact once tombstones outnumber live entries, which keeps the amortized cost of a
+         * delete constant and the scan within twice the live size
+         */
+        private void compactIfNecessary() {
+            if (tombstones > entries.size() - tombstones) {
+                compact();
+            }
+        }
+
+        private HnswIndex<Entry<Embedded>> buildHnswIndex() {
+            HnswIndex<Entry<Embedded>> index = new HnswIndex<>(hnswParams[0], hnswParams[1], hnswParams[2]);
+            for (Entry<Embedded> entry : entries) {
+                if (!entry.deleted) {
+                    index.add(entry.embedding.vector(), entry);
+                }
+            }
+            return index;
+        }
+
+        private synchronized List<Entry<Embedded>> liveEntries() {
+            return entries.stream().filter(entry -> !entry.deleted).collect(Collectors.toList());
+        }
+
+        /**
+         * rebuild the transient indexes after the entries are deserialized
+         */
+        private synchronized void reindex() {
+            List<Entry<Embedded>> loaded = entries == null ? Collections.emptyList() : entries;
+            entries = new ArrayList<>();
+            idToEntry = new ConcurrentHashMap<>();
+            tombstones = 0;
+            flatIndex = new FlatVectorIndex<>();
+            hnswIndex = null;
+            hnswParams = null;
+            for (Entry<Embedded> entry : loaded) {
+                add(entry.id, entry.embedding, entry.embedded);
+            }
         }
 
         @Override
@@ -269,23 +430,18 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
         public List<EmbeddingMatch<Embedded>> findRelevant(Embedding referenceEmbedding, int maxResults,
                 double minScore) {
 
-            Comparator<EmbeddingMatch<Embedded>> comparator = comparingDouble(EmbeddingMatch::score);
-            PriorityQueue<EmbeddingMatch<Embedded>> matches = new PriorityQueue<>(comparator);
-
-            for (InMemoryEmbeddingStore.Entry<Embedded> entry : entries) {
-                double cosineSimilarity = CosineSimilarity.between(entry.embedding, referenceEmbedding);
-                double score = RelevanceScore.fromCosineSimilarity(cosineSimilarity);
+            HnswIndex<Entry<Embedded>> index = hnswIndex;
+            List<HnswIndex.Match<Entry<Embedded>>> matches = index != null
+                    ? index.search(referenceEmbedding.vector(), maxResults, entry -> !entry.deleted)
+                    : flatIndex.search(referenceEmbedding.vector(), maxResults);
+            List<EmbeddingMatch<Embedded>> result = new ArrayList<>(matches.size());
+            for (HnswIndex.Match<Entry<Embedded>> match : matches) {
+                double score = RelevanceScore.fromCosineSimilarity(match.getSimilarity());
+                Entry<Embedded> entry = match.getItem();
                 if (score >= minScore) {
-                    matches.add(new EmbeddingMatch<>(score, entry.id, entry.embedding, entry.embedded));
-                    if (matches.size() > maxResults) {
-                        matches.poll();
-                    }
+                    result.add(new EmbeddingMatch<>(score, entry.id, entry.embedding, entry.embedded));
                 }
             }
-
-            List<EmbeddingMatch<Embedded>> result = new ArrayList<>(matches);
-            result.sort(comparator);
-            Collections.reverse(result);
             return result;
         }
 
@@ -298,15 +454,18 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
                 return false;
             }
             InMemoryEmbeddingStore<?> that = (InMemoryEmbeddingStore<?>) o;
-            return Objects.equals(this.entries, that.entries);
+            return Objects.equals(this.liveEntries(), that.liveEntries());
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(entries);
+            return Objects.hash(liveEntries());
         }
 
-        public String serializeToJson() {
+        public synchronized String serializeToJson() {
+            if (tombstones > 0) {
+                compact();
+            }
             return CODEC.toJson(this);
         }
 
@@ -323,13 +482,43 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
             serializeToFile(Paths.get(filePath));
         }
 
+        public synchronized long getVersion() {
+            return version;
+        }
+
+        /**
+         * write a snapshot of the entries in the binary format
+         *
+         * @return the version of the snapshot
+         */
+        public long serializeToBinaryFile(Path filePath) throws IOException {
+            List<Entry<Embedded>> snapshot;
+            long snapshotVersion;
+            synchronized (this) {
+                snapshot = liveEntries();
+                snapshotVersion = version;
+            }
+            List<String> ids = new ArrayList<>(snapshot.size());
+            List<Embedding> embeddings = new ArrayList<>(snapshot.size());
+            List<Embedded> embedded = new ArrayList<>(snapshot.size());
+            for (Entry<Embedded> entry : snapshot) {
+                ids.add(entry.id);
+                embeddings.add(entry.embedding);
+                embedded.add(entry.embedded);
+            }
+            EmbeddingStoreBinaryFile.write(filePath, ids, embeddings, embedded);
+            return snapshotVersion;
+        }
+
         private static InMemoryEmbeddingStoreJsonCodec loadCodec() {
             // fallback to default
             return new GsonInMemoryEmbeddingStoreJsonCodec();
         }
 
         public static InMemoryEmbeddingStore<EmbeddingQuery> fromJson(String json) {
-            return CODEC.fromJson(json);
+            InMemoryEmbeddingStore<EmbeddingQuery> store = CODEC.fromJson(json);
+            store.reindex();
+            return store;
         }
 
         public static InMemoryEmbeddingStore<EmbeddingQuery> fromFile(Path filePath) {
@@ -344,6 +533,10 @@ public class InMemoryS2EmbeddingStore implements S2EmbeddingStore {
         public static InMemoryEmbeddingStore<EmbeddingQuery> fromFile(String filePath) {
             return fromFile(Paths.get(filePath));
         }
+
+        public static InMemoryEmbeddingStore<EmbeddingQuery> fromBinaryFile(Path filePath) throws IOException {
+            return EmbeddingStoreBinaryFile.read(filePath);
+        }
     }
 
 }
@@ -0,0 +1,107 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.tencent.supersonic.common.config.EmbeddingConfig;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class EmbeddingCacheTest {
+
+    @Test
+    void testBatchMisses() {
+        EmbeddingCache embeddingCache = buildCache(2);
+        RecordingModel model = new RecordingModel(1);
+        embeddingCache.embedAll(model, "model", Arrays.asList("a", "b"));
+        model.batches.clear();
+
+        List<Embedding> embeddings = embeddingCache.embedAll(model, "model",
+                Arrays.asList("a", "c", "d", "c", "b", "e"));
+        Assertions.assertEquals(Arrays.asList(Arrays.asList("c", "d"), Arrays.asList("e")), model.batches);
+        Assertions.assertEquals(Arrays.asList("a", "c", "d", "c", "b", "e"), texts(model, embeddings));
+    }
+
+    @Test
+    void testSeparateModels() {
+        EmbeddingCache embeddingCache = buildCache(32);
+        RecordingModel first = new RecordingModel(1);
+        RecordingModel second = new RecordingModel(2);
+        Embedding firstEmbedding = embeddingCache.embedAll(first, "first", Arrays.asList("a")).get(0);
+        Embedding secondEmbedding = embeddingCache.embedAll(second, "second", Arrays.asList("a")).get(0);
+        Assertions.assertEquals(1, second.batches.size());
+        Assertions.assertNotEquals(firstEmbedding, secondEmbedding);
+        Assertions.assertEquals(firstEmbedding, embeddingCache.embedAll(first, "first", Arrays.asList("a")).get(0));
+        Assertions.assertEquals(1, first.batches.size());
+    }
+
+    @Test
+    void testModelName() {
+        MockEnvironment openAi = new MockEnvironment()
+                .withProperty("langchain4j.embedding-model.provider", "open_ai")
+                .withProperty("langchain4j.embedding-model.open-ai.api-key", "sk")
+                .withProperty("langchain4j.embedding-model.open-ai.model-name", "text-embedding-ada-002")
+                .withProperty("langchain4j.embedding-model.open-ai.base-url", "http://localhost");
+        Assertions.assertEquals("open-ai.base-url=http://localhost,open-ai.model-name=text-embedding-ada-002,"
+                + "provider=open_ai", EmbeddingCache.getModelName(openAi));
+        MockEnvironment huggingFace = new MockEnvironment()
+                .withProperty("langchain4j.embedding-model.provider", "hugging_face")
+                .withProperty("langchain4j.embedding-model.hugging-face.modelId", "all-MiniLM-L6-v2");
+        Assertions.assertEquals("hugging-face.modelId=all-MiniLM-L6-v2,provider=hugging_face",
+                EmbeddingCache.getModelName(huggingFace));
+        Assertions.assertEquals("", EmbeddingCache.getModelName(new MockEnvironment()));
+    }
+
+    private EmbeddingCache buildCache(int batchSize) {
+        EmbeddingConfig embeddingConfig = new EmbeddingConfig();
+        embeddingConfig.setEmbeddingBatchSize(batchSize);
+        embeddingConfig.setEmbeddingCacheSize(100);
+        EmbeddingCache embeddingCache = new EmbeddingCache();
+        ReflectionTestUtils.setField(embeddingCache, "embeddingConfig", embeddingConfig);
+        ReflectionTestUtils.setField(embeddingCache, "environment", new MockEnvironment());
+        embeddingCache.init();
+        return embeddingCache;
+    }
+
+    private List<String> texts(RecordingModel model, List<Embedding> embeddings) {
+        return embeddings.stream().map(model::text).collect(Collectors.toList());
+    }
+
+    /**
+     * embeds a text to its index in the texts seen so far, offset by the model
+     */
+    private static class RecordingModel implements EmbeddingModel {
+
+        private final float offset;
+        private final List<String> seen = new ArrayList<>();
+        private final List<List<String>> batches = new ArrayList<>();
+
+        RecordingModel(float offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            List<String> batch = segments.stream().map(TextSegment::text).collect(Collectors.toList());
+            batches.add(batch);
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : batch) {
+                seen.add(text);
+                embeddings.add(Embedding.from(new float[] {offset, seen.size() - 1}));
+            }
+            return Response.from(embeddings);
+        }
+
+        String text(Embedding embedding) {
+            return seen.get((int) embedding.vector()[1]);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.tencent.supersonic.common.util.embedding.InMemoryS2EmbeddingStore.InMemoryEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * retrieval latency of the brute force scan and the HNSW index of the in-memory embedding store,
+ * the main method prints recall@k of the index before running the benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingIndexBenchmark {
+
+    private static final int DIMENSION = 512;
+
+    private static final int K = 10;
+
+    @Param({"20000"})
+    private int size;
+
+    private InMemoryEmbeddingStore<String> flat;
+
+    private InMemoryEmbeddingStore<String> hnsw;
+
+    private Embedding[] queries;
+
+    private int next;
+
+    public static void main(String[] args) throws Exception {
+        EmbeddingIndexBenchmark benchmark = new EmbeddingIndexBenchmark();
+        benchmark.size = 20000;
+        benchmark.setup();
+        System.out.printf("recall@%d: %.4f%n", K, benchmark.recall());
+        new Runner(new OptionsBuilder().include(EmbeddingIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        flat = new InMemoryEmbeddingStore<>();
+        hnsw = new InMemoryEmbeddingStore<>();
+        hnsw.enableHnswIndex(16, 200, 100);
+        // clustered vectors resemble text embeddings better than uniform noise
+        float[][] centers = new float[64][];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = gaussian(random, 1);
+        }
+        for (int i = 0; i < size; i++) {
+            Embedding embedding = Embedding.from(near(random, centers[random.nextInt(centers.length)]));
+            flat.add(String.valueOf(i), embedding, String.valueOf(i));
+            hnsw.add(String.valueOf(i), embedding, String.valueOf(i));
+        }
+        queries = new Embedding[100];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = Embedding.from(near(random, centers[random.nextInt(centers.length)]));
+        }
+    }
+
+    @Benchmark
+    public List<EmbeddingMatch<String>> bruteForce() {
+        return flat.findRelevant(nextQuery(), K);
+    }
+
+    @Benchmark
+    public List<EmbeddingMatch<String>> hnswIndex() {
+        return hnsw.findRelevant(nextQuery(), K);
+    }
+
+    private double recall() {
+        long hits = 0;
+        for (Embedding query : queries) {
+            Set<String> expected = flat.findRelevant(query, K).stream()
+                    .map(EmbeddingMatch::embeddingId).collect(Collectors.toSet());
+            hits += hnsw.findRelevant(query, K).stream()
+                    .filter(match -> expected.contains(match.embeddingId())).count();
+        }
+        return hits / (double) (queries.length * K);
+    }
+
+    private Embedding nextQuery() {
+        next = (next + 1) % queries.length;
+        return queries[next];
+    }
+
+    private float[] near(Random random, float[] center) {
+        float[] noise = gaussian(random, 0.5);
+        for (int i = 0; i < DIMENSION; i++) {
+            noise[i] += center[i];
+        }
+        return noise;
+    }
+
+    private float[] gaussian(Random random, double scale) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) (random.nextGaussian() * scale);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import com.tencent.supersonic.common.util.embedding.InMemoryS2EmbeddingStore.InMemoryEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+class EmbeddingStoreBinaryFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws Exception {
+        Random random = new Random(13);
+        InMemoryEmbeddingStore<EmbeddingQuery> store = new InMemoryEmbeddingStore<>();
+        for (int i = 0; i < 3000; i++) {
+            EmbeddingQuery query = new EmbeddingQuery();
+            query.setQueryId(String.valueOf(i));
+            query.setQuery("query " + i);
+            query.setMetadata(Collections.singletonMap("modelId", String.valueOf(i % 7)));
+            store.add(String.valueOf(i), Embedding.from(HnswIndexTest.randomVector(random)), i % 2 == 0 ? query : null);
+        }
+        Path file = directory.resolve("InMemory.test.bin");
+        Assertions.assertEquals(3000, store.serializeToBinaryFile(file));
+
+        InMemoryEmbeddingStore<EmbeddingQuery> loaded = InMemoryEmbeddingStore.fromBinaryFile(file);
+        Assertions.assertEquals(store, loaded);
+        Assertions.assertEquals(store.getVersion(), loaded.getVersion());
+
+        store.add("new", Embedding.from(HnswIndexTest.randomVector(random)), null);
+        store.serializeToBinaryFile(file);
+        Assertions.assertEquals(store, InMemoryEmbeddingStore.fromBinaryFile(file));
+        Assertions.assertFalse(Files.exists(directory.resolve("InMemory.test.bin.tmp")));
+    }
+
+    @Test
+    void testEmptyStore() throws Exception {
+        Path file = directory.resolve("InMemory.empty.bin");
+        new InMemoryEmbeddingStore<EmbeddingQuery>().serializeToBinaryFile(file);
+        Assertions.assertEquals(0, InMemoryEmbeddingStore.fromBinaryFile(file).getVersion());
+    }
+}
@@ -0,0 +1,113 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class FlatVectorIndexTest {
+
+    @Test
+    void testExactTopK() {
+        Random random = new Random(3);
+        float[][] vectors = new float[5000][];
+        FlatVectorIndex<Integer> sequential = new FlatVectorIndex<>();
+        FlatVectorIndex<Integer> parallel = new FlatVectorIndex<>(1000);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = HnswIndexTest.randomVector(random);
+            sequential.add(vectors[i], i);
+            parallel.add(vectors[i], i);
+        }
+        for (int q = 0; q < 20; q++) {
+            Embedding query = Embedding.from(HnswIndexTest.randomVector(random));
+            List<Integer> expected = IntStream.range(0, vectors.length).boxed()
+                    .sorted(Comparator.comparingDouble(
+                            (Integer i) -> CosineSimilarity.between(Embedding.from(vectors[i]), query)).reversed())
+                    .limit(10)
+                    .collect(Collectors.toList());
+            Assertions.assertEquals(expected, items(sequential.search(query.vector(), 10)));
+            Assertions.assertEquals(expected, items(parallel.search(query.vector(), 10)));
+        }
+    }
+
+    @Test
+    void testStoreRoundTrip() {
+        Random random = new Random(5);
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<EmbeddingQuery> store = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        float[] target = HnswIndexTest.randomVector(random);
+        EmbeddingQuery query = new EmbeddingQuery();
+        query.setQueryId("target");
+        query.setQuery("target");
+        store.add("target", Embedding.from(target), query);
+        store.add("target", Embedding.from(target), query);
+        for (int i = 0; i < 100; i++) {
+            store.add(String.valueOf(i), Embedding.from(HnswIndexTest.randomVector(random)), null);
+        }
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<EmbeddingQuery> loaded = InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore.fromJson(store.serializeToJson());
+        Assertions.assertEquals(store, loaded);
+        Assertions.assertEquals(2, loaded.findRelevant(Embedding.from(target), 2).size());
+        Assertions.assertEquals("target", loaded.findRelevant(Embedding.from(target), 1).get(0).embeddingId());
+    }
+
+    @Test
+    void testRemove() {
+        Random random = new Random(9);
+        FlatVectorIndex<String> index = new FlatVectorIndex<>();
+        float[] target = HnswIndexTest.randomVector(random);
+        index.add(target, "target");
+        for (int i = 0; i < 200; i++) {
+            index.add(HnswIndexTest.randomVector(random), String.valueOf(i));
+        }
+        Assertions.assertEquals("target", index.search(target, 1).get(0).getItem());
+        Assertions.assertTrue(index.remove("target"));
+        Assertions.assertFalse(index.remove("target"));
+        Assertions.assertEquals(200, index.size());
+        Assertions.assertNotEquals("target", index.search(target, 1).get(0).getItem());
+    }
+
+    @Test
+    void testStoreUpsertAndDelete() {
+        Random random = new Random(17);
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> flat = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> hnsw = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        hnsw.enableHnswIndex(8, 50, 50);
+        float[][] vectors = new float[100][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = HnswIndexTest.randomVector(random);
+        }
+        for (InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> store : Arrays.asList(flat, hnsw)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < vectors.length; i++) {
+                    store.add(String.valueOf(i), Embedding.from(vectors[i]), "v" + round);
+                }
+            }
+            Assertions.assertEquals(vectors.length, store.size());
+            Assertions.assertEquals("v2", store.findRelevant(Embedding.from(vectors[0]), 1).get(0).embedded());
+
+            Assertions.assertEquals(50, store.removeAll(IntStream.range(0, 50).mapToObj(String::valueOf)
+                    .collect(Collectors.toList())));
+            Assertions.assertEquals(50, store.size());
+            for (int i = 0; i < 50; i++) {
+                Assertions.assertNotEquals(String.valueOf(i),
+                        store.findRelevant(Embedding.from(vectors[i]), 1).get(0).embeddingId());
+            }
+            Assertions.assertEquals(String.valueOf(70), store.findRelevant(Embedding.from(vectors[70]), 1)
+                    .get(0).embeddingId());
+        }
+    }
+
+    private List<Integer> items(List<HnswIndex.Match<Integer>> matches) {
+        return matches.stream().map(HnswIndex.Match::getItem).collect(Collectors.toList());
+    }
+}
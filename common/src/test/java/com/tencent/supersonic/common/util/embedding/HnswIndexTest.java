@@ -0,0 +1,67 @@
+package com.tencent.supersonic.common.util.embedding;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void testRecall() {
+        Random random = new Random(7);
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> flat = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> hnsw = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        hnsw.enableHnswIndex(16, 200, 100);
+        for (int i = 0; i < 2000; i++) {
+            Embedding embedding = Embedding.from(randomVector(random));
+            flat.add(String.valueOf(i), embedding, String.valueOf(i));
+            hnsw.add(String.valueOf(i), embedding, String.valueOf(i));
+        }
+        int hits = 0;
+        int queries = 50;
+        int k = 10;
+        for (int i = 0; i < queries; i++) {
+            Embedding query = Embedding.from(randomVector(random));
+            Set<String> expected = flat.findRelevant(query, k).stream()
+                    .map(EmbeddingMatch::embeddingId).collect(Collectors.toSet());
+            List<EmbeddingMatch<String>> actual = hnsw.findRelevant(query, k);
+            Assertions.assertEquals(k, actual.size());
+            hits += actual.stream().filter(match -> expected.contains(match.embeddingId())).count();
+        }
+        Assertions.assertTrue(hits >= queries * k * 0.9, "recall@10 " + hits / (double) (queries * k));
+    }
+
+    @Test
+    void testEnableOnExistingEntries() {
+        Random random = new Random(11);
+        InMemoryS2EmbeddingStore.InMemoryEmbeddingStore<String> store = new InMemoryS2EmbeddingStore
+                .InMemoryEmbeddingStore<>();
+        float[] target = randomVector(random);
+        store.add("target", Embedding.from(target), "target");
+        for (int i = 0; i < 100; i++) {
+            store.add(String.valueOf(i), Embedding.from(randomVector(random)), String.valueOf(i));
+        }
+        store.enableHnswIndex(8, 50, 50);
+        List<EmbeddingMatch<String>> matches = store.findRelevant(Embedding.from(target), 1);
+        Assertions.assertEquals("target", matches.get(0).embeddingId());
+        Assertions.assertEquals(1.0, matches.get(0).score(), 1e-6);
+    }
+
+    static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -29,6 +29,8 @@ public class ModelDetail {
 
     private List<SqlVariable> sqlVariables = Lists.newArrayList();
 
+    private List<ModelMaterialization> materializations = Lists.newArrayList();
+
     public String getSqlQuery() {
         if (StringUtils.isNotBlank(sqlQuery) && sqlQuery.endsWith(";")) {
             sqlQuery = sqlQuery.substring(0, sqlQuery.length() - 1);
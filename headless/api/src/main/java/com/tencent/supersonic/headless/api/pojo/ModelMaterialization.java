@@ -0,0 +1,43 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import com.google.common.collect.Lists;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A pre-aggregated table of a model. The table has the columns of the listed dimensions and
+ * measures of the model, the measures aggregated by the listed dimensions, for the dates from
+ * startDate to endDate.
+ */
+@Data
+public class ModelMaterialization {
+
+    private String destinationTable;
+
+    /**
+     * biz names of the dimensions and identifiers the table is grouped by
+     */
+    private List<String> dimensions = Lists.newArrayList();
+
+    /**
+     * biz names of the measures, only sum, max and min measures can be rolled up
+     */
+    private List<String> measures = Lists.newArrayList();
+
+    /**
+     * first date in the table, null if the table has no lower bound
+     */
+    private String startDate;
+
+    /**
+     * last date in the table, null if the table has no upper bound
+     */
+    private String endDate;
+
+    /**
+     * estimated number of rows, the smallest covering table is queried
+     */
+    private Long rowCount;
+
+}
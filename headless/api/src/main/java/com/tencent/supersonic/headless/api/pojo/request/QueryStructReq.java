@@ -174,6 +174,8 @@ public class QueryStructReq extends SemanticQueryReq {
         result.setDataSetId(this.getDataSetId());
         result.setModelIds(this.getModelIdSet());
         result.setParams(new ArrayList<>());
+        result.setCursorPageSize(this.getCursorPageSize());
+        result.setContinuationToken(this.getContinuationToken());
         return result;
     }
 
@@ -29,6 +29,13 @@ public abstract class SemanticQueryReq {
 
     protected Cache cacheInfo = new Cache();
 
+    /**
+     * page size of a server-side cursor, the query is read page by page when set
+     */
+    protected Integer cursorPageSize;
+
+    protected String continuationToken;
+
     public void addModelId(Long modelId) {
         modelIds.add(modelId);
     }
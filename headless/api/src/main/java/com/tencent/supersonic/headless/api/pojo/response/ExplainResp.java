@@ -17,4 +17,9 @@ public class ExplainResp implements Serializable {
 
     private String sql;
 
+    /**
+     * the pre-aggregated table the query reads instead of its model, null if it reads the model
+     */
+    private String materialization;
+
 }
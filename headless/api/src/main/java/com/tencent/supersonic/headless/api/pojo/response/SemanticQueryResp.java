@@ -19,6 +19,14 @@ public class SemanticQueryResp extends QueryResult<Map<String, Object>> {
     List<QueryColumn> columns = Lists.newArrayList();
     String sql;
     QueryAuthorization queryAuthorization;
+    /**
+     * the result hit the row or byte budget and the remaining rows were not read
+     */
+    boolean truncated;
+    /**
+     * pass back in the request to fetch the next page of a server-side cursor, null when exhausted
+     */
+    String continuationToken;
 
     public List<QueryColumn> getMetricColumns() {
         return columns.stream()
@@ -20,5 +20,28 @@ public class CacheCommonConfig {
     @Value("${cache.common.expire.after.write:10}")
     private Integer cacheCommonExpireAfterWrite;
 
+    /**
+     * keep serialized results on local disk as a second tier, they survive a restart
+     */
+    @Value("${cache.common.disk.enable:false}")
+    private Boolean cacheCommonDiskEnable;
+
+    @Value("${cache.common.disk.path:./cache}")
+    private String cacheCommonDiskPath;
+
+    @Value("${cache.common.disk.max.size.mb:1024}")
+    private Long cacheCommonDiskMaxSizeMb;
+
+    /**
+     * disk hits after which a result is promoted back to the heap tier
+     */
+    @Value("${cache.common.disk.promote.hits:2}")
+    private Integer cacheCommonDiskPromoteHits;
+
+    /**
+     * results larger than this only go to the disk tier
+     */
+    @Value("${cache.common.heap.max.entry.kb:1024}")
+    private Integer cacheCommonHeapMaxEntryKb;
 
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.tencent.supersonic.headless.core.cache;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public interface CacheManager {
 
@@ -11,4 +14,19 @@ public interface CacheManager {
 
     Boolean removeCache(String key);
 
+    /**
+     * remove the entries whose prefix, as passed to generateCacheKey, matches the filter
+     */
+    Boolean removeCacheByPrefix(Predicate<String> prefixFilter);
+
+    /**
+     * the model versions saved with the entries that outlive the process, empty if none do
+     */
+    default Map<Long, Long> loadVersions() {
+        return Collections.emptyMap();
+    }
+
+    default void saveVersions(Map<Long, Long> versions) {
+    }
+
 }
@@ -20,12 +20,16 @@ public class CaffeineCacheConfig {
     @Value("${caffeine.max.size:5000}")
     private Integer caffeineMaximumSize;
 
+    @Value("${caffeine.max.weight.mb:256}")
+    private Long caffeineMaximumWeightMb;
+
     @Bean(name = "caffeineCache")
     public Cache<String, Object> caffeineCache() {
         return Caffeine.newBuilder()
                 .expireAfterWrite(cacheCommonConfig.getCacheCommonExpireAfterWrite(), TimeUnit.MINUTES)
                 .initialCapacity(caffeineInitialCapacity)
-                .maximumSize(caffeineMaximumSize)
+                .maximumWeight(caffeineMaximumWeightMb * 1024)
+                .weigher(new ResultWeigher())
                 .build();
     }
 
@@ -3,6 +3,7 @@ package com.tencent.supersonic.headless.core.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.google.common.base.Joiner;
+import java.util.function.Predicate;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,4 +49,18 @@ public class CaffeineCacheManager implements CacheManager {
         caffeineCache.asMap().remove(key);
         return true;
     }
+
+    @Override
+    public Boolean removeCacheByPrefix(Predicate<String> prefixFilter) {
+        caffeineCache.asMap().keySet().removeIf(key -> prefixFilter.test(getPrefix(key)));
+        return true;
+    }
+
+    /**
+     * the prefix part of a key built by generateCacheKey
+     */
+    static String getPrefix(String key) {
+        String[] parts = key.split(":", 5);
+        return parts.length == 5 ? parts[3] : null;
+    }
 }
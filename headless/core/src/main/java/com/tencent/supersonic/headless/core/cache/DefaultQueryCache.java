@@ -2,24 +2,54 @@ package com.tencent.supersonic.headless.core.cache;
 
 
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Cache keys carry the version of the queried models, a model change bumps its version so the
+ * stale results are never read again and age out of the cache. The versions are saved with the
+ * disk tier, so its entries are still found after a restart.
+ */
 @Component
 @Slf4j
 public class DefaultQueryCache implements QueryCache {
 
+    /**
+     * version of the queries whose models are not known before planning, bumped on any change
+     */
+    private static final Long UNKNOWN_MODEL = -1L;
+
+    private static final String UNKNOWN_PREFIX = "-1";
+
     @Value("${query.cache.enable:true}")
     private Boolean cacheEnable;
     @Autowired
     private CacheManager cacheManager;
 
+    private final Map<String, CompletableFuture<Object>> loadings = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicLong> modelVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cacheManager.loadVersions().forEach((modelId, version) -> modelVersions.put(modelId, new AtomicLong(version)));
+    }
+
     public Object query(SemanticQueryReq semanticQueryReq, String cacheKey) {
         if (isCache(semanticQueryReq)) {
             Object result = cacheManager.get(cacheKey);
@@ -29,13 +59,45 @@ public class DefaultQueryCache implements QueryCache {
         return null;
     }
 
+    public Object load(SemanticQueryReq semanticQueryReq, String cacheKey, Callable<Object> loader)
+            throws Exception {
+        Object result = query(semanticQueryReq, cacheKey);
+        if (Objects.nonNull(result)) {
+            return result;
+        }
+        if (!isCache(semanticQueryReq)) {
+            // a request that skips the cache asks for a fresh result, so it never waits for a running query
+            result = loader.call();
+            put(cacheKey, result);
+            return result;
+        }
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> running = loadings.putIfAbsent(cacheKey, loading);
+        if (Objects.nonNull(running)) {
+            log.info("wait for the running query, key:{}", cacheKey);
+            return await(running);
+        }
+        try {
+            result = loader.call();
+            put(cacheKey, result);
+            loading.complete(result);
+            return result;
+        } catch (Exception e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadings.remove(cacheKey, loading);
+        }
+    }
+
     public Boolean put(String cacheKey, Object value) {
         if (cacheEnable && Objects.nonNull(value)) {
-            CompletableFuture.supplyAsync(() -> cacheManager.put(cacheKey, value))
-                    .exceptionally(exception -> {
-                        log.warn("exception:", exception);
-                        return null;
-                    });
+            try {
+                cacheManager.put(cacheKey, value);
+            } catch (Exception e) {
+                log.warn("exception:", e);
+                return false;
+            }
             log.info("put to cache, key:{}", cacheKey);
             return true;
         }
@@ -44,8 +106,56 @@ public class DefaultQueryCache implements QueryCache {
 
     public String getCacheKey(SemanticQueryReq semanticQueryReq) {
         String commandMd5 = semanticQueryReq.generateCommandMd5();
-        String keyByModelIds = getKeyByModelIds(semanticQueryReq.getModelIds());
-        return cacheManager.generateCacheKey(keyByModelIds, commandMd5);
+        List<Long> modelIds = semanticQueryReq.getModelIds();
+        String keyByModelIds = getKeyByModelIds(modelIds);
+        return cacheManager.generateCacheKey(keyByModelIds, commandMd5 + ":" + getVersion(modelIds));
+    }
+
+    public void evict(Collection<Long> modelIds) {
+        incrementVersions(modelIds);
+        // the stale entries are never read again, removing them frees the space at once
+        Set<String> evictPrefixes = modelIds.stream().map(Object::toString).collect(Collectors.toSet());
+        cacheManager.removeCacheByPrefix(prefix -> prefix == null || UNKNOWN_PREFIX.equals(prefix)
+                || Arrays.stream(prefix.split(",")).anyMatch(evictPrefixes::contains));
+        log.info("evict query cache of models:{}", modelIds);
+    }
+
+    private Object await(CompletableFuture<Object> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * saved in the order of the increments, a later save never writes older versions
+     */
+    private synchronized void incrementVersions(Collection<Long> modelIds) {
+        modelIds.forEach(this::incrementVersion);
+        incrementVersion(UNKNOWN_MODEL);
+        cacheManager.saveVersions(modelVersions.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get())));
+    }
+
+    private void incrementVersion(Long modelId) {
+        modelVersions.computeIfAbsent(modelId, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String getVersion(List<Long> modelIds) {
+        if (modelIds.isEmpty()) {
+            return "v" + getVersion(UNKNOWN_MODEL);
+        }
+        return "v" + modelIds.stream().map(modelId -> String.valueOf(getVersion(modelId)))
+                .collect(Collectors.joining(","));
+    }
+
+    private long getVersion(Long modelId) {
+        AtomicLong version = modelVersions.get(modelId);
+        return version == null ? 0 : version.get();
     }
 
     private String getKeyByModelIds(List<Long> modelIds) {
@@ -0,0 +1,294 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Serialized cache values in files of a local directory, bounded by total file size with least
+ * recently used eviction. The index is rebuilt from the file headers on start, so the entries
+ * survive a restart.
+ */
+@Slf4j
+public class DiskCacheStore {
+
+    private static final String SUFFIX = ".cache";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String VERSIONS_FILE = "versions.properties";
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final long expireMillis;
+
+    /**
+     * access ordered, guarded by this
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    public DiskCacheStore(Path directory, long maxBytes, long expireMillis) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.expireMillis = expireMillis;
+    }
+
+    /**
+     * index the entries left by a previous run, expired and broken files and unfinished writes are deleted
+     */
+    public void load() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(SUFFIX)
+                            || file.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .collect(Collectors.toList());
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    delete(file);
+                    continue;
+                }
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    String key = in.readUTF();
+                    long writeTime = in.readLong();
+                    if (now - writeTime < expireMillis) {
+                        index(key, new Entry(file, Files.size(file), writeTime));
+                        continue;
+                    }
+                } catch (IOException e) {
+                    log.warn("skip broken cache file:{}", file, e);
+                }
+                delete(file);
+            }
+            evictOversize();
+        }
+        log.info("load {} entries from disk cache:{}, size:{}", entries.size(), directory, totalBytes);
+    }
+
+    public static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * write a value serialized by {@link #serialize(Object)}
+     */
+    public void put(String key, byte[] value) {
+        long writeTime = System.currentTimeMillis();
+        String name = DigestUtils.md5Hex(key);
+        Path file = directory.resolve(name + SUFFIX);
+        Path temp = null;
+        try {
+            // a file per write, concurrent writes of a key do not interleave in the same file
+            temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(key);
+                out.writeLong(writeTime);
+                out.write(value);
+            }
+            synchronized (this) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                index(key, new Entry(file, Files.size(file), writeTime));
+                evictOversize();
+            }
+        } catch (IOException e) {
+            log.warn("write disk cache error, key:{}", key, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * read the value, null if missing, expired or unreadable
+     */
+    public Object get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.writeTime >= expireMillis) {
+                remove(key);
+                return null;
+            }
+            entry.hits++;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(entry.file))) {
+            DataInputStream header = new DataInputStream(in);
+            header.readUTF();
+            header.readLong();
+            return new ObjectInputStream(in).readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("read disk cache error, key:{}", key, e);
+            remove(key, entry);
+            return null;
+        }
+    }
+
+    public synchronized int getHits(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.hits;
+    }
+
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    /**
+     * remove the entry only if it is still the indexed one, a newer write of the key is kept
+     */
+    private synchronized void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalBytes -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    public synchronized void removeIf(Predicate<String> keyFilter) {
+        List<String> keys = new ArrayList<>();
+        for (String key : entries.keySet()) {
+            if (keyFilter.test(key)) {
+                keys.add(key);
+            }
+        }
+        keys.forEach(this::remove);
+    }
+
+    /**
+     * the versions of the cached models saved by {@link #saveVersions(Map)}, the keys written under
+     * them are only found again with the same versions
+     */
+    public Map<Long, Long> loadVersions() {
+        Map<Long, Long> versions = new HashMap<>();
+        Path file = directory.resolve(VERSIONS_FILE);
+        if (!Files.exists(file)) {
+            return versions;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("read cache versions error:{}", file, e);
+            return versions;
+        }
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                versions.put(Long.valueOf(name), Long.valueOf(properties.getProperty(name)));
+            } catch (NumberFormatException e) {
+                log.warn("skip broken cache version:{}", name);
+            }
+        }
+        return versions;
+    }
+
+    public void saveVersions(Map<Long, Long> versions) {
+        Properties properties = new Properties();
+        versions.forEach((modelId, version) -> properties.setProperty(modelId.toString(), version.toString()));
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "versions", TEMP_SUFFIX);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, directory.resolve(VERSIONS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("write cache versions error:{}", directory, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void index(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size;
+        }
+        totalBytes += entry.size;
+    }
+
+    private void evictOversize() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            totalBytes -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("delete cache file error:{}", file, e);
+        }
+    }
+
+    private static class Entry {
+
+        private final Path file;
+        private final long size;
+        private final long writeTime;
+        private int hits;
+
+        Entry(Path file, long size, long writeTime) {
+            this.file = file;
+            this.size = size;
+            this.writeTime = writeTime;
+        }
+    }
+}
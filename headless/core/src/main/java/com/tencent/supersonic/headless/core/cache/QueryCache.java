@@ -2,13 +2,26 @@ package com.tencent.supersonic.headless.core.cache;
 
 
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import java.util.Collection;
+import java.util.concurrent.Callable;
 
 public interface QueryCache {
 
     Object query(SemanticQueryReq semanticQueryReq, String cacheKey);
 
+    /**
+     * query from cache, or run the loader and cache its result. concurrent loads of the same
+     * key are coalesced so the loader runs only once
+     */
+    Object load(SemanticQueryReq semanticQueryReq, String cacheKey, Callable<Object> loader) throws Exception;
+
     Boolean put(String cacheKey, Object value);
 
     String getCacheKey(SemanticQueryReq semanticQueryReq);
 
+    /**
+     * invalidate the cached results of the models
+     */
+    void evict(Collection<Long> modelIds);
+
 }
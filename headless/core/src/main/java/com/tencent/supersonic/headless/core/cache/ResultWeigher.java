@@ -0,0 +1,27 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.ColumnarResult;
+import java.util.Objects;
+
+/**
+ * weigh cached values by their estimated heap size in KB, so the cache is bounded by memory
+ * instead of entry count
+ */
+public class ResultWeigher implements Weigher<String, Object> {
+
+    private static final long DEFAULT_BYTES = 1024;
+
+    @Override
+    public int weigh(String key, Object value) {
+        long bytes = DEFAULT_BYTES;
+        if (value instanceof SemanticQueryResp) {
+            SemanticQueryResp semanticQueryResp = (SemanticQueryResp) value;
+            if (Objects.nonNull(semanticQueryResp.getResultList())) {
+                bytes += ColumnarResult.estimateBytes(semanticQueryResp.getResultList());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes >> 10);
+    }
+}
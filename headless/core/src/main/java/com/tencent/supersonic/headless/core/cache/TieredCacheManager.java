@@ -0,0 +1,152 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caffeine as the heap tier in front of an optional disk tier. Every result is serialized and
+ * written to disk by a background writer, small ones are also kept on heap where caffeine evicts the
+ * least frequently used. Disk hits promote a result back to heap once it is read often enough.
+ */
+@Primary
+@Component
+@Slf4j
+public class TieredCacheManager implements CacheManager {
+
+    @Autowired
+    private CacheCommonConfig cacheCommonConfig;
+
+    @Autowired
+    private CaffeineCacheManager caffeineCacheManager;
+
+    private final ResultWeigher resultWeigher = new ResultWeigher();
+
+    private DiskCacheStore diskCacheStore;
+
+    private ExecutorService diskWriter;
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(cacheCommonConfig.getCacheCommonDiskEnable())) {
+            return;
+        }
+        DiskCacheStore store = new DiskCacheStore(Paths.get(cacheCommonConfig.getCacheCommonDiskPath()),
+                cacheCommonConfig.getCacheCommonDiskMaxSizeMb() * 1024 * 1024,
+                TimeUnit.MINUTES.toMillis(cacheCommonConfig.getCacheCommonExpireAfterWrite()));
+        try {
+            store.load();
+        } catch (Exception e) {
+            log.warn("disk cache is disabled, path:{}", cacheCommonConfig.getCacheCommonDiskPath(), e);
+            return;
+        }
+        diskWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "disk-cache-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        diskCacheStore = store;
+    }
+
+    @Override
+    public Boolean put(String key, Object value) {
+        if (diskCacheStore == null) {
+            return caffeineCacheManager.put(key, value);
+        }
+        if (isHeapSized(key, value)) {
+            caffeineCacheManager.put(key, value);
+        }
+        // serialized off the request thread, the heap tier holds the same value so both tiers read alike
+        diskWriter.execute(() -> {
+            try {
+                diskCacheStore.put(key, DiskCacheStore.serialize(value));
+            } catch (Exception e) {
+                log.warn("skip disk cache, key:{}", key, e);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public Object get(String key) {
+        Object value = caffeineCacheManager.get(key);
+        if (Objects.nonNull(value) || diskCacheStore == null) {
+            return value;
+        }
+        value = diskCacheStore.get(key);
+        if (Objects.nonNull(value) && diskCacheStore.getHits(key) >= cacheCommonConfig.getCacheCommonDiskPromoteHits()
+                && isHeapSized(key, value)) {
+            log.debug("[promote diskCache] key:{}", key);
+            caffeineCacheManager.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public String generateCacheKey(String prefix, String body) {
+        return caffeineCacheManager.generateCacheKey(prefix, body);
+    }
+
+    @Override
+    public Boolean removeCache(String key) {
+        caffeineCacheManager.removeCache(key);
+        if (diskCacheStore != null) {
+            // after the pending writes of the key
+            diskWriter.execute(() -> diskCacheStore.remove(key));
+        }
+        return true;
+    }
+
+    @Override
+    public Boolean removeCacheByPrefix(Predicate<String> prefixFilter) {
+        caffeineCacheManager.removeCacheByPrefix(prefixFilter);
+        if (diskCacheStore != null) {
+            diskWriter.execute(() -> diskCacheStore.removeIf(
+                    key -> prefixFilter.test(CaffeineCacheManager.getPrefix(key))));
+        }
+        return true;
+    }
+
+    @Override
+    public Map<Long, Long> loadVersions() {
+        if (diskCacheStore == null) {
+            return Collections.emptyMap();
+        }
+        return diskCacheStore.loadVersions();
+    }
+
+    @Override
+    public void saveVersions(Map<Long, Long> versions) {
+        if (diskCacheStore != null) {
+            Map<Long, Long> snapshot = new HashMap<>(versions);
+            diskWriter.execute(() -> diskCacheStore.saveVersions(snapshot));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (diskWriter == null) {
+            return;
+        }
+        diskWriter.shutdown();
+        if (!diskWriter.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("disk cache writes are not finished on shutdown");
+        }
+    }
+
+    private boolean isHeapSized(String key, Object value) {
+        return resultWeigher.weigh(key, value) <= cacheCommonConfig.getCacheCommonHeapMaxEntryKb();
+    }
+}
@@ -38,4 +38,28 @@ public class JdbcExecutor implements QueryExecutor {
         return queryResultWithColumns;
     }
 
+    @Override
+    public void execute(QueryStatement queryStatement, ResultRowHandler handler) {
+        if (Strings.isEmpty(queryStatement.getSourceId())) {
+            log.warn("data base id is empty");
+            return;
+        }
+        log.info("stream query SQL: {}", queryStatement.getSql());
+        Database database = queryStatement.getSemanticModel().getDatabase();
+        SqlUtils sqlUtils = this.sqlUtils.init(database);
+        sqlUtils.queryStream(queryStatement.getSql(), handler);
+    }
+
+    @Override
+    public QueryCursor openCursor(QueryStatement queryStatement) {
+        if (Strings.isEmpty(queryStatement.getSourceId())) {
+            log.warn("data base id is empty");
+            return null;
+        }
+        log.info("cursor query SQL: {}", queryStatement.getSql());
+        Database database = queryStatement.getSemanticModel().getDatabase();
+        SqlUtils sqlUtils = this.sqlUtils.init(database);
+        return sqlUtils.openCursor(queryStatement.getSql());
+    }
+
 }
@@ -0,0 +1,125 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.ColumnarResult;
+import com.tencent.supersonic.headless.core.utils.JdbcDataSourceUtils;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An open server-side cursor, the result set is read page by page on demand and the
+ * connection is held until the cursor is exhausted, closed or evicted.
+ */
+@Slf4j
+public class QueryCursor implements AutoCloseable {
+
+    @Getter
+    private final String token = UUID.randomUUID().toString();
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final boolean autoCommit;
+    private final int rowLimit;
+    private final long bytesLimit;
+    /**
+     * key of the database the connection is borrowed from, set when opened through the manager
+     */
+    @Getter
+    @Setter
+    private String source;
+    @Getter
+    @Setter
+    private String owner;
+    @Getter
+    @Setter
+    private int pageSize;
+    /**
+     * the permission result of the query that opened the cursor, applied to every following page
+     */
+    @Getter
+    @Setter
+    private volatile UnaryOperator<SemanticQueryResp> pageFilter;
+    @Getter
+    private volatile long lastAccessTime = System.currentTimeMillis();
+    private long rowsRead;
+    private boolean pending;
+    private boolean exhausted;
+    private boolean closed;
+
+    public QueryCursor(Connection connection, Statement statement, ResultSet resultSet,
+            boolean autoCommit, int rowLimit, long bytesLimit) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.autoCommit = autoCommit;
+        this.rowLimit = rowLimit;
+        this.bytesLimit = bytesLimit;
+    }
+
+    /**
+     * read the next page, the continuation token of the response is null once the cursor is exhausted
+     */
+    public synchronized SemanticQueryResp nextPage(int size) throws SQLException {
+        if (closed) {
+            throw new IllegalStateException("query cursor is closed");
+        }
+        lastAccessTime = System.currentTimeMillis();
+        ColumnarResult page = ColumnarResult.of(resultSet.getMetaData());
+        SemanticQueryResp semanticQueryResp = new SemanticQueryResp();
+        while (!exhausted && page.getRowCount() < size) {
+            if (!pending && !resultSet.next()) {
+                exhausted = true;
+                break;
+            }
+            pending = false;
+            if (rowLimit > 0 && rowsRead >= rowLimit) {
+                semanticQueryResp.setTruncated(true);
+                exhausted = true;
+                break;
+            }
+            page.readRow(resultSet);
+            rowsRead++;
+            if (bytesLimit > 0 && page.estimateBytes() >= bytesLimit) {
+                break;
+            }
+        }
+        if (!exhausted) {
+            pending = resultSet.next();
+            exhausted = !pending;
+        }
+        semanticQueryResp.setColumns(page.getColumns());
+        semanticQueryResp.setResultList(page.asRows());
+        semanticQueryResp.setPageSize(size);
+        semanticQueryResp.setContinuationToken(exhausted ? null : token);
+        return semanticQueryResp;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        JdbcDataSourceUtils.closeResult(resultSet);
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warn("close cursor statement error", e);
+        }
+        try {
+            if (connection.getAutoCommit() != autoCommit) {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            log.warn("restore cursor connection error", e);
+        }
+        JdbcDataSourceUtils.releaseConnection(connection);
+    }
+}
@@ -0,0 +1,149 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.exception.InvalidArgumentException;
+import com.tencent.supersonic.common.pojo.exception.InvalidPermissionException;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keep the open query cursors by continuation token, every cursor pins a pooled connection,
+ * so their number is bounded in total and per database and idle cursors are evicted. A database
+ * keeps at least one connection of its pool for the other queries.
+ */
+@Slf4j
+@Component
+public class QueryCursorManager {
+
+    private final Map<String, QueryCursor> cursors = new ConcurrentHashMap<>();
+    private final Map<String, Integer> openBySource = new HashMap<>();
+    private int openCount;
+
+    @Value("${source.cursor.max-open:16}")
+    private int maxOpen;
+
+    @Value("${source.max-active:2}")
+    private int sourceMaxActive;
+
+    @Value("${source.cursor.idle-timeout-seconds:20}")
+    private long idleTimeoutSeconds;
+
+    /**
+     * open a cursor on the database with the given key, the slot is taken before the opener
+     * borrows a connection so a full pool is never waited on
+     *
+     * @return the cursor, or null when the opener does not support cursors
+     */
+    public QueryCursor open(String source, Supplier<QueryCursor> opener) {
+        reserve(source);
+        QueryCursor cursor;
+        try {
+            cursor = opener.get();
+        } catch (RuntimeException e) {
+            release(source);
+            throw e;
+        }
+        if (cursor == null) {
+            release(source);
+            return null;
+        }
+        cursor.setSource(source);
+        return cursor;
+    }
+
+    public SemanticQueryResp register(QueryCursor cursor, String owner, int pageSize) throws Exception {
+        cursor.setOwner(owner);
+        cursor.setPageSize(pageSize);
+        cursors.put(cursor.getToken(), cursor);
+        return fetch(cursor.getToken(), owner, pageSize);
+    }
+
+    /**
+     * keep the permission result of the query that opened the cursor, the following pages are
+     * served with it whatever request fetches them
+     */
+    public void bindPageFilter(String token, UnaryOperator<SemanticQueryResp> pageFilter) {
+        QueryCursor cursor = cursors.get(token);
+        if (cursor != null) {
+            cursor.setPageFilter(pageFilter);
+        }
+    }
+
+    public SemanticQueryResp fetch(String token, String owner, Integer pageSize) throws Exception {
+        QueryCursor cursor = cursors.get(token);
+        if (cursor == null) {
+            throw new InvalidArgumentException("query cursor does not exist or has expired, please query again");
+        }
+        if (!Objects.equals(owner, cursor.getOwner())) {
+            throw new InvalidPermissionException("query cursor does not belong to current user");
+        }
+        int size = Objects.nonNull(pageSize) && pageSize > 0 ? pageSize : cursor.getPageSize();
+        try {
+            SemanticQueryResp semanticQueryResp = cursor.nextPage(size);
+            if (semanticQueryResp.getContinuationToken() == null) {
+                close(token);
+            }
+            UnaryOperator<SemanticQueryResp> pageFilter = cursor.getPageFilter();
+            return pageFilter == null ? semanticQueryResp : pageFilter.apply(semanticQueryResp);
+        } catch (Exception e) {
+            close(token);
+            throw e;
+        }
+    }
+
+    public void close(String token) {
+        QueryCursor cursor = cursors.remove(token);
+        if (cursor != null) {
+            cursor.close();
+            if (cursor.getSource() != null) {
+                release(cursor.getSource());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${source.cursor.evict-interval-millis:5000}")
+    public void evictIdle() {
+        long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        cursors.values().stream().filter(cursor -> cursor.getLastAccessTime() < deadline)
+                .map(QueryCursor::getToken)
+                .forEach(token -> {
+                    log.info("evict idle query cursor:{}", token);
+                    close(token);
+                });
+    }
+
+    private synchronized void reserve(String source) {
+        int maxOpenPerSource = sourceMaxActive - 1;
+        if (openCount >= maxOpen || openBySource.getOrDefault(source, 0) >= maxOpenPerSource) {
+            evictIdle();
+        }
+        if (openCount >= maxOpen) {
+            throw new InvalidArgumentException("too many open query cursors, please retry later");
+        }
+        if (openBySource.getOrDefault(source, 0) >= maxOpenPerSource) {
+            throw new InvalidArgumentException("too many open query cursors on the database, please retry later");
+        }
+        openCount++;
+        openBySource.merge(source, 1, Integer::sum);
+    }
+
+    private synchronized void release(String source) {
+        openCount--;
+        openBySource.computeIfPresent(source, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        cursors.keySet().forEach(this::close);
+    }
+}
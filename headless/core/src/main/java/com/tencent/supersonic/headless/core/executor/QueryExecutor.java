@@ -11,4 +11,25 @@ public interface QueryExecutor {
     boolean accept(QueryStatement queryStatement);
 
     SemanticQueryResp execute(QueryStatement queryStatement);
+
+    /**
+     * stream the result to the handler, executors without native streaming push the
+     * whole result as a single batch
+     */
+    default void execute(QueryStatement queryStatement, ResultRowHandler handler) {
+        SemanticQueryResp semanticQueryResp = execute(queryStatement);
+        if (semanticQueryResp == null) {
+            return;
+        }
+        handler.onColumns(semanticQueryResp.getColumns());
+        handler.onRows(semanticQueryResp.getResultList());
+        handler.onComplete();
+    }
+
+    /**
+     * open a server-side cursor over the result, null if the executor does not support cursors
+     */
+    default QueryCursor openCursor(QueryStatement queryStatement) {
+        return null;
+    }
 }
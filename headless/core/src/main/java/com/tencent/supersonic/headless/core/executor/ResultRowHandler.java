@@ -0,0 +1,32 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receive query results as they are read from the engine instead of after the whole
+ * result is buffered. Rows are handed over in batches which are only valid during the call.
+ */
+public interface ResultRowHandler {
+
+    void onColumns(List<QueryColumn> columns);
+
+    void onRows(List<Map<String, Object>> rows);
+
+    /**
+     * called before completion when the row limit stopped the stream early
+     */
+    default void onTruncated() {
+    }
+
+    default void onComplete() {
+    }
+
+    /**
+     * called instead of completion when reading or handing over the rows failed, the rows
+     * already handed over are not a complete result
+     */
+    default void onError(Throwable e) {
+    }
+}
@@ -31,6 +31,15 @@ public interface FileHandler {
      */
     void writeFile(List<String> data, String fileName, Boolean append);
 
+    /**
+     * read the lines of a specific file,
+     * config dir: dict.directory.latest
+     *
+     * @param fileName
+     * @return empty if the file does not exist
+     */
+    List<String> readFile(String fileName);
+
     /**
      * get the knowledge file root directory
      *
@@ -14,6 +14,7 @@ import java.nio.file.StandardOpenOption;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -107,6 +108,20 @@ public class FileHandlerImpl implements FileHandler {
         }
     }
 
+    @Override
+    public List<String> readFile(String fileName) {
+        Path path = Paths.get(localFileConfig.getDictDirectoryLatest(), fileName);
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        try {
+            return Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to read file:{}, e:", path.toAbsolutePath(), e);
+            return new ArrayList<>();
+        }
+    }
+
     public String getAbsolutePath(String path) {
         return Paths.get(path).toAbsolutePath().toString();
     }
@@ -0,0 +1,144 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compiled form of a text dictionary file, saved next to it with the words already normalized and
+ * merged, so loading skips the line splitting and the char conversion.
+ * <pre>
+ * int magic, int format version, long text length, long text last modified, utf default nature,
+ * int count, (utf word, boolean has original, [utf original], int total frequency,
+ * int nature count, (utf nature, int frequency)[nature count])[count]
+ * </pre>
+ * A compiled file is only used while the length and the modification time of the text file and the
+ * default nature match its header. Files on hdfs are always loaded from the text.
+ */
+@Slf4j
+final class CompiledDictionaryFile {
+
+    static final String COMPILED_EXT = ".compiled";
+
+    private static final int MAGIC = 0x53324344;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private CompiledDictionaryFile() {
+    }
+
+    /**
+     * @return false if the file could not be written
+     */
+    static boolean write(String path, Nature defaultNature, TreeMap<String, CoreDictionary.Attribute> map) {
+        if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
+            return false;
+        }
+        File text = new File(path);
+        Path file = Paths.get(path + COMPILED_EXT);
+        Path temp = Paths.get(path + COMPILED_EXT + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(text.length());
+                out.writeLong(text.lastModified());
+                out.writeUTF(defaultNature.toString());
+                out.writeInt(map.size());
+                for (Map.Entry<String, CoreDictionary.Attribute> entry : map.entrySet()) {
+                    CoreDictionary.Attribute attribute = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeBoolean(attribute.original != null);
+                    if (attribute.original != null) {
+                        out.writeUTF(attribute.original);
+                    }
+                    out.writeInt(attribute.totalFrequency);
+                    out.writeInt(attribute.nature.length);
+                    for (int i = 0; i < attribute.nature.length; i++) {
+                        out.writeUTF(attribute.nature[i].toString());
+                        out.writeInt(attribute.frequency[i]);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.warn("write compiled dictionary error, path:{}", path, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // nothing left to clean up
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param natureConverter resolves the nature names, called one name at a time
+     * @return null if there is no up to date compiled file
+     */
+    static TreeMap<String, CoreDictionary.Attribute> read(String path, Nature defaultNature,
+            Function<String, Nature> natureConverter) {
+        if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
+            return null;
+        }
+        File text = new File(path);
+        Path file = Paths.get(path + COMPILED_EXT);
+        if (!text.isFile() || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != text.length()
+                    || in.readLong() != text.lastModified() || !in.readUTF().equals(defaultNature.toString())) {
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, Nature> natures = new HashMap<>();
+            TreeMap<String, CoreDictionary.Attribute> map = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                String word = in.readUTF();
+                String original = in.readBoolean() ? in.readUTF() : null;
+                int totalFrequency = in.readInt();
+                CoreDictionary.Attribute attribute = new CoreDictionary.Attribute(in.readInt());
+                for (int j = 0; j < attribute.nature.length; j++) {
+                    attribute.nature[j] = natures.computeIfAbsent(in.readUTF(), natureConverter);
+                    attribute.frequency[j] = in.readInt();
+                }
+                attribute.totalFrequency = totalFrequency;
+                attribute.original = original;
+                map.put(word, attribute);
+            }
+            return map;
+        } catch (IOException e) {
+            log.warn("read compiled dictionary error, path:{}", path, e);
+            return null;
+        }
+    }
+
+    static void delete(String path) {
+        try {
+            Files.deleteIfExists(Paths.get(path + COMPILED_EXT));
+        } catch (IOException e) {
+            log.warn("delete compiled dictionary error, path:{}", path, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most frequent values of every dimension value nature. Each nature keeps its values as UTF-8
+ * bytes with the frequencies in a primitive array, ordered by descending frequency, instead of a
+ * queue of terms, and values are decoded only for the page that is read.
+ */
+public class DimensionValueDictionary {
+
+    private final int maxSize;
+
+    private final Map<String, TopValues> natureToValues = new ConcurrentHashMap<>();
+
+    public DimensionValueDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * keep the value if it is among the most frequent ones of the nature, a value already kept
+     * is ignored
+     */
+    public void offer(String nature, String word, int frequency) {
+        natureToValues.computeIfAbsent(nature, key -> new TopValues(maxSize))
+                .offer(word.getBytes(StandardCharsets.UTF_8), frequency);
+    }
+
+    /**
+     * replace the values of the nature
+     *
+     * @param wordToFrequency all values of the nature, empty if the nature is gone
+     */
+    public void reset(String nature, Map<String, Integer> wordToFrequency) {
+        if (wordToFrequency.isEmpty()) {
+            natureToValues.remove(nature);
+            return;
+        }
+        TopValues topValues = new TopValues(maxSize);
+        wordToFrequency.forEach((word, frequency) -> topValues.offer(word.getBytes(StandardCharsets.UTF_8),
+                frequency));
+        natureToValues.put(nature, topValues);
+    }
+
+    /**
+     * a page of the values of the nature ordered by descending frequency
+     */
+    public List<String> getValues(String nature, int offset, int limit) {
+        TopValues topValues = natureToValues.get(nature);
+        if (topValues == null) {
+            return new ArrayList<>();
+        }
+        return topValues.getValues(offset, limit);
+    }
+
+    public int size() {
+        return natureToValues.size();
+    }
+
+    public void clear() {
+        natureToValues.clear();
+    }
+
+    private static class TopValues {
+
+        private final byte[][] words;
+
+        private final int[] frequencies;
+
+        private int size;
+
+        TopValues(int maxSize) {
+            words = new byte[maxSize][];
+            frequencies = new int[maxSize];
+        }
+
+        synchronized void offer(byte[] word, int frequency) {
+            if (size == words.length && (size == 0 || frequency <= frequencies[size - 1])) {
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (Arrays.equals(words[i], word)) {
+                    return;
+                }
+            }
+            int index = size == words.length ? size - 1 : size++;
+            while (index > 0 && frequencies[index - 1] < frequency) {
+                words[index] = words[index - 1];
+                frequencies[index] = frequencies[index - 1];
+                index--;
+            }
+            words[index] = word;
+            frequencies[index] = frequency;
+        }
+
+        synchronized List<String> getValues(int offset, int limit) {
+            int start = Math.max(offset, 0);
+            int end = (int) Math.min(size, (long) start + Math.max(limit, 0));
+            List<String> values = new ArrayList<>(Math.max(end - start, 0));
+            for (int i = start; i < end; i++) {
+                values.add(new String(words[i], StandardCharsets.UTF_8));
+            }
+            return values;
+        }
+    }
+}
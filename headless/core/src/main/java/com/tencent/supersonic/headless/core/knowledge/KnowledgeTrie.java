@@ -0,0 +1,290 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import com.tencent.supersonic.common.pojo.enums.DictWordType;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a knowledge trie for concurrent prefix search. The nodes are laid out
+ * breadth first in flat arrays with the children of a node stored next to each other and sorted
+ * by char, so a search walks int indexes, never writes shared state and only allocates the result.
+ * <p>
+ * Every node carries a 64 bit mask of the models found in its subtree, a search for some models
+ * skips subtrees without any of them. Natures without a model id set the highest bit.
+ */
+public class KnowledgeTrie {
+
+    private static final KnowledgeTrie EMPTY = build(Collections.emptyList());
+
+    private static final long NO_MODEL = Long.MIN_VALUE;
+
+    private static final long NO_MODEL_BIT = 1L << 63;
+
+    private final char[] labels;
+
+    private final int[] firstChild;
+
+    private final int[] childCount;
+
+    /**
+     * index into words and natures, -1 if the node does not end a word
+     */
+    private final int[] wordIndex;
+
+    private final long[] subtreeMask;
+
+    private final String[] words;
+
+    private final String[][] natures;
+
+    private final long[][] natureModelIds;
+
+    private KnowledgeTrie(int nodeCount, int wordCount) {
+        labels = new char[nodeCount];
+        firstChild = new int[nodeCount];
+        childCount = new int[nodeCount];
+        wordIndex = new int[nodeCount];
+        subtreeMask = new long[nodeCount];
+        words = new String[wordCount];
+        natures = new String[wordCount][];
+        natureModelIds = new long[wordCount][];
+    }
+
+    public static KnowledgeTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param entries words with their natures, sorted by word without duplicates
+     */
+    public static KnowledgeTrie build(List<? extends Map.Entry<String, List<String>>> entries) {
+        int nodeCount = 1;
+        String previous = "";
+        for (Map.Entry<String, List<String>> entry : entries) {
+            String word = entry.getKey();
+            nodeCount += word.length() - commonPrefixLength(previous, word);
+            previous = word;
+        }
+        KnowledgeTrie trie = new KnowledgeTrie(nodeCount, entries.size());
+        int[] parents = new int[nodeCount];
+        // breadth first over ranges of entries sharing the prefix of the node
+        int[] rangeStart = new int[nodeCount];
+        int[] rangeEnd = new int[nodeCount];
+        int[] depths = new int[nodeCount];
+        rangeEnd[0] = entries.size();
+        int next = 1;
+        for (int node = 0; node < nodeCount; node++) {
+            int start = rangeStart[node];
+            int end = rangeEnd[node];
+            int depth = depths[node];
+            trie.wordIndex[node] = -1;
+            if (start < end && entries.get(start).getKey().length() == depth) {
+                trie.setWord(node, start, entries.get(start));
+                start++;
+            }
+            trie.firstChild[node] = next;
+            while (start < end) {
+                char c = entries.get(start).getKey().charAt(depth);
+                int childEnd = start + 1;
+                while (childEnd < end && entries.get(childEnd).getKey().charAt(depth) == c) {
+                    childEnd++;
+                }
+                trie.labels[next] = c;
+                parents[next] = node;
+                rangeStart[next] = start;
+                rangeEnd[next] = childEnd;
+                depths[next] = depth + 1;
+                trie.childCount[node]++;
+                next++;
+                start = childEnd;
+            }
+        }
+        for (int node = nodeCount - 1; node > 0; node--) {
+            trie.subtreeMask[parents[node]] |= trie.subtreeMask[node];
+        }
+        return trie;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * the words starting with the key in breadth first order, which is by length and then by
+     * char, only natures of the detected models or without a model are kept
+     *
+     * @param detectModelIds empty to keep all natures
+     */
+    public List<Map.Entry<String, List<String>>> prefixSearch(String key, int limit, Set<Long> detectModelIds) {
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = findChild(node, key.charAt(i));
+        }
+        if (node < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        boolean filter = detectModelIds != null && !detectModelIds.isEmpty();
+        long queryMask = queryMask(detectModelIds);
+        List<Map.Entry<String, List<String>>> result = new ArrayList<>();
+        if (filter && (subtreeMask[node] & queryMask) == 0) {
+            return result;
+        }
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = node;
+        while (head < tail && result.size() < limit) {
+            int current = queue[head++];
+            int word = wordIndex[current];
+            if (word >= 0) {
+                List<String> kept = filter ? filterNatures(word, detectModelIds) : copyNatures(word);
+                if (!filter || !kept.isEmpty()) {
+                    result.add(new AbstractMap.SimpleImmutableEntry<>(words[word], kept));
+                }
+            }
+            int end = firstChild[current] + childCount[current];
+            for (int child = firstChild[current]; child < end; child++) {
+                if (filter && (subtreeMask[child] & queryMask) == 0) {
+                    continue;
+                }
+                if (tail == queue.length) {
+                    if (head > 0) {
+                        System.arraycopy(queue, head, queue, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                    }
+                    if (tail == queue.length) {
+                        int[] grown = new int[queue.length * 2];
+                        System.arraycopy(queue, 0, grown, 0, tail);
+                        queue = grown;
+                    }
+                }
+                queue[tail++] = child;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * for every position of the text, the length of the longest key read from there, forwards or
+     * backwards, that has words of the detected models starting with it. Every longer key read
+     * from the same position has none, so its prefix search is empty.
+     *
+     * @param forward true for the keys starting at each position, false for the reversed keys
+     *                ending before each position
+     * @return one length per position, of length text length + 1
+     */
+    public int[] matchLengths(String text, boolean forward, Set<Long> detectModelIds) {
+        int[] lengths = new int[text.length() + 1];
+        boolean filter = detectModelIds != null && !detectModelIds.isEmpty();
+        long queryMask = queryMask(detectModelIds);
+        for (int position = 0; position <= text.length(); position++) {
+            int node = 0;
+            int length = 0;
+            int index = forward ? position : position - 1;
+            while (index >= 0 && index < text.length()) {
+                node = findChild(node, text.charAt(index));
+                if (node < 0 || (filter && (subtreeMask[node] & queryMask) == 0)) {
+                    break;
+                }
+                length++;
+                index += forward ? 1 : -1;
+            }
+            lengths[position] = length;
+        }
+        return lengths;
+    }
+
+    private long queryMask(Set<Long> detectModelIds) {
+        long queryMask = NO_MODEL_BIT;
+        if (detectModelIds != null) {
+            for (Long modelId : detectModelIds) {
+                queryMask |= modelBit(modelId);
+            }
+        }
+        return queryMask;
+    }
+
+    private int findChild(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = labels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private List<String> filterNatures(int word, Set<Long> detectModelIds) {
+        String[] wordNatures = natures[word];
+        long[] modelIds = natureModelIds[word];
+        List<String> kept = new ArrayList<>(wordNatures.length);
+        for (int i = 0; i < wordNatures.length; i++) {
+            if (modelIds[i] == NO_MODEL || detectModelIds.contains(modelIds[i])) {
+                kept.add(wordNatures[i]);
+            }
+        }
+        return kept;
+    }
+
+    private List<String> copyNatures(int word) {
+        List<String> kept = new ArrayList<>(natures[word].length);
+        Collections.addAll(kept, natures[word]);
+        return kept;
+    }
+
+    private void setWord(int node, int word, Map.Entry<String, List<String>> entry) {
+        List<String> value = entry.getValue() == null ? Collections.emptyList() : entry.getValue();
+        wordIndex[node] = word;
+        words[word] = entry.getKey();
+        natures[word] = value.toArray(new String[0]);
+        natureModelIds[word] = new long[value.size()];
+        for (int i = 0; i < value.size(); i++) {
+            long modelId = getModelId(value.get(i));
+            natureModelIds[word][i] = modelId;
+            subtreeMask[node] |= modelId == NO_MODEL ? NO_MODEL_BIT : modelBit(modelId);
+        }
+    }
+
+    private static long modelBit(long modelId) {
+        return 1L << Math.floorMod(Long.hashCode(modelId), 63);
+    }
+
+    /**
+     * the model id of a nature like _1_2, parsed the same way as the natures are filtered elsewhere
+     */
+    private static long getModelId(String nature) {
+        if (nature == null) {
+            return NO_MODEL;
+        }
+        String[] split = nature.split(DictWordType.NATURE_SPILT);
+        if (split.length <= 1) {
+            return NO_MODEL;
+        }
+        try {
+            return Long.parseLong(split[1]);
+        } catch (NumberFormatException e) {
+            return NO_MODEL;
+        }
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -11,7 +11,6 @@ import com.hankcs.hanlp.corpus.tag.Nature;
 import com.hankcs.hanlp.dictionary.CoreDictionary;
 import com.hankcs.hanlp.dictionary.DynamicCustomDictionary;
 import com.hankcs.hanlp.dictionary.other.CharTable;
-import com.hankcs.hanlp.seg.common.Term;
 import com.hankcs.hanlp.utility.LexiconUtility;
 import com.hankcs.hanlp.utility.Predefine;
 import com.hankcs.hanlp.utility.TextUtility;
@@ -24,22 +23,24 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class MultiCustomDictionary extends DynamicCustomDictionary {
 
     public static int MAX_SIZE = 10;
     public static Boolean removeDuplicates = true;
-    public static ConcurrentHashMap<String, PriorityQueue<Term>> NATURE_TO_VALUES = new ConcurrentHashMap<>();
+    public static final DimensionValueDictionary NATURE_TO_VALUES = new DimensionValueDictionary(MAX_SIZE);
     private static boolean addToSuggesterTrie = true;
 
     public MultiCustomDictionary() {
@@ -106,8 +107,7 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
                     attribute = new CoreDictionary.Attribute(natureCount);
 
                     for (int i = 0; i < natureCount; ++i) {
-                        attribute.nature[i] = LexiconUtility.convertStringToNature(param[1 + 2 * i],
-                                customNatureCollector);
+                        attribute.nature[i] = convertStringToNature(param[1 + 2 * i], customNatureCollector);
                         attribute.frequency[i] = Integer.parseInt(param[2 + 2 * i]);
                         attribute.totalFrequency += attribute.frequency[i];
                     }
@@ -121,20 +121,6 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
                 if (addToSuggeterTrie) {
                     SearchService.put(word, attribute);
                 }
-                for (int i = 0; i < attribute.nature.length; i++) {
-                    Nature nature = attribute.nature[i];
-                    PriorityQueue<Term> priorityQueue = NATURE_TO_VALUES.get(nature.toString());
-                    if (Objects.isNull(priorityQueue)) {
-                        priorityQueue = new PriorityQueue<>(MAX_SIZE,
-                                Comparator.comparingInt(Term::getFrequency).reversed());
-                        NATURE_TO_VALUES.put(nature.toString(), priorityQueue);
-                    }
-                    Term term = new Term(word, nature);
-                    term.setFrequency(attribute.frequency[i]);
-                    if (!priorityQueue.contains(term) && priorityQueue.size() < MAX_SIZE) {
-                        priorityQueue.add(term);
-                    }
-                }
             }
         } catch (Exception var12) {
             logger.severe("自定义词典" + path + "读取错误！" + var12);
@@ -173,30 +159,37 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
             return true;
         } else {
             TreeMap<String, CoreDictionary.Attribute> map = new TreeMap();
-            LinkedHashSet customNatureCollector = new LinkedHashSet();
+            LinkedHashSet<Nature> customNatureCollector = new LinkedHashSet<>();
 
             try {
-                for (String p : path) {
-                    Nature defaultNature = Nature.n;
-                    File file = new File(p);
-                    String fileName = file.getName();
-                    int cut = fileName.lastIndexOf(32);
-                    if (cut > 0) {
-                        String nature = fileName.substring(cut + 1);
-                        p = file.getParent() + File.separator + fileName.substring(0, cut);
-
-                        try {
-                            defaultNature = LexiconUtility.convertStringToNature(nature, customNatureCollector);
-                        } catch (Exception var16) {
-                            Predefine.logger.severe("配置文件【" + p + "】写错了！" + var16);
-                            continue;
+                // every file is parsed into its own map in parallel, then merged in the order of the path
+                List<LoadedFile> loadedFiles = Arrays.stream(path).parallel()
+                        .map(MultiCustomDictionary::loadFile)
+                        .collect(Collectors.toList());
+                List<Nature> createdNatures = new ArrayList<>();
+                for (LoadedFile loadedFile : loadedFiles) {
+                    createdNatures.addAll(loadedFile.customNatures);
+                    if (loadedFile.map == null) {
+                        continue;
+                    }
+                    for (Map.Entry<String, CoreDictionary.Attribute> entry : loadedFile.map.entrySet()) {
+                        CoreDictionary.Attribute attribute = entry.getValue();
+                        if (removeDuplicates && map.containsKey(entry.getKey())) {
+                            attribute = DictionaryAttributeUtil.getAttribute(map.get(entry.getKey()), attribute);
                         }
+                        map.put(entry.getKey(), attribute);
                     }
-
-                    Predefine.logger.info("以默认词性[" + defaultNature + "]加载自定义词典" + p + "中……");
-                    boolean success = load(p, defaultNature, map, customNatureCollector, addToSuggestTrie);
-                    if (!success) {
-                        Predefine.logger.warning("失败：" + p);
+                }
+                // the cache refers to natures by ordinal, so they are listed in the order they were created
+                createdNatures.sort(Comparator.comparingInt(Nature::ordinal));
+                customNatureCollector.addAll(createdNatures);
+                for (Map.Entry<String, CoreDictionary.Attribute> entry : map.entrySet()) {
+                    CoreDictionary.Attribute attribute = entry.getValue();
+                    if (addToSuggestTrie) {
+                        SearchService.put(entry.getKey(), attribute);
+                    }
+                    for (int i = 0; i < attribute.nature.length; i++) {
+                        NATURE_TO_VALUES.offer(attribute.nature[i].toString(), entry.getKey(), attribute.frequency[i]);
                     }
                 }
 
@@ -374,7 +367,10 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
                 return false;
             } else if (this.dat.containsKey(word)) {
                 att.original = original;
-                att = DictionaryAttributeUtil.getAttribute(this.dat.get(word), att);
+                // a word whose natures were all removed stays in the dat without a value
+                if (this.dat.get(word) != null) {
+                    att = DictionaryAttributeUtil.getAttribute(this.dat.get(word), att);
+                }
                 this.dat.set(word, att);
                 // return true;
             } else {
@@ -394,4 +390,156 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
             return true;
         }
     }
+
+    /**
+     * remove one nature of a word in place. The dat can not drop a key, so a word without any
+     * nature left stays in it with a null value, which the segment treats as not found.
+     *
+     * @return false if the word does not have the nature
+     */
+    public synchronized boolean removeNature(String word, String nature) {
+        if (word == null || nature == null) {
+            return false;
+        }
+        word = normalizeWord(word);
+        CoreDictionary.Attribute attribute = get(word);
+        if (attribute == null) {
+            return false;
+        }
+        List<Nature> natures = new ArrayList<>();
+        List<Integer> frequencies = new ArrayList<>();
+        for (int i = 0; i < attribute.nature.length; i++) {
+            if (!attribute.nature[i].toString().equals(nature)) {
+                natures.add(attribute.nature[i]);
+                frequencies.add(attribute.frequency[i]);
+            }
+        }
+        if (natures.size() == attribute.nature.length) {
+            return false;
+        }
+        CoreDictionary.Attribute remaining = null;
+        if (!natures.isEmpty()) {
+            remaining = new CoreDictionary.Attribute(natures.size());
+            for (int i = 0; i < natures.size(); i++) {
+                remaining.nature[i] = natures.get(i);
+                remaining.frequency[i] = frequencies.get(i);
+                remaining.totalFrequency += frequencies.get(i);
+            }
+            remaining.original = attribute.original;
+        }
+        if (this.dat.containsKey(word)) {
+            this.dat.set(word, remaining);
+        } else if (remaining == null) {
+            this.trie.remove(word);
+        } else {
+            this.trie.put(word, remaining);
+        }
+        if (addToSuggesterTrie) {
+            DictWord dictWord = new DictWord();
+            dictWord.setWord(word);
+            dictWord.setNature(nature);
+            SearchService.remove(dictWord, natures.toArray(new Nature[0]));
+        }
+        return true;
+    }
+
+    /**
+     * replace the top values of a nature, used when the values of the nature are reloaded
+     *
+     * @param wordToFrequency all values of the nature, empty if the nature is gone
+     */
+    public static void resetNatureValues(String nature, Map<String, Integer> wordToFrequency) {
+        Map<String, Integer> normalized = new HashMap<>();
+        wordToFrequency.forEach((word, frequency) -> normalized.merge(normalizeWord(word), frequency, Math::max));
+        NATURE_TO_VALUES.reset(nature, normalized);
+    }
+
+    /**
+     * parse the text dictionary file and save it in the compiled format next to it, the compiled
+     * file is loaded instead of the text as long as the text is not changed
+     *
+     * @return false if the file can not be read or compiled
+     */
+    public static boolean compile(String path) {
+        TreeMap<String, CoreDictionary.Attribute> map = new TreeMap<>();
+        if (!load(path, Nature.n, map, new LinkedHashSet<>(), false)) {
+            return false;
+        }
+        return CompiledDictionaryFile.write(path, Nature.n, map);
+    }
+
+    public static void deleteCompiled(String path) {
+        CompiledDictionaryFile.delete(path);
+    }
+
+    /**
+     * parse one dictionary of the path, from its compiled file if that is up to date
+     */
+    private static LoadedFile loadFile(String p) {
+        LinkedHashSet<Nature> customNatures = new LinkedHashSet<>();
+        Nature defaultNature = Nature.n;
+        File file = new File(p);
+        String fileName = file.getName();
+        int cut = fileName.lastIndexOf(32);
+        if (cut > 0) {
+            String nature = fileName.substring(cut + 1);
+            p = file.getParent() + File.separator + fileName.substring(0, cut);
+
+            try {
+                defaultNature = convertStringToNature(nature, customNatures);
+            } catch (Exception e) {
+                Predefine.logger.severe("配置文件【" + p + "】写错了！" + e);
+                return new LoadedFile(null, customNatures);
+            }
+        }
+        String filePath = p;
+        TreeMap<String, CoreDictionary.Attribute> map = CompiledDictionaryFile.read(filePath, defaultNature,
+                name -> convertStringToNature(name, customNatures));
+        if (map != null) {
+            Predefine.logger.info("以默认词性[" + defaultNature + "]加载已编译的自定义词典" + p);
+            return new LoadedFile(map, customNatures);
+        }
+        Predefine.logger.info("以默认词性[" + defaultNature + "]加载自定义词典" + p + "中……");
+        map = new TreeMap<>();
+        if (!load(p, defaultNature, map, customNatures, false)) {
+            Predefine.logger.warning("失败：" + p);
+            return new LoadedFile(null, customNatures);
+        }
+        CompiledDictionaryFile.write(p, defaultNature, map);
+        return new LoadedFile(map, customNatures);
+    }
+
+    /**
+     * HanLP creates natures without any synchronization, so files loaded in parallel convert them
+     * one at a time
+     */
+    private static Nature convertStringToNature(String name, LinkedHashSet<Nature> customNatureCollector) {
+        synchronized (Nature.class) {
+            return LexiconUtility.convertStringToNature(name, customNatureCollector);
+        }
+    }
+
+    /**
+     * the key of a word in the dictionary, the same way load and insert convert it
+     */
+    private static String normalizeWord(String word) {
+        if (HanLP.Config.Normalization) {
+            word = CharTable.convert(word);
+        }
+        boolean isLetters = isLetters(word);
+        word = getWordBySpace(word);
+        return isLetters ? word.toLowerCase() : word;
+    }
+
+    private static class LoadedFile {
+
+        private final TreeMap<String, CoreDictionary.Attribute> map;
+
+        private final Set<Nature> customNatures;
+
+        LoadedFile(TreeMap<String, CoreDictionary.Attribute> map, Set<Nature> customNatures) {
+            this.map = map;
+            this.customNatures = customNatures;
+        }
+    }
 }
@@ -1,10 +1,8 @@
 package com.tencent.supersonic.headless.core.knowledge;
 
-import com.hankcs.hanlp.collection.trie.bintrie.BaseNode;
 import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
 import com.hankcs.hanlp.corpus.tag.Nature;
 import com.hankcs.hanlp.dictionary.CoreDictionary;
-import com.hankcs.hanlp.seg.common.Term;
 import com.tencent.supersonic.common.pojo.enums.DictWordType;
 import com.tencent.supersonic.headless.api.pojo.request.DimensionValueReq;
 import com.tencent.supersonic.headless.core.knowledge.helper.NatureHelper;
@@ -18,18 +16,24 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SearchService {
 
     public static final int SEARCH_SIZE = 200;
+    /**
+     * the mutable tries take the writes under the lock of this class, searches read the
+     * snapshots which are rebuilt by the first search after a write
+     */
     private static BinTrie<List<String>> trie;
     private static BinTrie<List<String>> suffixTrie;
+    private static volatile KnowledgeTrie trieSnapshot = KnowledgeTrie.empty();
+    private static volatile KnowledgeTrie suffixTrieSnapshot = KnowledgeTrie.empty();
+    private static volatile boolean trieChanged;
+    private static volatile boolean suffixTrieChanged;
 
     static {
         trie = new BinTrie<>();
@@ -42,19 +46,19 @@ public class SearchService {
      * @return
      */
     public static List<HanlpMapResult> prefixSearch(String key, int limit, Map<Long, List<Long>> modelIdToViewIds) {
-        return prefixSearch(key, limit, trie, modelIdToViewIds);
+        return prefixSearch(key, limit, getTrieSnapshot(), modelIdToViewIds);
     }
 
-    public static List<HanlpMapResult> prefixSearch(String key, int limit, BinTrie<List<String>> binTrie,
+    public static List<HanlpMapResult> prefixSearch(String key, int limit, KnowledgeTrie knowledgeTrie,
                                                     Map<Long, List<Long>> modelIdToViewIds) {
-        Set<Map.Entry<String, List<String>>> result = prefixSearchLimit(key, limit, binTrie, modelIdToViewIds.keySet());
+        List<Map.Entry<String, List<String>>> result = knowledgeTrie.prefixSearch(key.toLowerCase(), limit,
+                modelIdToViewIds.keySet());
         List<HanlpMapResult> hanlpMapResults = result.stream().map(
                         entry -> {
                             String name = entry.getKey().replace("#", " ");
                             return new HanlpMapResult(name, entry.getValue(), key);
                         }
-                ).sorted((a, b) -> -(b.getName().length() - a.getName().length()))
-                .limit(SEARCH_SIZE)
+                ).limit(SEARCH_SIZE)
                 .collect(Collectors.toList());
         for (HanlpMapResult hanlpMapResult : hanlpMapResults) {
             List<String> natures = hanlpMapResult.getNatures().stream()
@@ -72,12 +76,13 @@ public class SearchService {
      */
     public static List<HanlpMapResult> suffixSearch(String key, int limit, Set<Long> detectModelIds) {
         String reverseDetectSegment = StringUtils.reverse(key);
-        return suffixSearch(reverseDetectSegment, limit, suffixTrie, detectModelIds);
+        return suffixSearch(reverseDetectSegment, limit, getSuffixTrieSnapshot(), detectModelIds);
     }
 
-    public static List<HanlpMapResult> suffixSearch(String key, int limit, BinTrie<List<String>> binTrie,
+    public static List<HanlpMapResult> suffixSearch(String key, int limit, KnowledgeTrie knowledgeTrie,
                                                     Set<Long> detectModelIds) {
-        Set<Map.Entry<String, List<String>>> result = prefixSearchLimit(key, limit, binTrie, detectModelIds);
+        List<Map.Entry<String, List<String>>> result = knowledgeTrie.prefixSearch(key.toLowerCase(), limit,
+                detectModelIds);
         return result.stream().map(
                         entry -> {
                             String name = entry.getKey().replace("#", " ");
@@ -87,47 +92,70 @@ public class SearchService {
                             name = StringUtils.reverse(name);
                             return new HanlpMapResult(name, natures, key);
                         }
-                ).sorted((a, b) -> -(b.getName().length() - a.getName().length()))
-                .limit(SEARCH_SIZE)
+                ).limit(SEARCH_SIZE)
                 .collect(Collectors.toList());
     }
 
-    private static Set<Map.Entry<String, List<String>>> prefixSearchLimit(String key, int limit,
-            BinTrie<List<String>> binTrie, Set<Long> detectModelIds) {
-        key = key.toLowerCase();
-        Set<Map.Entry<String, List<String>>> entrySet = new TreeSet<Map.Entry<String, List<String>>>();
+    public static SegmentLattice getSegmentLattice(String text, Set<Long> detectModelIds) {
+        return SegmentLattice.build(text, getTrieSnapshot(), getSuffixTrieSnapshot(), detectModelIds);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        if (StringUtils.isNotBlank(key)) {
-            sb = new StringBuilder(key.substring(0, key.length() - 1));
-        }
-        BaseNode branch = binTrie;
-        char[] chars = key.toCharArray();
-        for (char aChar : chars) {
-            if (branch == null) {
-                return entrySet;
+    /**
+     * rebuild the changed snapshots now instead of on the next search
+     */
+    public static void publish() {
+        getTrieSnapshot();
+        getSuffixTrieSnapshot();
+    }
+
+    private static KnowledgeTrie getTrieSnapshot() {
+        if (trieChanged) {
+            synchronized (SearchService.class) {
+                if (trieChanged) {
+                    trieSnapshot = snapshot(trie);
+                    trieChanged = false;
+                }
             }
-            branch = branch.getChild(aChar);
         }
+        return trieSnapshot;
+    }
 
-        if (branch == null) {
-            return entrySet;
+    private static KnowledgeTrie getSuffixTrieSnapshot() {
+        if (suffixTrieChanged) {
+            synchronized (SearchService.class) {
+                if (suffixTrieChanged) {
+                    suffixTrieSnapshot = snapshot(suffixTrie);
+                    suffixTrieChanged = false;
+                }
+            }
         }
-        branch.walkLimit(sb, entrySet, limit, detectModelIds);
-        return entrySet;
+        return suffixTrieSnapshot;
+    }
+
+    private static KnowledgeTrie snapshot(BinTrie<List<String>> binTrie) {
+        long startTime = System.currentTimeMillis();
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>(binTrie.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        KnowledgeTrie knowledgeTrie = KnowledgeTrie.build(entries);
+        log.info("rebuild knowledge trie, size:{}, cost:{}", knowledgeTrie.size(),
+                System.currentTimeMillis() - startTime);
+        return knowledgeTrie;
     }
 
-    public static void clear() {
+    public static synchronized void clear() {
         log.info("clear all trie");
         trie = new BinTrie<>();
         suffixTrie = new BinTrie<>();
+        trieChanged = true;
+        suffixTrieChanged = true;
     }
 
-    public static void put(String key, CoreDictionary.Attribute attribute) {
+    public static synchronized void put(String key, CoreDictionary.Attribute attribute) {
         trie.put(key, getValue(attribute.nature));
+        trieChanged = true;
     }
 
-    public static void loadSuffix(List<DictWord> suffixes) {
+    public static synchronized void loadSuffix(List<DictWord> suffixes) {
         if (CollectionUtils.isEmpty(suffixes)) {
             return;
         }
@@ -146,34 +174,54 @@ public class SearchService {
         }
     }
 
-    public static void putSuffix(String key, CoreDictionary.Attribute attribute) {
+    public static synchronized void putSuffix(String key, CoreDictionary.Attribute attribute) {
         Nature[] nature = attribute.nature;
         suffixTrie.put(key, getValue(nature));
+        suffixTrieChanged = true;
+    }
+
+    public static synchronized void removeSuffix(String key, String nature) {
+        List<String> natures = suffixTrie.get(key);
+        if (natures == null || !natures.contains(nature)) {
+            return;
+        }
+        List<String> remaining = new ArrayList<>(natures);
+        remaining.remove(nature);
+        if (remaining.isEmpty()) {
+            suffixTrie.remove(key);
+        } else {
+            suffixTrie.put(key, remaining);
+        }
+        suffixTrieChanged = true;
     }
 
     private static List<String> getValue(Nature[] nature) {
         return Arrays.stream(nature).map(entry -> entry.toString()).collect(Collectors.toList());
     }
 
-    public static void remove(DictWord dictWord, Nature[] natures) {
+    public static synchronized void remove(DictWord dictWord, Nature[] natures) {
         trie.remove(dictWord.getWord());
         if (Objects.nonNull(natures) && natures.length > 0) {
             trie.put(dictWord.getWord(), getValue(natures));
         }
+        trieChanged = true;
         if (dictWord.getNature().contains(DictWordType.METRIC.getType()) || dictWord.getNature()
                 .contains(DictWordType.DIMENSION.getType())) {
             suffixTrie.remove(dictWord.getWord());
+            suffixTrieChanged = true;
         }
     }
 
     public static List<String> getDimensionValue(DimensionValueReq dimensionValueReq) {
+        return getDimensionValue(dimensionValueReq, 0, MultiCustomDictionary.MAX_SIZE);
+    }
+
+    /**
+     * a page of the most frequent values of the dimension
+     */
+    public static List<String> getDimensionValue(DimensionValueReq dimensionValueReq, int offset, int limit) {
         String nature = DictWordType.NATURE_SPILT + dimensionValueReq.getModelId() + DictWordType.NATURE_SPILT
                 + dimensionValueReq.getElementID();
-        PriorityQueue<Term> terms = MultiCustomDictionary.NATURE_TO_VALUES.get(nature);
-        if (org.apache.commons.collections.CollectionUtils.isEmpty(terms)) {
-            return new ArrayList<>();
-        }
-        return terms.stream().map(term -> term.getWord()).collect(Collectors.toList());
+        return MultiCustomDictionary.NATURE_TO_VALUES.getValues(nature, offset, limit);
     }
 }
-
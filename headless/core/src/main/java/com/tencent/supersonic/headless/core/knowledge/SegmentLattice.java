@@ -0,0 +1,63 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import java.util.Set;
+
+/**
+ * The segments of a text that can have prefix or suffix search results, found by reading the
+ * text once through each trie from every position instead of searching every segment.
+ */
+public class SegmentLattice {
+
+    private static final char CAPITAL_SIGMA = 0x3A3;
+
+    private final String text;
+
+    /**
+     * the longest key starting at each position with prefix search results, null to accept all
+     */
+    private final int[] prefixLengths;
+
+    /**
+     * the longest key ending before each position with suffix search results, null to accept all
+     */
+    private final int[] suffixLengths;
+
+    private SegmentLattice(String text, int[] prefixLengths, int[] suffixLengths) {
+        this.text = text;
+        this.prefixLengths = prefixLengths;
+        this.suffixLengths = suffixLengths;
+    }
+
+    /**
+     * @param suffixTrie the trie of the reversed words
+     */
+    public static SegmentLattice build(String text, KnowledgeTrie prefixTrie, KnowledgeTrie suffixTrie,
+            Set<Long> detectModelIds) {
+        // the searches lower case each segment, which matches lower casing the whole text only
+        // when no char changes length or depends on its neighbours
+        String lowerText = text.toLowerCase();
+        if (lowerText.length() != text.length() || text.indexOf(CAPITAL_SIGMA) >= 0) {
+            return new SegmentLattice(text, null, null);
+        }
+        return new SegmentLattice(text, prefixTrie.matchLengths(lowerText, true, detectModelIds),
+                suffixTrie.matchLengths(lowerText, false, detectModelIds));
+    }
+
+    /**
+     * whether the prefix or the suffix search of the trimmed segment between start and end can
+     * have results
+     */
+    public boolean accept(int start, int end) {
+        if (prefixLengths == null) {
+            return true;
+        }
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        return length == 0 || length <= prefixLengths[start] || length <= suffixLengths[end];
+    }
+}
@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.core.knowledge.helper;
 
 import com.google.common.collect.Lists;
 import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.corpus.io.IOUtil;
 import com.hankcs.hanlp.corpus.tag.Nature;
 import com.hankcs.hanlp.dictionary.CoreDictionary;
 import com.hankcs.hanlp.dictionary.DynamicCustomDictionary;
@@ -15,7 +16,6 @@ import com.tencent.supersonic.headless.core.knowledge.MapResult;
 import com.tencent.supersonic.headless.core.knowledge.MultiCustomDictionary;
 import com.tencent.supersonic.headless.core.knowledge.SearchService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ResourceUtils;
@@ -23,11 +23,14 @@ import org.springframework.util.ResourceUtils;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.hankcs.hanlp.HanLP.Config.CustomDictionaryPath;
@@ -110,6 +113,93 @@ public class HanlpHelper {
         return reload;
     }
 
+    /***
+     * apply the difference between the loaded and the new lines of a dictionary file to the
+     * custom dictionary and the search tries in place, call publishCustomDictionary once after
+     * a batch of files
+     * @param loadedLines the lines of the file before it was rewritten, empty for a new file
+     * @param lines the lines of the file now, empty for a deleted file
+     * @return the number of changed word natures
+     */
+    public static int updateCustomDictionary(List<String> loadedLines, List<String> lines) {
+        final long startTime = System.currentTimeMillis();
+        Map<String, Map<String, Integer>> loaded = parseDictLines(loadedLines);
+        Map<String, Map<String, Integer>> current = parseDictLines(lines);
+        MultiCustomDictionary dictionary = (MultiCustomDictionary) getDynamicCustomDictionary();
+        int removed = 0;
+        int inserted = 0;
+        for (Map.Entry<String, Map<String, Integer>> entry : loaded.entrySet()) {
+            Map<String, Integer> words = current.getOrDefault(entry.getKey(), Collections.emptyMap());
+            for (String word : entry.getValue().keySet()) {
+                if (!words.containsKey(word) && dictionary.removeNature(word, entry.getKey())) {
+                    removed++;
+                }
+            }
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : current.entrySet()) {
+            Map<String, Integer> words = loaded.getOrDefault(entry.getKey(), Collections.emptyMap());
+            for (Map.Entry<String, Integer> word : entry.getValue().entrySet()) {
+                if (!word.getValue().equals(words.get(word.getKey()))
+                        && dictionary.insert(word.getKey(), entry.getKey() + " " + word.getValue())) {
+                    inserted++;
+                }
+            }
+        }
+        Set<String> natures = new HashSet<>(loaded.keySet());
+        natures.addAll(current.keySet());
+        for (String nature : natures) {
+            MultiCustomDictionary.resetNatureValues(nature, current.getOrDefault(nature, Collections.emptyMap()));
+        }
+        log.info("updateCustomDictionary natures:{},removed:{},inserted:{},cost:{}", natures, removed, inserted,
+                System.currentTimeMillis() - startTime);
+        return removed + inserted;
+    }
+
+    /***
+     * publish the words applied in place: pick up new dictionary files and delete the stale
+     * caches so that the next start loads the current files, then rebuild the search snapshots
+     */
+    public static void publishCustomDictionary() throws IOException {
+        if (CustomDictionaryPath == null || CustomDictionaryPath.length == 0) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
+            HdfsFileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
+            HdfsFileHelper.resetCustomPath(getDynamicCustomDictionary());
+        } else {
+            FileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
+            FileHelper.resetCustomPath(getDynamicCustomDictionary());
+        }
+        SearchService.publish();
+        log.info("publishCustomDictionary end ,cost:{}", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * nature to word to frequency, read the same way as MultiCustomDictionary loads a file
+     */
+    private static Map<String, Map<String, Integer>> parseDictLines(List<String> lines) {
+        Map<String, Map<String, Integer>> natureToWords = new HashMap<>();
+        if (CollectionUtils.isEmpty(lines)) {
+            return natureToWords;
+        }
+        for (String line : lines) {
+            String[] param = IOUtil.removeUTF8BOM(line).split("\\s");
+            if (param[0].length() == 0) {
+                continue;
+            }
+            for (int i = 0; i < (param.length - 1) / 2; i++) {
+                try {
+                    natureToWords.computeIfAbsent(param[1 + 2 * i], nature -> new HashMap<>())
+                            .put(param[0], Integer.parseInt(param[2 + 2 * i]));
+                } catch (NumberFormatException e) {
+                    log.warn("invalid dictionary line:{}", line);
+                }
+            }
+        }
+        return natureToWords;
+    }
+
     private static void resetHanlpConfig() throws FileNotFoundException {
         if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
             return;
@@ -163,6 +253,19 @@ public class HanlpHelper {
         HanLP.Config.PerceptronNERModelPath = hanlpPropertiesPath + FILE_SPILT + HanLP.Config.PerceptronNERModelPath;
     }
 
+    /***
+     * save the dictionary file in the compiled format that is loaded at startup
+     */
+    public static void compileCustomDictionary(String path) {
+        if (!MultiCustomDictionary.compile(path)) {
+            log.warn("compileCustomDictionary failed, path:{}", path);
+        }
+    }
+
+    public static void deleteCompiledDictionary(String path) {
+        MultiCustomDictionary.deleteCompiled(path);
+    }
+
     public static String getHanlpPropertiesPath() throws FileNotFoundException {
         return ResourceUtils.getFile("classpath:hanlp.properties").getParent();
     }
@@ -174,28 +277,8 @@ public class HanlpHelper {
 
     public static void removeFromCustomDictionary(DictWord dictWord) {
         log.info("dictWord:{}", dictWord);
-        CoreDictionary.Attribute attribute = getDynamicCustomDictionary().get(dictWord.getWord());
-        if (attribute == null) {
-            return;
-        }
-        log.info("get attribute:{}", attribute);
-        getDynamicCustomDictionary().remove(dictWord.getWord());
-        StringBuilder sb = new StringBuilder();
-        List<Nature> natureList = new ArrayList<>();
-        for (int i = 0; i < attribute.nature.length; i++) {
-            if (!attribute.nature[i].toString().equals(dictWord.getNature())) {
-                sb.append(attribute.nature[i].toString() + " ");
-                sb.append(attribute.frequency[i] + " ");
-                natureList.add((attribute.nature[i]));
-            }
-        }
-        String natureWithFrequency = sb.toString();
-        int len = natureWithFrequency.length();
-        log.info("filtered natureWithFrequency:{}", natureWithFrequency);
-        if (StringUtils.isNotBlank(natureWithFrequency)) {
-            getDynamicCustomDictionary().add(dictWord.getWord(), natureWithFrequency.substring(0, len - 1));
-        }
-        SearchService.remove(dictWord, natureList.toArray(new Nature[0]));
+        ((MultiCustomDictionary) getDynamicCustomDictionary()).removeNature(dictWord.getWord(),
+                dictWord.getNature());
     }
 
     public static <T extends MapResult> void transLetterOriginal(List<T> mapResults) {
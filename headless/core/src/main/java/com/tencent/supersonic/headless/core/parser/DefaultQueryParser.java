@@ -144,6 +144,9 @@ public class DefaultQueryParser implements QueryParser {
                     tableSql.getErrMsg()));
         }
         queryStatement.setSourceId(tableSql.getSourceId());
+        if (Objects.nonNull(tableSql.getMaterialization())) {
+            queryStatement.setMaterialization(tableSql.getMaterialization());
+        }
         return tableSql;
     }
 
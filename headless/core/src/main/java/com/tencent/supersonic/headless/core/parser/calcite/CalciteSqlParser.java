@@ -2,14 +2,16 @@ package com.tencent.supersonic.headless.core.parser.calcite;
 
 import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
 import com.tencent.supersonic.headless.api.pojo.enums.EngineType;
-import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
 import com.tencent.supersonic.headless.core.parser.SqlParser;
 import com.tencent.supersonic.headless.core.parser.calcite.planner.AggPlanner;
+import com.tencent.supersonic.headless.core.parser.calcite.planner.MaterializationRouter;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
 import com.tencent.supersonic.headless.core.parser.calcite.schema.RuntimeOptions;
 import com.tencent.supersonic.headless.core.parser.calcite.schema.SemanticSchema;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Objects;
@@ -21,15 +23,32 @@ import java.util.Objects;
 @Slf4j
 public class CalciteSqlParser implements SqlParser {
 
+    @Autowired(required = false)
+    private PlanCache planCache;
+
+    @Value("${query.materialization.route.enable:true}")
+    private Boolean routeEnable;
+
     @Override
     public QueryStatement explain(QueryStatement queryStatement, AggOption isAgg) throws Exception {
-        MetricQueryParam metricReq = queryStatement.getMetricQueryParam();
         SemanticModel semanticModel = queryStatement.getSemanticModel();
         if (semanticModel == null) {
             queryStatement.setErrMsg("semanticSchema not found");
             return queryStatement;
         }
-        queryStatement.setMetricQueryParam(metricReq);
+        if (Boolean.TRUE.equals(routeEnable)) {
+            queryStatement.setMaterialization(MaterializationRouter.route(queryStatement, isAgg));
+        }
+        if (Objects.isNull(planCache)) {
+            plan(queryStatement, isAgg);
+        } else {
+            planCache.explain(queryStatement, isAgg, this::plan);
+        }
+        return queryStatement;
+    }
+
+    private void plan(QueryStatement queryStatement, AggOption isAgg) throws Exception {
+        SemanticModel semanticModel = queryStatement.getSemanticModel();
         SemanticSchema semanticSchema = getSemanticSchema(semanticModel, queryStatement);
         AggPlanner aggBuilder = new AggPlanner(semanticSchema);
         aggBuilder.explain(queryStatement, isAgg);
@@ -47,7 +66,6 @@ public class CalciteSqlParser implements SqlParser {
                 queryStatement.setDataSetSimplifySql(simplifySql);
             }
         }
-        return queryStatement;
     }
 
     private SemanticSchema getSemanticSchema(SemanticModel semanticModel, QueryStatement queryStatement) {
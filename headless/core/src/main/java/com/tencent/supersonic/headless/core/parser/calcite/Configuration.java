@@ -9,7 +9,9 @@ import com.tencent.supersonic.headless.core.utils.SqlDialectFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.calcite.avatica.util.Casing;
 import org.apache.calcite.avatica.util.Quoting;
 import org.apache.calcite.config.CalciteConnectionConfig;
@@ -48,7 +50,18 @@ public class Configuration {
     public static SqlOperatorTable operatorTable = SqlStdOperatorTable.instance();
     public static CalciteConnectionConfig config = new CalciteConnectionConfigImpl(configProperties);
 
+    private static final Map<EngineType, SqlValidator.Config> validatorConfigs = new ConcurrentHashMap<>();
+    private static final Map<EngineType, SqlParser.Config> parserConfigs = new ConcurrentHashMap<>();
+
+    /**
+     * the configs are immutable and only depend on the engine type, so they are built once per
+     * engine type instead of for every expression that is parsed or validated
+     */
     public static SqlValidator.Config getValidatorConfig(EngineType engineType) {
+        return validatorConfigs.computeIfAbsent(engineType, Configuration::buildValidatorConfig);
+    }
+
+    private static SqlValidator.Config buildValidatorConfig(EngineType engineType) {
         SemanticSqlDialect sqlDialect = SqlDialectFactory.getSqlDialect(engineType);
         return SqlValidator.Config.DEFAULT
                 .withConformance(sqlDialect.getConformance())
@@ -64,6 +77,10 @@ public class Configuration {
     }
 
     public static SqlParser.Config getParserConfig(EngineType engineType) {
+        return parserConfigs.computeIfAbsent(engineType, Configuration::buildParserConfig);
+    }
+
+    private static SqlParser.Config buildParserConfig(EngineType engineType) {
         CalciteConnectionConfig config = new CalciteConnectionConfigImpl(configProperties);
         SemanticSqlDialect sqlDialect = SqlDialectFactory.getSqlDialect(engineType);
 
@@ -0,0 +1,267 @@
+package com.tencent.supersonic.headless.core.parser.calcite;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Constants;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the sql planned by the calcite parser. Queries of the same shape on the same compiled
+ * semantic model share one template: the plain string literals of the where clause, of the data
+ * set sql and of the time range are replaced by placeholders, the shape is planned once with the
+ * placeholders and the literals of every query are bound into the planned sql. A template is only
+ * kept if binding the literals of the query that built it gives exactly the sql planned for that
+ * query, otherwise the shape is always planned. Models without a version, such as models whose sql
+ * variables were bound for the query, are never cached.
+ */
+@Component
+@Slf4j
+public class PlanCache {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'((?:[^']|'')*)'");
+
+    private static final Pattern PLAIN_LITERAL = Pattern.compile("[\\w\\-:./ ]*");
+
+    /**
+     * the source render gives every data source output a random alias suffix
+     */
+    private static final Pattern RANDOM_ALIAS = Pattern.compile(
+            "(" + Constants.DATASOURCE_TABLE_OUT_PREFIX + "\\w*_)[0-9a-f]{4}\\b");
+
+    private static final String PLACEHOLDER = "s2p" + Long.toHexString(new SecureRandom().nextLong() >>> 1) + "x";
+
+    private static final Template UNCACHEABLE = new Template(null, null, null, false);
+
+    @Value("${query.plan.cache.enable:true}")
+    private Boolean cacheEnable;
+
+    @Value("${query.plan.cache.size:1000}")
+    private int cacheSize;
+
+    private Cache<List<Object>, Template> templates;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        templates = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    public void explain(QueryStatement queryStatement, AggOption aggOption, PlanFunction planFunction)
+            throws Exception {
+        SemanticModel semanticModel = queryStatement.getSemanticModel();
+        MetricQueryParam metricReq = queryStatement.getMetricQueryParam();
+        if (!Boolean.TRUE.equals(cacheEnable) || Objects.isNull(semanticModel.getVersion())
+                || StringUtils.contains(metricReq.getWhere(), '\\')
+                || StringUtils.contains(queryStatement.getDataSetSql(), '\\')) {
+            planFunction.plan(queryStatement, aggOption);
+            return;
+        }
+        normalize(metricReq);
+        List<String> literals = new ArrayList<>();
+        String where = parameterize(metricReq.getWhere(), literals);
+        String dataSetSql = parameterize(queryStatement.getDataSetSql(), literals);
+        Triple<String, String, String> minMaxTime = parameterize(queryStatement.getMinMaxTime(), literals);
+        String destinationTable = Objects.isNull(queryStatement.getMaterialization()) ? null
+                : queryStatement.getMaterialization().getDestinationTable();
+        List<Object> key = Arrays.asList(semanticModel.getDatabase().getType(), semanticModel.getSchemaKey(),
+                semanticModel.getVersion(), aggOption, metricReq.getMetrics(), metricReq.getDimensions(),
+                metricReq.getOrder(), metricReq.getLimit(), metricReq.isNativeQuery(),
+                queryStatement.getEnableOptimize(), queryStatement.getDataSetAlias(), where, dataSetSql, minMaxTime,
+                destinationTable);
+        Template template = templates.getIfPresent(key);
+        if (template == UNCACHEABLE) {
+            planFunction.plan(queryStatement, aggOption);
+            return;
+        }
+        if (Objects.nonNull(template)) {
+            hitCount.incrementAndGet();
+            queryStatement.setSql(bind(template.sql, literals));
+            queryStatement.setSourceId(template.sourceId);
+            if (Objects.nonNull(template.dataSetSimplifySql)) {
+                queryStatement.setDataSetSimplifySql(bind(template.dataSetSimplifySql, literals));
+            }
+            if (!template.routed) {
+                queryStatement.setMaterialization(null);
+            }
+            return;
+        }
+        missCount.incrementAndGet();
+        String dataSetSimplifySql = queryStatement.getDataSetSimplifySql();
+        planFunction.plan(queryStatement, aggOption);
+        if (!queryStatement.isOk()) {
+            return;
+        }
+        String simplifySql = Objects.equals(dataSetSimplifySql, queryStatement.getDataSetSimplifySql())
+                ? null : queryStatement.getDataSetSimplifySql();
+        if (literals.isEmpty()) {
+            templates.put(key, new Template(queryStatement.getSql(), queryStatement.getSourceId(), simplifySql,
+                    Objects.nonNull(queryStatement.getMaterialization())));
+            return;
+        }
+        templates.put(key, buildTemplate(queryStatement, aggOption, planFunction, where, dataSetSql, minMaxTime,
+                literals, simplifySql));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * plan the shape with the placeholders, the template is dropped if binding the literals back
+     * does not give the sql planned for the query itself
+     */
+    private Template buildTemplate(QueryStatement queryStatement, AggOption aggOption, PlanFunction planFunction,
+            String where, String dataSetSql, Triple<String, String, String> minMaxTime, List<String> literals,
+            String simplifySql) {
+        MetricQueryParam metricReq = queryStatement.getMetricQueryParam();
+        MetricQueryParam shapeReq = new MetricQueryParam();
+        shapeReq.setMetrics(new ArrayList<>(metricReq.getMetrics()));
+        shapeReq.setDimensions(new ArrayList<>(metricReq.getDimensions()));
+        shapeReq.setWhere(where);
+        shapeReq.setLimit(metricReq.getLimit());
+        shapeReq.setOrder(metricReq.getOrder());
+        shapeReq.setNativeQuery(metricReq.isNativeQuery());
+        QueryStatement shapeStatement = new QueryStatement();
+        shapeStatement.setMetricQueryParam(shapeReq);
+        shapeStatement.setSemanticModel(queryStatement.getSemanticModel());
+        shapeStatement.setEnableOptimize(queryStatement.getEnableOptimize());
+        shapeStatement.setMinMaxTime(minMaxTime);
+        shapeStatement.setDataSetSql(dataSetSql);
+        shapeStatement.setDataSetAlias(queryStatement.getDataSetAlias());
+        shapeStatement.setDataSetSimplifySql(null);
+        shapeStatement.setMaterialization(queryStatement.getMaterialization());
+        try {
+            planFunction.plan(shapeStatement, aggOption);
+        } catch (Exception e) {
+            log.debug("plan the query shape error, the shape is not cached", e);
+            return UNCACHEABLE;
+        }
+        Template template = new Template(shapeStatement.getSql(), shapeStatement.getSourceId(),
+                shapeStatement.getDataSetSimplifySql(), Objects.nonNull(shapeStatement.getMaterialization()));
+        if (!Objects.equals(maskAlias(bind(template.sql, literals)), maskAlias(queryStatement.getSql()))
+                || !Objects.equals(template.sourceId, queryStatement.getSourceId())
+                || template.routed != Objects.nonNull(queryStatement.getMaterialization())
+                || !Objects.equals(template.dataSetSimplifySql == null ? null
+                : maskAlias(bind(template.dataSetSimplifySql, literals)), maskAlias(simplifySql))) {
+            log.debug("the literals of the query shape are not bound as planned, the shape is not cached");
+            return UNCACHEABLE;
+        }
+        return template;
+    }
+
+    private static void normalize(MetricQueryParam metricReq) {
+        if (metricReq.getMetrics() == null) {
+            metricReq.setMetrics(new ArrayList<>());
+        }
+        if (metricReq.getDimensions() == null) {
+            metricReq.setDimensions(new ArrayList<>());
+        }
+        if (metricReq.getLimit() == null) {
+            metricReq.setLimit(0L);
+        }
+    }
+
+    private static String parameterize(String sql, List<String> literals) {
+        if (StringUtils.isEmpty(sql)) {
+            return sql;
+        }
+        Matcher matcher = STRING_LITERAL.matcher(sql);
+        StringBuffer shape = new StringBuffer();
+        while (matcher.find()) {
+            String literal = matcher.group(1);
+            if (PLAIN_LITERAL.matcher(literal).matches()) {
+                matcher.appendReplacement(shape, "'" + placeholder(literals.size()) + "'");
+                literals.add(literal);
+            }
+        }
+        matcher.appendTail(shape);
+        return shape.toString();
+    }
+
+    private static Triple<String, String, String> parameterize(Triple<String, String, String> minMaxTime,
+            List<String> literals) {
+        if (Objects.isNull(minMaxTime)) {
+            return null;
+        }
+        return new ImmutableTriple<>(minMaxTime.getLeft(), parameterizeValue(minMaxTime.getMiddle(), literals),
+                parameterizeValue(minMaxTime.getRight(), literals));
+    }
+
+    private static String parameterizeValue(String value, List<String> literals) {
+        if (Objects.isNull(value) || !PLAIN_LITERAL.matcher(value).matches()) {
+            return value;
+        }
+        literals.add(value);
+        return placeholder(literals.size() - 1);
+    }
+
+    private static String bind(String sql, List<String> literals) {
+        String bound = sql;
+        for (int i = literals.size() - 1; i >= 0; i--) {
+            bound = StringUtils.replace(bound, "'" + placeholder(i) + "'", "'" + literals.get(i) + "'");
+        }
+        return bound;
+    }
+
+    private static String maskAlias(String sql) {
+        return Objects.isNull(sql) ? null : RANDOM_ALIAS.matcher(sql).replaceAll("$1");
+    }
+
+    private static String placeholder(int index) {
+        return PLACEHOLDER + index + "x";
+    }
+
+    /**
+     * plans the query into its sql, source id and simplified data set sql
+     */
+    public interface PlanFunction {
+
+        void plan(QueryStatement queryStatement, AggOption aggOption) throws Exception;
+    }
+
+    private static class Template {
+
+        private final String sql;
+
+        private final String sourceId;
+
+        private final String dataSetSimplifySql;
+
+        /**
+         * whether the routed materialization is read by the planned sql
+         */
+        private final boolean routed;
+
+        Template(String sql, String sourceId, String dataSetSimplifySql, boolean routed) {
+            this.sql = sql;
+            this.sourceId = sourceId;
+            this.dataSetSimplifySql = dataSetSimplifySql;
+            this.routed = routed;
+        }
+    }
+}
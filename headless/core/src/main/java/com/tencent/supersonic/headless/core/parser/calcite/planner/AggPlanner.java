@@ -6,6 +6,7 @@ import com.tencent.supersonic.headless.api.pojo.enums.EngineType;
 import com.tencent.supersonic.headless.core.parser.calcite.Configuration;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Constants;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.DataSource;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization;
 import com.tencent.supersonic.headless.core.parser.calcite.schema.SchemaBuilder;
 import com.tencent.supersonic.headless.core.parser.calcite.schema.SemanticSchema;
 import com.tencent.supersonic.headless.core.parser.calcite.sql.Renderer;
@@ -43,6 +44,7 @@ public class AggPlanner implements Planner {
     private String sourceId;
     private boolean isAgg = false;
     private AggOption aggOption = AggOption.DEFAULT;
+    private Materialization materialization;
 
     public AggPlanner(SemanticSchema schema) {
         this.schema = schema;
@@ -55,6 +57,7 @@ public class AggPlanner implements Planner {
         if (datasource == null || datasource.isEmpty()) {
             throw new Exception("datasource not found");
         }
+        datasource = routeMaterialization(datasource);
         isAgg = getAgg(datasource.get(0));
         sourceId = String.valueOf(datasource.get(0).getSourceId());
 
@@ -85,6 +88,25 @@ public class AggPlanner implements Planner {
         return DataSourceNode.getMatchDataSources(scope, schema, metricReq);
     }
 
+    /**
+     * read the routed materialization instead of the model if the query only reads that model
+     */
+    private List<DataSource> routeMaterialization(List<DataSource> datasource) {
+        if (Objects.isNull(materialization)) {
+            return datasource;
+        }
+        if (datasource.size() != 1 || !Objects.equals(datasource.get(0).getId(), materialization.getModelId())) {
+            materialization = null;
+            return datasource;
+        }
+        log.info("model {} is read from materialization {}", datasource.get(0).getName(),
+                materialization.getDestinationTable());
+        List<DataSource> routed = new ArrayList<>();
+        routed.add(datasource.get(0).toBuilder().sqlQuery(null)
+                .tableQuery(materialization.getDestinationTable()).build());
+        return routed;
+    }
+
     private boolean getAgg(DataSource dataSource) {
         if (!AggOption.DEFAULT.equals(aggOption)) {
             return AggOption.isAgg(aggOption);
@@ -112,8 +134,10 @@ public class AggPlanner implements Planner {
             metricReq.setLimit(0L);
         }
         this.aggOption = aggOption;
+        this.materialization = queryStatement.getMaterialization();
         // build a parse Node
         parse();
+        queryStatement.setMaterialization(materialization);
         // optimizer
         Database database = queryStatement.getSemanticModel().getDatabase();
         EngineType engineType = EngineType.fromString(database.getType());
@@ -0,0 +1,199 @@
+package com.tencent.supersonic.headless.core.parser.calcite.planner;
+
+import com.tencent.supersonic.common.util.jsqlparser.SqlSelectHelper;
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.DataSource;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Dimension;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Identify;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.MaterializationElement;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Measure;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Metric;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.MetricTypeParams;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.TimeRange;
+import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Pick the materialization an aggregated metric query reads instead of its source model. A
+ * materialization is a table with the columns of its model rolled up by its dimensions, it covers
+ * the query when all the metrics, dimensions and filter fields of the query belong to its model,
+ * the metrics only use plain column sum, max or min measures of the materialization, the
+ * dimensions and filter fields are dimensions of the materialization or only use their columns,
+ * and the date range of the query is within the dates of the materialization. The covering
+ * materialization with the fewest rows, then with the fewest dimensions, is picked.
+ */
+@Slf4j
+public class MaterializationRouter {
+
+    private static final Set<String> ROLLUP_AGGS = new HashSet<>(Arrays.asList("sum", "max", "min"));
+
+    public static Materialization route(QueryStatement queryStatement, AggOption aggOption) {
+        SemanticModel semanticModel = queryStatement.getSemanticModel();
+        MetricQueryParam metricReq = queryStatement.getMetricQueryParam();
+        if (CollectionUtils.isEmpty(semanticModel.getMaterializationList()) || Objects.isNull(metricReq)
+                || CollectionUtils.isEmpty(metricReq.getMetrics()) || metricReq.isNativeQuery()
+                || AggOption.NATIVE.equals(aggOption)) {
+            return null;
+        }
+        Set<String> measures = getMeasures(semanticModel, metricReq.getMetrics());
+        Set<String> dimensions = getDimensions(metricReq, queryStatement.getMinMaxTime());
+        if (Objects.isNull(measures) || Objects.isNull(dimensions)) {
+            return null;
+        }
+        Map<Long, DataSource> modelMap = semanticModel.getModelMap();
+        Optional<Materialization> materialization = semanticModel.getMaterializationList().stream()
+                .filter(m -> covers(m, modelMap.get(m.getModelId()), semanticModel, measures, dimensions,
+                        queryStatement.getMinMaxTime()))
+                .min(Comparator.comparing((Materialization m) -> Optional.ofNullable(m.getRowCount())
+                        .orElse(Long.MAX_VALUE)).thenComparing(m -> m.getDimensions().size()));
+        materialization.ifPresent(m -> log.info("route metrics {} dimensions {} to materialization {}",
+                metricReq.getMetrics(), dimensions, m.getDestinationTable()));
+        return materialization.orElse(null);
+    }
+
+    /**
+     * @return the measures of the metrics, null if a metric is not defined by measures only
+     */
+    private static Set<String> getMeasures(SemanticModel semanticModel, List<String> metrics) {
+        Map<String, Metric> metricMap = semanticModel.getMetrics().stream()
+                .collect(Collectors.toMap(Metric::getName, m -> m, (m1, m2) -> m1));
+        Set<String> measures = new HashSet<>();
+        for (String name : metrics) {
+            Metric metric = metricMap.get(name);
+            if (Objects.isNull(metric) || Objects.isNull(metric.getMetricTypeParams())) {
+                return null;
+            }
+            MetricTypeParams typeParams = metric.getMetricTypeParams();
+            if (CollectionUtils.isEmpty(typeParams.getMeasures()) || !CollectionUtils.isEmpty(typeParams.getMetrics())
+                    || !CollectionUtils.isEmpty(typeParams.getFields()) || typeParams.isFieldMetric()) {
+                return null;
+            }
+            typeParams.getMeasures().forEach(measure -> measures.add(measure.getName()));
+        }
+        return measures;
+    }
+
+    /**
+     * @return the dimensions, the filter fields and the time dimension, null if the filter is not parsed
+     */
+    private static Set<String> getDimensions(MetricQueryParam metricReq, Triple<String, String, String> minMaxTime) {
+        Set<String> dimensions = new HashSet<>();
+        if (!CollectionUtils.isEmpty(metricReq.getDimensions())) {
+            dimensions.addAll(metricReq.getDimensions());
+        }
+        if (StringUtils.isNotBlank(metricReq.getWhere())) {
+            try {
+                dimensions.addAll(SqlSelectHelper.getWhereFields("select 1 from tbl where " + metricReq.getWhere()));
+            } catch (Exception e) {
+                log.debug("parse where fields error, the query is not routed", e);
+                return null;
+            }
+        }
+        if (Objects.nonNull(minMaxTime) && StringUtils.isNotBlank(minMaxTime.getLeft())) {
+            dimensions.add(minMaxTime.getLeft());
+        }
+        return dimensions;
+    }
+
+    private static boolean covers(Materialization materialization, DataSource dataSource, SemanticModel semanticModel,
+            Set<String> measures, Set<String> dimensions, Triple<String, String, String> minMaxTime) {
+        if (Objects.isNull(dataSource) || StringUtils.isBlank(materialization.getDestinationTable())) {
+            return false;
+        }
+        Set<String> measureNames = getNames(materialization.getMetrics());
+        Set<String> dimensionNames = getNames(materialization.getDimensions());
+        Map<String, Measure> sourceMeasures = dataSource.getMeasures().stream()
+                .collect(Collectors.toMap(Measure::getName, m -> m, (m1, m2) -> m1));
+        for (String name : measures) {
+            Measure measure = sourceMeasures.get(name);
+            if (Objects.isNull(measure) || !measureNames.contains(name) || StringUtils.isNotBlank(
+                    measure.getConstraint()) || !ROLLUP_AGGS.contains(StringUtils.lowerCase(measure.getAgg()))
+                    || !isColumn(measure.getExpr())) {
+                return false;
+            }
+        }
+        Map<String, String> sourceDimensions = getDimensionExprs(dataSource, semanticModel);
+        Set<String> columns = new HashSet<>(dimensionNames);
+        dimensionNames.stream().filter(sourceDimensions::containsKey)
+                .forEach(name -> columns.addAll(getColumns(sourceDimensions.get(name))));
+        for (String name : dimensions) {
+            if (!sourceDimensions.containsKey(name)) {
+                return false;
+            }
+            Set<String> exprColumns = getColumns(sourceDimensions.get(name));
+            if (!dimensionNames.contains(name) && (exprColumns.isEmpty() || !columns.containsAll(exprColumns))) {
+                return false;
+            }
+        }
+        return Stream.concat(materialization.getDimensions().stream(), materialization.getMetrics().stream())
+                .allMatch(element -> covers(element.getTimeRangeList(), minMaxTime));
+    }
+
+    private static boolean covers(List<TimeRange> timeRanges, Triple<String, String, String> minMaxTime) {
+        if (CollectionUtils.isEmpty(timeRanges)) {
+            return true;
+        }
+        boolean hasRange = Objects.nonNull(minMaxTime) && StringUtils.isNotBlank(minMaxTime.getMiddle())
+                && StringUtils.isNotBlank(minMaxTime.getRight());
+        for (TimeRange timeRange : timeRanges) {
+            boolean afterStart = StringUtils.isBlank(timeRange.getStart())
+                    || hasRange && timeRange.getStart().compareTo(minMaxTime.getMiddle()) <= 0;
+            boolean beforeEnd = StringUtils.isBlank(timeRange.getEnd())
+                    || hasRange && timeRange.getEnd().compareTo(minMaxTime.getRight()) >= 0;
+            if (afterStart && beforeEnd) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, String> getDimensionExprs(DataSource dataSource, SemanticModel semanticModel) {
+        Map<String, String> exprs = new HashMap<>();
+        Stream.concat(dataSource.getDimensions().stream(), semanticModel.getDimensionMap()
+                        .getOrDefault(dataSource.getName(), Collections.emptyList()).stream())
+                .forEach(dimension -> exprs.putIfAbsent(dimension.getName(), getExpr(dimension)));
+        dataSource.getIdentifiers().stream().map(Identify::getName).forEach(name -> exprs.putIfAbsent(name, name));
+        return exprs;
+    }
+
+    private static String getExpr(Dimension dimension) {
+        return StringUtils.isBlank(dimension.getExpr()) ? dimension.getName() : dimension.getExpr();
+    }
+
+    /**
+     * the rolled up value of a measure is stored under its column, so only plain column measures are read
+     */
+    private static boolean isColumn(String expr) {
+        return StringUtils.isBlank(expr) || getColumns(expr).equals(Collections.singleton(expr.trim()));
+    }
+
+    private static Set<String> getColumns(String expr) {
+        try {
+            return SqlSelectHelper.getColumnFromExpr(expr);
+        } catch (Exception e) {
+            return Collections.emptySet();
+        }
+    }
+
+    private static Set<String> getNames(List<MaterializationElement> elements) {
+        return elements.stream().map(MaterializationElement::getName).collect(Collectors.toSet());
+    }
+}
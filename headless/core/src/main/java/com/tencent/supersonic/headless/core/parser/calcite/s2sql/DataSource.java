@@ -7,7 +7,7 @@ import java.util.List;
 
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class DataSource {
 
     private Long id;
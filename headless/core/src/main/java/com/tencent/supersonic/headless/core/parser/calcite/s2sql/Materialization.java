@@ -44,6 +44,7 @@ public class Materialization {
     private Long dataBase;
     private Long materializationId;
     private Integer level;
+    private Long rowCount;
     private List<MaterializationElement> dimensions = new ArrayList<>();
     private List<MaterializationElement> metrics = new ArrayList<>();
 
@@ -14,6 +14,10 @@ import java.util.stream.Collectors;
 public class SemanticModel {
 
     private String schemaKey;
+    /**
+     * changes every time the model is compiled again, null if the model was changed for one query
+     */
+    private Long version;
     private List<Metric> metrics = new ArrayList<>();
     private Map<String, DataSource> datasourceMap = new HashMap<>();
     private Map<String, List<Dimension>> dimensionMap = new HashMap<>();
@@ -42,6 +42,10 @@ public class SqlVariableParseConverter implements HeadlessConverter {
                 );
                 DataSource dataSource = queryStatement.getSemanticModel()
                         .getDatasourceMap().get(modelResp.getBizName());
+                if (!Objects.equals(sqlParsed, dataSource.getSqlQuery())) {
+                    // the model now depends on the query params, its plan must not be cached
+                    queryStatement.getSemanticModel().setVersion(null);
+                }
                 dataSource.setSqlQuery(sqlParsed);
             }
         }
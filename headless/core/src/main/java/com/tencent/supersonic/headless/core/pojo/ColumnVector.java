@@ -0,0 +1,242 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import com.tencent.supersonic.common.util.DateUtils;
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * A single typed column of a {@link ColumnarResult}. Numeric columns keep their values
+ * in primitive arrays, everything else is stored as normalized objects.
+ */
+public abstract class ColumnVector implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    protected int size;
+
+    public static ColumnVector of(String columnClassName) {
+        if (Long.class.getName().equals(columnClassName)) {
+            return new LongVector();
+        }
+        if (Integer.class.getName().equals(columnClassName)) {
+            return new IntVector();
+        }
+        if (Double.class.getName().equals(columnClassName)) {
+            return new DoubleVector();
+        }
+        return new ObjectVector();
+    }
+
+    public static Object normalize(Object value) {
+        if (value instanceof LocalDate) {
+            LocalDate localDate = (LocalDate) value;
+            return localDate.format(DateTimeFormatter.ofPattern(DateUtils.DATE_FORMAT));
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime localDateTime = (LocalDateTime) value;
+            return localDateTime.format(DateTimeFormatter.ofPattern(DateUtils.TIME_FORMAT));
+        } else if (value instanceof Date) {
+            Date date = (Date) value;
+            return DateUtils.format(date);
+        } else if (value instanceof byte[]) {
+            return new String((byte[]) value);
+        }
+        return value;
+    }
+
+    public static long estimateBytes(Object value) {
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        return value == null ? 0 : 24;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * append the value of the given column of the current row of the result set
+     *
+     * @return estimated heap bytes taken by the appended value
+     */
+    public abstract long read(ResultSet rs, int columnIndex) throws SQLException;
+
+    public abstract Object get(int row);
+
+    /**
+     * overwrite a value, return the vector holding the value afterwards, which differs from
+     * this one when the value type does not fit the primitive storage
+     */
+    public abstract ColumnVector set(int row, Object value);
+
+    protected int grow(int capacity) {
+        return Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+    }
+
+    protected ObjectVector toObjectVector() {
+        ObjectVector objectVector = new ObjectVector();
+        objectVector.values = new Object[Math.max(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            objectVector.values[i] = get(i);
+        }
+        objectVector.size = size;
+        return objectVector;
+    }
+
+    public static class LongVector extends ColumnVector {
+
+        private long[] values = new long[0];
+        private final BitSet nulls = new BitSet();
+
+        @Override
+        public long read(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getLong(columnIndex);
+            nulls.set(size, rs.wasNull());
+            size++;
+            return 8;
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        public ColumnVector set(int row, Object value) {
+            if (value != null && !(value instanceof Long)) {
+                return toObjectVector().set(row, value);
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0L : (Long) value;
+            return this;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            nulls.clear();
+        }
+    }
+
+    public static class IntVector extends ColumnVector {
+
+        private int[] values = new int[0];
+        private final BitSet nulls = new BitSet();
+
+        @Override
+        public long read(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getInt(columnIndex);
+            nulls.set(size, rs.wasNull());
+            size++;
+            return 4;
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        public ColumnVector set(int row, Object value) {
+            if (value != null && !(value instanceof Integer)) {
+                return toObjectVector().set(row, value);
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0 : (Integer) value;
+            return this;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            nulls.clear();
+        }
+    }
+
+    public static class DoubleVector extends ColumnVector {
+
+        private double[] values = new double[0];
+        private final BitSet nulls = new BitSet();
+
+        @Override
+        public long read(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getDouble(columnIndex);
+            nulls.set(size, rs.wasNull());
+            size++;
+            return 8;
+        }
+
+        @Override
+        public Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        public ColumnVector set(int row, Object value) {
+            if (value != null && !(value instanceof Double)) {
+                return toObjectVector().set(row, value);
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0D : (Double) value;
+            return this;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            nulls.clear();
+        }
+    }
+
+    public static class ObjectVector extends ColumnVector {
+
+        private Object[] values = new Object[0];
+
+        @Override
+        public long read(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            Object value = normalize(rs.getObject(columnIndex));
+            values[size++] = value;
+            return 8 + estimateBytes(value);
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public ColumnVector set(int row, Object value) {
+            values[row] = value;
+            return this;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(values, 0, size, null);
+            super.clear();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Query result stored column by column. Rows are read from the result set by column index
+ * into typed {@link ColumnVector}s sharing one column index, and {@link #asRows()} exposes
+ * them lazily to callers that still work with List<Map<String, Object>>.
+ */
+public class ColumnarResult implements Serializable {
+
+    private final List<QueryColumn> columns;
+    private final Map<String, Integer> columnIndex;
+    private final ColumnVector[] vectors;
+    private final Map<Integer, Map<String, Object>> extraValues = new HashMap<>();
+    private int rowCount;
+    private long estimatedBytes;
+
+    public ColumnarResult(List<QueryColumn> columns, List<String> columnClassNames) {
+        this.columns = columns;
+        this.columnIndex = new LinkedHashMap<>();
+        this.vectors = new ColumnVector[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndex.put(columns.get(i).getNameEn(), i);
+            vectors[i] = ColumnVector.of(columnClassNames.get(i));
+        }
+    }
+
+    public static ColumnarResult of(ResultSetMetaData metaData) throws SQLException {
+        List<QueryColumn> queryColumns = new ArrayList<>();
+        List<String> columnClassNames = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            queryColumns.add(new QueryColumn(metaData.getColumnLabel(i), metaData.getColumnTypeName(i)));
+            columnClassNames.add(metaData.getColumnClassName(i));
+        }
+        return new ColumnarResult(queryColumns, columnClassNames);
+    }
+
+    public List<QueryColumn> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    public Integer indexOf(String columnName) {
+        return columnIndex.get(columnName);
+    }
+
+    /**
+     * append the current row of the result set
+     */
+    public void readRow(ResultSet rs) throws SQLException {
+        for (int i = 0; i < vectors.length; i++) {
+            estimatedBytes += vectors[i].read(rs, i + 1);
+        }
+        rowCount++;
+    }
+
+    public Object getValue(int row, int column) {
+        return vectors[column].get(row);
+    }
+
+    public void setValue(int row, int column, Object value) {
+        vectors[column] = vectors[column].set(row, value);
+    }
+
+    public void clear() {
+        for (ColumnVector vector : vectors) {
+            vector.clear();
+        }
+        extraValues.clear();
+        rowCount = 0;
+        estimatedBytes = 0;
+    }
+
+    /**
+     * estimated heap bytes of the values read so far, maintained while reading
+     */
+    public long estimateBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * estimated heap bytes of a result list, columnar rows use the estimate maintained while reading
+     */
+    public static long estimateBytes(List<Map<String, Object>> rows) {
+        if (rows instanceof RowListView && ((RowListView) rows).rows == null) {
+            return ((RowListView) rows).result.estimateBytes();
+        }
+        long bytes = 0;
+        for (Map<String, Object> row : rows) {
+            for (Object value : row.values()) {
+                bytes += 32 + ColumnVector.estimateBytes(value);
+            }
+        }
+        return bytes;
+    }
+
+    public List<Map<String, Object>> asRows() {
+        return new RowListView(this);
+    }
+
+    /**
+     * Rows read by position from the columns. The first set, add or remove switches the list to
+     * an array of its row views, so rows can be moved around like in any list without copying
+     * values from one position of the columns to another.
+     */
+    private static class RowListView extends AbstractList<Map<String, Object>> implements Serializable {
+
+        private final ColumnarResult result;
+        private List<Map<String, Object>> rows;
+
+        RowListView(ColumnarResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public Map<String, Object> get(int index) {
+            if (rows != null) {
+                return rows.get(index);
+            }
+            if (index < 0 || index >= result.rowCount) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + result.rowCount);
+            }
+            return new RowView(result, index);
+        }
+
+        @Override
+        public Map<String, Object> set(int index, Map<String, Object> row) {
+            return rows().set(index, row);
+        }
+
+        @Override
+        public void add(int index, Map<String, Object> row) {
+            rows().add(index, row);
+            modCount++;
+        }
+
+        @Override
+        public Map<String, Object> remove(int index) {
+            Map<String, Object> previous = rows().remove(index);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return rows != null ? rows.size() : result.rowCount;
+        }
+
+        private List<Map<String, Object>> rows() {
+            if (rows == null) {
+                List<Map<String, Object>> views = new ArrayList<>(result.rowCount);
+                for (int i = 0; i < result.rowCount; i++) {
+                    views.add(new RowView(result, i));
+                }
+                rows = views;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * A row read from the columns. Removing a key detaches the row into a map of its own, as the
+     * columns can not drop a value of a single row.
+     */
+    private static class RowView extends AbstractMap<String, Object> implements Serializable {
+
+        private final ColumnarResult result;
+        private final int row;
+        private Map<String, Object> detached;
+
+        RowView(ColumnarResult result, int row) {
+            this.result = result;
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (detached != null) {
+                return detached.get(key);
+            }
+            Integer column = result.columnIndex.get(key);
+            if (column != null) {
+                return result.getValue(row, column);
+            }
+            return extra().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (detached != null) {
+                return detached.containsKey(key);
+            }
+            return result.columnIndex.containsKey(key) || extra().containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            if (detached != null) {
+                return detached.put(key, value);
+            }
+            Integer column = result.columnIndex.get(key);
+            if (column != null) {
+                Object previous = result.getValue(row, column);
+                result.setValue(row, column, value);
+                return previous;
+            }
+            return result.extraValues.computeIfAbsent(row, r -> new LinkedHashMap<>()).put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return detach().remove(key);
+        }
+
+        @Override
+        public int size() {
+            if (detached != null) {
+                return detached.size();
+            }
+            return result.columnIndex.size() + extra().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (detached != null) {
+                return detached.entrySet();
+            }
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return detached != null ? detached.entrySet().iterator() : new RowIterator();
+                }
+
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+            };
+        }
+
+        private Map<String, Object> detach() {
+            if (detached == null) {
+                Map<String, Object> copy = new LinkedHashMap<>();
+                new RowIterator().forEachRemaining(entry -> copy.put(entry.getKey(), entry.getValue()));
+                detached = copy;
+            }
+            return detached;
+        }
+
+        private Map<String, Object> extra() {
+            Map<String, Object> extra = result.extraValues.get(row);
+            return extra == null ? Collections.emptyMap() : extra;
+        }
+
+        private class RowIterator implements Iterator<Entry<String, Object>> {
+
+            private final Iterator<Entry<String, Object>> extraIterator = extra().entrySet().iterator();
+            private int column;
+            private Entry<String, Object> last;
+
+            @Override
+            public boolean hasNext() {
+                skipShadowedColumns();
+                return column < result.vectors.length || extraIterator.hasNext();
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                skipShadowedColumns();
+                if (column < result.vectors.length) {
+                    String key = result.columns.get(column).getNameEn();
+                    last = new SimpleImmutableEntry<>(key, result.getValue(row, column++));
+                    return last;
+                }
+                if (!extraIterator.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = extraIterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                detach().remove(last.getKey());
+                last = null;
+            }
+
+            // duplicated column labels keep the last value, as a LinkedHashMap row used to
+            private void skipShadowedColumns() {
+                while (column < result.vectors.length
+                        && result.columnIndex.get(result.columns.get(column).getNameEn()) != column) {
+                    column++;
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.core.pojo;
 
 import com.tencent.supersonic.headless.api.pojo.QueryParam;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
 import lombok.Data;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -32,6 +33,11 @@ public class QueryStatement {
 
     private SemanticModel semanticModel;
 
+    /**
+     * the materialization the metric query is routed to, null if it reads the source models
+     */
+    private Materialization materialization;
+
     private SemanticSchemaResp semanticSchemaResp;
 
     public boolean isOk() {
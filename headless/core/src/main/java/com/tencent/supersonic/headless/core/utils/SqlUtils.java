@@ -2,31 +2,30 @@ package com.tencent.supersonic.headless.core.utils;
 
 import static com.tencent.supersonic.common.pojo.Constants.AT_SYMBOL;
 
-import com.tencent.supersonic.common.pojo.QueryColumn;
-import com.tencent.supersonic.common.util.DateUtils;
+import com.alibaba.druid.pool.DruidDataSource;
 import com.tencent.supersonic.headless.api.pojo.enums.DataType;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryCursor;
+import com.tencent.supersonic.headless.core.executor.ResultRowHandler;
+import com.tencent.supersonic.headless.core.pojo.ColumnarResult;
 import com.tencent.supersonic.headless.core.pojo.Database;
 import com.tencent.supersonic.headless.core.pojo.JdbcDataSource;
 import java.rmi.ServerException;
 import java.sql.Connection;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.LinkedHashMap;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.sql.DataSource;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 
 /**
@@ -45,6 +44,12 @@ public class SqlUtils {
     @Value("${source.result-limit:1000000}")
     private int resultLimit;
 
+    @Value("${source.result-bytes-limit:536870912}")
+    private long resultBytesLimit;
+
+    @Value("${source.fetch-size:500}")
+    private int fetchSize;
+
     @Value("${source.enable-query-log:false}")
     private boolean isQueryLogEnable;
 
@@ -54,6 +59,12 @@ public class SqlUtils {
     @Getter
     private JdbcDataSourceUtils jdbcDataSourceUtils;
 
+    private final Map<Long, SqlUtils> handles = new ConcurrentHashMap<>();
+
+    private Database origin;
+
+    private volatile JdbcTemplate jdbcTemplate;
+
     public SqlUtils() {
 
     }
@@ -63,19 +74,24 @@ public class SqlUtils {
         this.dataTypeEnum = DataType.urlOf(database.getUrl());
     }
 
+    /**
+     * get the execution handle of the database, handles are cached by database id and rebuilt
+     * when the connection info changes or the database is invalidated
+     */
     public SqlUtils init(Database database) {
-        //todo Password decryption
-        return SqlUtilsBuilder
-                .getBuilder()
-                .withName(database.getId() + AT_SYMBOL + database.getName())
-                .withType(database.getType())
-                .withJdbcUrl(database.getUrl())
-                .withUsername(database.getUsername())
-                .withPassword(database.getPassword())
-                .withJdbcDataSource(this.jdbcDataSource)
-                .withResultLimit(this.resultLimit)
-                .withIsQueryLogEnable(this.isQueryLogEnable)
-                .build();
+        if (database.getId() == null) {
+            return build(database);
+        }
+        SqlUtils sqlUtils = handles.get(database.getId());
+        if (sqlUtils != null && sqlUtils.isSameConnection(database)) {
+            return sqlUtils;
+        }
+        return handles.compute(database.getId(), (id, cached) ->
+                cached != null && cached.isSameConnection(database) ? cached : build(database));
+    }
+
+    public void invalidate(Long databaseId) {
+        handles.remove(databaseId);
     }
 
     public List<Map<String, Object>> execute(String sql) throws ServerException {
@@ -94,89 +110,198 @@ public class SqlUtils {
     }
 
     public JdbcTemplate jdbcTemplate() throws RuntimeException {
+        JdbcTemplate jdbcTemplate = this.jdbcTemplate;
+        if (jdbcTemplate != null && !isClosed(jdbcTemplate.getDataSource())) {
+            return jdbcTemplate;
+        }
+        synchronized (this) {
+            if (this.jdbcTemplate == null || isClosed(this.jdbcTemplate.getDataSource())) {
+                this.jdbcTemplate = createJdbcTemplate();
+            }
+            return this.jdbcTemplate;
+        }
+    }
+
+    /**
+     * open a server-side cursor, the caller owns the returned cursor and has to close it
+     */
+    public QueryCursor openCursor(String sql) {
         Connection connection = null;
         try {
-            connection = jdbcDataSourceUtils.getConnection(database);
-        } catch (Exception e) {
-            log.warn("e:", e);
-        } finally {
+            connection = jdbcTemplate().getDataSource().getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            if (DataType.POSTGRESQL.equals(dataTypeEnum) && autoCommit) {
+                // postgresql only fetches by cursor inside a transaction
+                connection.setAutoCommit(false);
+            }
+            Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(getFetchSize());
+            if (resultLimit > 0) {
+                statement.setMaxRows(resultLimit + 1);
+            }
+            ResultSet resultSet = statement.executeQuery(sql);
+            return new QueryCursor(connection, statement, resultSet, autoCommit, resultLimit, resultBytesLimit);
+        } catch (SQLException e) {
             JdbcDataSourceUtils.releaseConnection(connection);
+            log.error("open cursor error, sql:{}", sql, e);
+            throw new RuntimeException(e.getMessage());
         }
+    }
+
+    private SqlUtils build(Database database) {
+        //todo Password decryption
+        SqlUtils sqlUtils = SqlUtilsBuilder
+                .getBuilder()
+                .withName(database.getId() + AT_SYMBOL + database.getName())
+                .withType(database.getType())
+                .withJdbcUrl(database.getUrl())
+                .withUsername(database.getUsername())
+                .withPassword(database.getPassword())
+                .withJdbcDataSource(this.jdbcDataSource)
+                .withResultLimit(this.resultLimit)
+                .withResultBytesLimit(this.resultBytesLimit)
+                .withFetchSize(this.fetchSize)
+                .withIsQueryLogEnable(this.isQueryLogEnable)
+                .build();
+        sqlUtils.origin = database;
+        return sqlUtils;
+    }
+
+    private boolean isSameConnection(Database database) {
+        return Objects.equals(origin.getName(), database.getName())
+                && Objects.equals(origin.getType(), database.getType())
+                && Objects.equals(origin.getUrl(), database.getUrl())
+                && Objects.equals(origin.getUsername(), database.getUsername())
+                && Objects.equals(origin.getPassword(), database.getPassword());
+    }
+
+    private JdbcTemplate createJdbcTemplate() {
         DataSource dataSource = jdbcDataSourceUtils.getDataSource(database);
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
         jdbcTemplate.setDatabaseProductName(database.getName());
-        jdbcTemplate.setFetchSize(500);
+        jdbcTemplate.setFetchSize(getFetchSize());
+        if (resultLimit > 0) {
+            // one more row than the limit tells whether the result was truncated
+            jdbcTemplate.setMaxRows(resultLimit + 1);
+        }
         return jdbcTemplate;
     }
 
+    private boolean isClosed(DataSource dataSource) {
+        return dataSource instanceof DruidDataSource && ((DruidDataSource) dataSource).isClosed();
+    }
+
+    /**
+     * mysql only streams rows one by one with Integer.MIN_VALUE, clickhouse and presto stream by
+     * their native cursors and take the fetch size as a block hint, other drivers batch by fetch size
+     */
+    private int getFetchSize() {
+        if (DataType.MYSQL.equals(dataTypeEnum)) {
+            return Integer.MIN_VALUE;
+        }
+        if (DataType.CLICKHOUSE.equals(dataTypeEnum) || DataType.PRESTO.equals(dataTypeEnum)) {
+            return Math.max(fetchSize, 10000);
+        }
+        return fetchSize;
+    }
+
     public void queryInternal(String sql, SemanticQueryResp queryResultWithColumns) {
         getResult(sql, queryResultWithColumns, jdbcTemplate());
     }
 
+    /**
+     * read the result set in batches of the fetch size and hand each batch to the handler
+     * while the cursor is still open, so the full result is never held in memory
+     */
+    public void queryStream(String sql, ResultRowHandler handler) {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        int batchSize = Math.max(fetchSize, 1);
+        jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+            ColumnarResult batch = ColumnarResult.of(rs.getMetaData());
+            handler.onColumns(batch.getColumns());
+            List<Map<String, Object>> rows = batch.asRows();
+            long rowCount = 0;
+            while (rs.next()) {
+                if (resultLimit > 0 && rowCount >= resultLimit) {
+                    log.warn("stream result exceeds the limit of {} rows, the rest is dropped", resultLimit);
+                    handler.onTruncated();
+                    break;
+                }
+                batch.readRow(rs);
+                rowCount++;
+                if (batch.getRowCount() >= batchSize) {
+                    handler.onRows(rows);
+                    batch.clear();
+                }
+            }
+            if (batch.getRowCount() > 0) {
+                handler.onRows(rows);
+            }
+            handler.onComplete();
+            return null;
+        });
+    }
+
     private SemanticQueryResp getResult(String sql, SemanticQueryResp queryResultWithColumns,
             JdbcTemplate jdbcTemplate) {
         jdbcTemplate.query(sql, rs -> {
             if (null == rs) {
                 return queryResultWithColumns;
             }
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            List<QueryColumn> queryColumns = new ArrayList<>();
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                String key = metaData.getColumnLabel(i);
-                queryColumns.add(new QueryColumn(key, metaData.getColumnTypeName(i)));
-            }
-            queryResultWithColumns.setColumns(queryColumns);
-
-            List<Map<String, Object>> resultList = getAllData(rs, queryColumns);
-            queryResultWithColumns.setResultList(resultList);
+            ColumnarResult columnarResult = ColumnarResult.of(rs.getMetaData());
+            queryResultWithColumns.setColumns(columnarResult.getColumns());
+            queryResultWithColumns.setTruncated(getAllData(rs, columnarResult));
+            queryResultWithColumns.setResultList(columnarResult.asRows());
             return queryResultWithColumns;
         });
         return queryResultWithColumns;
     }
 
-    private List<Map<String, Object>> getAllData(ResultSet rs, List<QueryColumn> queryColumns) {
-        List<Map<String, Object>> data = new ArrayList<>();
+    /**
+     * read rows until the row or byte budget is used up
+     *
+     * @return whether rows were left unread
+     */
+    private boolean getAllData(ResultSet rs, ColumnarResult columnarResult) {
         try {
             while (rs.next()) {
-                data.add(getLineData(rs, queryColumns));
+                if (isOverBudget(columnarResult)) {
+                    log.warn("result exceeds the budget, rows:{}, bytes:{}, the rest is dropped",
+                            columnarResult.getRowCount(), columnarResult.estimateBytes());
+                    cancelQuietly(rs);
+                    return true;
+                }
+                columnarResult.readRow(rs);
             }
         } catch (Exception e) {
             log.warn("error in getAllData, e:", e);
         }
-        return data;
+        return false;
     }
 
-    private Map<String, Object> getLineData(ResultSet rs, List<QueryColumn> queryColumns) throws SQLException {
-        Map<String, Object> map = new LinkedHashMap<>();
-        for (QueryColumn queryColumn : queryColumns) {
-            String colName = queryColumn.getNameEn();
-            Object value = rs.getObject(colName);
-            map.put(colName, getValue(value));
-        }
-        return map;
+    private boolean isOverBudget(ColumnarResult columnarResult) {
+        return (resultLimit > 0 && columnarResult.getRowCount() >= resultLimit)
+                || (resultBytesLimit > 0 && columnarResult.estimateBytes() >= resultBytesLimit);
     }
 
-    private Object getValue(Object value) {
-        if (value instanceof LocalDate) {
-            LocalDate localDate = (LocalDate) value;
-            return localDate.format(DateTimeFormatter.ofPattern(DateUtils.DATE_FORMAT));
-        } else if (value instanceof LocalDateTime) {
-            LocalDateTime localDateTime = (LocalDateTime) value;
-            return localDateTime.format(DateTimeFormatter.ofPattern(DateUtils.TIME_FORMAT));
-        } else if (value instanceof Date) {
-            Date date = (Date) value;
-            return DateUtils.format(date);
-        } else if (value instanceof byte[]) {
-            return new String((byte[]) value);
+    /**
+     * stop the engine from sending the remaining rows, streaming drivers would read them all on close
+     */
+    private void cancelQuietly(ResultSet rs) {
+        try {
+            rs.getStatement().cancel();
+        } catch (Exception e) {
+            log.debug("cancel statement error", e);
         }
-        return value;
     }
 
     public static final class SqlUtilsBuilder {
 
         private JdbcDataSource jdbcDataSource;
         private int resultLimit;
+        private long resultBytesLimit;
+        private int fetchSize;
         private boolean isQueryLogEnable;
         private String name;
         private String type;
@@ -202,6 +327,16 @@ public class SqlUtils {
             return this;
         }
 
+        SqlUtilsBuilder withResultBytesLimit(long resultBytesLimit) {
+            this.resultBytesLimit = resultBytesLimit;
+            return this;
+        }
+
+        SqlUtilsBuilder withFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
         SqlUtilsBuilder withIsQueryLogEnable(boolean isQueryLogEnable) {
             this.isQueryLogEnable = isQueryLogEnable;
             return this;
@@ -244,6 +379,8 @@ public class SqlUtils {
             SqlUtils sqlUtils = new SqlUtils(database);
             sqlUtils.jdbcDataSource = this.jdbcDataSource;
             sqlUtils.resultLimit = this.resultLimit;
+            sqlUtils.resultBytesLimit = this.resultBytesLimit;
+            sqlUtils.fetchSize = this.fetchSize;
             sqlUtils.isQueryLogEnable = this.isQueryLogEnable;
             sqlUtils.jdbcDataSourceUtils = new JdbcDataSourceUtils(this.jdbcDataSource);
 
@@ -0,0 +1,163 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DefaultQueryCacheTest {
+
+    @Test
+    void testConcurrentLoad() throws Exception {
+        DefaultQueryCache queryCache = buildQueryCache();
+        QuerySqlReq querySqlReq = buildReq();
+        String cacheKey = queryCache.getCacheKey(querySqlReq);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executorService.submit(() -> queryCache.load(querySqlReq, cacheKey, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                release.await();
+                return "result";
+            }));
+            started.await();
+            Future<Object> second = executorService.submit(() -> queryCache.load(querySqlReq, cacheKey, () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+            Assertions.assertEquals("result", first.get());
+            Assertions.assertEquals("result", second.get());
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void testUncachedLoad() throws Exception {
+        DefaultQueryCache queryCache = buildQueryCache();
+        QuerySqlReq querySqlReq = buildReq();
+        QuerySqlReq uncachedReq = buildReq();
+        uncachedReq.getCacheInfo().setCache(false);
+        String cacheKey = queryCache.getCacheKey(querySqlReq);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> cached = executorService.submit(() -> queryCache.load(querySqlReq, cacheKey, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                release.await();
+                return "result";
+            }));
+            started.await();
+            Future<Object> uncached = executorService.submit(() -> queryCache.load(uncachedReq, cacheKey, () -> {
+                loads.incrementAndGet();
+                return "fresh";
+            }));
+            Assertions.assertEquals("fresh", uncached.get(5, TimeUnit.SECONDS));
+            release.countDown();
+            Assertions.assertEquals("result", cached.get());
+            Assertions.assertEquals(2, loads.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void testEvict() throws Exception {
+        DefaultQueryCache queryCache = buildQueryCache();
+        QuerySqlReq querySqlReq = buildReq();
+        String cacheKey = queryCache.getCacheKey(querySqlReq);
+        queryCache.load(querySqlReq, cacheKey, () -> "result");
+        Assertions.assertEquals("result", queryCache.query(querySqlReq, cacheKey));
+        queryCache.evict(Collections.singletonList(2L));
+        Assertions.assertEquals(cacheKey, queryCache.getCacheKey(querySqlReq));
+        queryCache.evict(Collections.singletonList(1L));
+        String newKey = queryCache.getCacheKey(querySqlReq);
+        Assertions.assertNotEquals(cacheKey, newKey);
+        Assertions.assertNull(queryCache.query(querySqlReq, newKey));
+    }
+
+    @Test
+    void testVersionsSurviveRestart(@TempDir Path directory) throws Exception {
+        TieredCacheManager cacheManager = buildTieredCacheManager(directory);
+        DefaultQueryCache queryCache = buildQueryCache(cacheManager);
+        QuerySqlReq querySqlReq = buildReq();
+        queryCache.evict(Collections.singletonList(1L));
+        String cacheKey = queryCache.getCacheKey(querySqlReq);
+        queryCache.load(querySqlReq, cacheKey, () -> "result");
+        cacheManager.destroy();
+
+        DefaultQueryCache restarted = buildQueryCache(buildTieredCacheManager(directory));
+        restarted.init();
+        Assertions.assertEquals(cacheKey, restarted.getCacheKey(querySqlReq));
+        Assertions.assertEquals("result", restarted.query(querySqlReq, cacheKey));
+    }
+
+    private QuerySqlReq buildReq() {
+        QuerySqlReq querySqlReq = new QuerySqlReq();
+        querySqlReq.setSql("select 1");
+        querySqlReq.addModelId(1L);
+        return querySqlReq;
+    }
+
+    private DefaultQueryCache buildQueryCache() {
+        return buildQueryCache(buildCaffeineCacheManager(buildConfig()));
+    }
+
+    private DefaultQueryCache buildQueryCache(CacheManager cacheManager) {
+        DefaultQueryCache queryCache = new DefaultQueryCache();
+        ReflectionTestUtils.setField(queryCache, "cacheEnable", true);
+        ReflectionTestUtils.setField(queryCache, "cacheManager", cacheManager);
+        return queryCache;
+    }
+
+    private TieredCacheManager buildTieredCacheManager(Path directory) {
+        CacheCommonConfig cacheCommonConfig = buildConfig();
+        cacheCommonConfig.setCacheCommonDiskEnable(true);
+        cacheCommonConfig.setCacheCommonDiskPath(directory.toString());
+        cacheCommonConfig.setCacheCommonDiskMaxSizeMb(16L);
+        cacheCommonConfig.setCacheCommonExpireAfterWrite(10);
+        cacheCommonConfig.setCacheCommonDiskPromoteHits(2);
+        cacheCommonConfig.setCacheCommonHeapMaxEntryKb(1024);
+        TieredCacheManager cacheManager = new TieredCacheManager();
+        ReflectionTestUtils.setField(cacheManager, "cacheCommonConfig", cacheCommonConfig);
+        ReflectionTestUtils.setField(cacheManager, "caffeineCacheManager",
+                buildCaffeineCacheManager(cacheCommonConfig));
+        cacheManager.init();
+        return cacheManager;
+    }
+
+    private CaffeineCacheManager buildCaffeineCacheManager(CacheCommonConfig cacheCommonConfig) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        ReflectionTestUtils.setField(cacheManager, "cacheCommonConfig", cacheCommonConfig);
+        ReflectionTestUtils.setField(cacheManager, "caffeineCache", Caffeine.newBuilder().build());
+        return cacheManager;
+    }
+
+    private CacheCommonConfig buildConfig() {
+        CacheCommonConfig cacheCommonConfig = new CacheCommonConfig();
+        cacheCommonConfig.setCacheCommonApp("supersonic");
+        cacheCommonConfig.setCacheCommonEnv("test");
+        cacheCommonConfig.setCacheCommonVersion(0);
+        return cacheCommonConfig;
+    }
+}
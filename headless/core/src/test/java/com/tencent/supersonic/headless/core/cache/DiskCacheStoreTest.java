@@ -0,0 +1,93 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class DiskCacheStoreTest {
+
+    private static final long EXPIRE = TimeUnit.MINUTES.toMillis(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReload() throws Exception {
+        SemanticQueryResp semanticQueryResp = new SemanticQueryResp();
+        semanticQueryResp.setColumns(Collections.singletonList(new QueryColumn("name", "VARCHAR", "name")));
+        semanticQueryResp.setResultList(Collections.singletonList(Collections.singletonMap("name", "a")));
+        DiskCacheStore diskCacheStore = new DiskCacheStore(directory, 1024 * 1024, EXPIRE);
+        diskCacheStore.load();
+        diskCacheStore.put("a:b:0:1:key", DiskCacheStore.serialize(semanticQueryResp));
+
+        DiskCacheStore reloaded = new DiskCacheStore(directory, 1024 * 1024, EXPIRE);
+        reloaded.load();
+        SemanticQueryResp cached = (SemanticQueryResp) reloaded.get("a:b:0:1:key");
+        Assertions.assertEquals("a", cached.getResultList().get(0).get("name"));
+        Assertions.assertEquals("name", cached.getColumns().get(0).getNameEn());
+        Assertions.assertEquals(1, reloaded.getHits("a:b:0:1:key"));
+        reloaded.removeIf(key -> key.endsWith("key"));
+        Assertions.assertNull(reloaded.get("a:b:0:1:key"));
+    }
+
+    @Test
+    void testEvictOversize() throws Exception {
+        DiskCacheStore diskCacheStore = new DiskCacheStore(directory, 3000, EXPIRE);
+        diskCacheStore.load();
+        byte[] value = DiskCacheStore.serialize(new byte[1000]);
+        diskCacheStore.put("first", value);
+        diskCacheStore.put("second", value);
+        Assertions.assertNotNull(diskCacheStore.get("first"));
+        diskCacheStore.put("third", value);
+        Assertions.assertEquals(2, diskCacheStore.size());
+        Assertions.assertNull(diskCacheStore.get("second"));
+        Assertions.assertNotNull(diskCacheStore.get("first"));
+    }
+
+    @Test
+    void testConcurrentPut() throws Exception {
+        DiskCacheStore diskCacheStore = new DiskCacheStore(directory, 1024 * 1024, EXPIRE);
+        diskCacheStore.load();
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                byte[] value = DiskCacheStore.serialize("value" + i);
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 20; j++) {
+                        diskCacheStore.put("key", value);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        Assertions.assertTrue(((String) diskCacheStore.get("key")).startsWith("value"));
+        Assertions.assertEquals(1, diskCacheStore.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.exception.InvalidArgumentException;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class QueryCursorManagerTest {
+
+    @Test
+    void testLeaveOneConnectionPerSource() throws Exception {
+        QueryCursorManager queryCursorManager = buildManager(16, 2);
+        QueryCursor cursor = queryCursorManager.open("1", () -> openCursor("cursor_source_1"));
+        SemanticQueryResp firstPage = queryCursorManager.register(cursor, "admin", 1);
+
+        AtomicInteger opened = new AtomicInteger();
+        Assertions.assertThrows(InvalidArgumentException.class, () -> queryCursorManager.open("1", () -> {
+            opened.incrementAndGet();
+            return openCursor("cursor_source_1_more");
+        }));
+        Assertions.assertEquals(0, opened.get());
+
+        QueryCursor other = queryCursorManager.open("2", () -> openCursor("cursor_source_2"));
+        Assertions.assertNotNull(other);
+        other.close();
+
+        queryCursorManager.close(firstPage.getContinuationToken());
+        Assertions.assertNotNull(queryCursorManager.open("1", () -> openCursor("cursor_source_1_again")));
+    }
+
+    @Test
+    void testReleaseWhenNotOpened() {
+        QueryCursorManager queryCursorManager = buildManager(1, 2);
+        Assertions.assertNull(queryCursorManager.open("1", () -> null));
+        Assertions.assertThrows(IllegalStateException.class, () -> queryCursorManager.open("1", () -> {
+            throw new IllegalStateException("open failed");
+        }));
+        Assertions.assertNotNull(queryCursorManager.open("1", () -> openCursor("cursor_release")));
+    }
+
+    @Test
+    void testEvictIdleWhenFull() throws Exception {
+        QueryCursorManager queryCursorManager = buildManager(1, 4);
+        QueryCursor cursor = queryCursorManager.open("1", () -> openCursor("cursor_idle"));
+        queryCursorManager.register(cursor, "admin", 1);
+        ReflectionTestUtils.setField(queryCursorManager, "idleTimeoutSeconds", -1L);
+        Assertions.assertNotNull(queryCursorManager.open("1", () -> openCursor("cursor_idle_next")));
+        Assertions.assertThrows(InvalidArgumentException.class,
+                () -> queryCursorManager.fetch(cursor.getToken(), "admin", null));
+    }
+
+    private QueryCursorManager buildManager(int maxOpen, int sourceMaxActive) {
+        QueryCursorManager queryCursorManager = new QueryCursorManager();
+        ReflectionTestUtils.setField(queryCursorManager, "maxOpen", maxOpen);
+        ReflectionTestUtils.setField(queryCursorManager, "sourceMaxActive", sourceMaxActive);
+        ReflectionTestUtils.setField(queryCursorManager, "idleTimeoutSeconds", 20L);
+        return queryCursorManager;
+    }
+
+    private QueryCursor openCursor(String name) {
+        try {
+            Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name);
+            Statement statement = connection.createStatement();
+            return new QueryCursor(connection, statement,
+                    statement.executeQuery("select x as id from system_range(1, 3)"), true, 0, 0);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
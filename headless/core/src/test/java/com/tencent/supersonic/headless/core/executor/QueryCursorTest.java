@@ -0,0 +1,45 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+class QueryCursorTest {
+
+    @Test
+    void testNextPage() throws Exception {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:cursor");
+        Statement statement = connection.createStatement();
+        statement.execute("create table t as select x as id from system_range(1, 5)");
+        try (QueryCursor cursor = new QueryCursor(connection, statement,
+                statement.executeQuery("select id from t order by id"), true, 0, 0)) {
+            SemanticQueryResp page = cursor.nextPage(2);
+            Assertions.assertEquals(2, page.getResultList().size());
+            Assertions.assertEquals(cursor.getToken(), page.getContinuationToken());
+            cursor.nextPage(2);
+            page = cursor.nextPage(2);
+            Assertions.assertEquals(1, page.getResultList().size());
+            Assertions.assertEquals(5L, page.getResultList().get(0).get("ID"));
+            Assertions.assertNull(page.getContinuationToken());
+            Assertions.assertFalse(page.isTruncated());
+        }
+        Assertions.assertTrue(connection.isClosed());
+    }
+
+    @Test
+    void testRowLimit() throws Exception {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:cursor_limit");
+        Statement statement = connection.createStatement();
+        try (QueryCursor cursor = new QueryCursor(connection, statement,
+                statement.executeQuery("select x as id from system_range(1, 10)"), true, 3, 0)) {
+            SemanticQueryResp page = cursor.nextPage(5);
+            Assertions.assertEquals(3, page.getResultList().size());
+            Assertions.assertTrue(page.isTruncated());
+            Assertions.assertNull(page.getContinuationToken());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import com.hankcs.hanlp.LoadRemoveService;
+import com.hankcs.hanlp.collection.trie.bintrie.BaseNode;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * concurrent prefix search over 200k words with model filtering. The legacy path is the former
+ * breadth first walk over the mutable BinTrie, rebuilt on its public api with a string prefix per
+ * queued node instead of writing it into the shared nodes, the snapshot path walks the immutable
+ * KnowledgeTrie. run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KnowledgeTrieBenchmark {
+
+    private static final int LIMIT = 200;
+
+    private static final char[] ALPHABET = "abcdefghijklmnop".toCharArray();
+
+    private final LoadRemoveService loadRemoveService = new LoadRemoveService();
+
+    private BinTrie<List<String>> binTrie;
+
+    private KnowledgeTrie knowledgeTrie;
+
+    private String[] keys;
+
+    private Set<Long> detectModelIds;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(KnowledgeTrieBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        binTrie = new BinTrie<>();
+        while (binTrie.size() < 200000) {
+            char[] word = new char[2 + random.nextInt(7)];
+            for (int i = 0; i < word.length; i++) {
+                word[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            long modelId = random.nextInt(50);
+            binTrie.put(new String(word), Arrays.asList("_" + modelId + "_" + random.nextInt(1000) + "_dimension"));
+        }
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>(binTrie.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        knowledgeTrie = KnowledgeTrie.build(entries);
+        keys = new String[256];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new String(new char[]{ALPHABET[random.nextInt(ALPHABET.length)],
+                    ALPHABET[random.nextInt(ALPHABET.length)]});
+        }
+        detectModelIds = new HashSet<>(Arrays.asList(1L, 7L, 23L));
+    }
+
+    @Benchmark
+    public Set<Map.Entry<String, List<String>>> legacyWalk() {
+        String key = nextKey();
+        BaseNode<List<String>> branch = binTrie.transition(key, 0);
+        Set<Map.Entry<String, List<String>>> entrySet = new TreeSet<>(Map.Entry.comparingByKey());
+        if (branch == null) {
+            return entrySet;
+        }
+        Queue<Map.Entry<String, BaseNode<List<String>>>> queue = new ArrayDeque<>();
+        queue.add(new AbstractMap.SimpleEntry<>(key, branch));
+        while (!queue.isEmpty() && entrySet.size() < LIMIT) {
+            Map.Entry<String, BaseNode<List<String>>> current = queue.poll();
+            BaseNode<List<String>> node = current.getValue();
+            if (node.getStatus() == BaseNode.Status.WORD_MIDDLE_2 || node.getStatus() == BaseNode.Status.WORD_END_3) {
+                entrySet.add(new AbstractMap.SimpleEntry<>(current.getKey(),
+                        loadRemoveService.removeNatures(node.getValue(), detectModelIds)));
+            }
+            for (char c : ALPHABET) {
+                BaseNode<List<String>> child = node.getChild(c);
+                if (child != null) {
+                    queue.add(new AbstractMap.SimpleEntry<>(current.getKey() + c, child));
+                }
+            }
+        }
+        return entrySet;
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, List<String>>> snapshotSearch() {
+        return knowledgeTrie.prefixSearch(nextKey(), LIMIT, detectModelIds);
+    }
+
+    private String nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,124 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+class KnowledgeTrieTest {
+
+    @Test
+    void testPrefixSearchOrder() {
+        KnowledgeTrie trie = build(
+                entry("ab", "_1_2_metric"),
+                entry("abc", "_1_3_dimension"),
+                entry("abd", "_2_4_dimension"),
+                entry("abcde", "nz"),
+                entry("b", "_1_2_metric"));
+        Assertions.assertEquals(Arrays.asList("ab", "abc", "abd", "abcde"), words(trie.prefixSearch("a", 10,
+                Collections.emptySet())));
+        Assertions.assertEquals(Arrays.asList("ab", "abc"), words(trie.prefixSearch("a", 2, Collections.emptySet())));
+        Assertions.assertEquals(Collections.singletonList("abcde"), words(trie.prefixSearch("abcde", 10,
+                Collections.emptySet())));
+        Assertions.assertTrue(trie.prefixSearch("x", 10, Collections.emptySet()).isEmpty());
+        Assertions.assertTrue(trie.prefixSearch("abcdef", 10, Collections.emptySet()).isEmpty());
+    }
+
+    @Test
+    void testModelFilter() {
+        KnowledgeTrie trie = build(
+                entry("ab", "_1_2_metric", "_2_2_metric"),
+                entry("abc", "_1_3_dimension"),
+                entry("abd", "_2_4_dimension"),
+                entry("abcde", "nz"));
+        List<Map.Entry<String, List<String>>> result = trie.prefixSearch("a", 10, Collections.singleton(2L));
+        Assertions.assertEquals(Arrays.asList("ab", "abd", "abcde"), words(result));
+        Assertions.assertEquals(Collections.singletonList("_2_2_metric"), result.get(0).getValue());
+        Assertions.assertTrue(trie.prefixSearch("abc", 10, Collections.singleton(3L)).stream()
+                .allMatch(entry -> entry.getValue().equals(Collections.singletonList("nz"))));
+    }
+
+    @Test
+    void testConcurrentSearch() throws Exception {
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            entries.add(entry("word" + i, "_" + (i % 50) + "_" + i + "_dimension"));
+        }
+        entries.sort(Map.Entry.comparingByKey());
+        KnowledgeTrie trie = KnowledgeTrie.build(entries);
+        List<String> expected = words(trie.prefixSearch("word1", 200, new HashSet<>(Arrays.asList(1L, 11L))));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> words(trie.prefixSearch("word1", 200,
+                        new HashSet<>(Arrays.asList(1L, 11L))))));
+            }
+            for (Future<List<String>> future : futures) {
+                Assertions.assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(200, expected.size());
+    }
+
+    @Test
+    void testSegmentLattice() {
+        KnowledgeTrie trie = build(
+                entry("访问次数", "_1_2_metric"),
+                entry("访问用户数", "_1_3_metric"),
+                entry("部门", "_2_4_dimension"),
+                entry("pv", "_1_5_metric"));
+        KnowledgeTrie suffixTrie = build(
+                entry("数次问访", "_1_2_metric_suffix"),
+                entry("门部", "_2_4_dimension_suffix"));
+        String text = "近7天 PV和访问次数 按部门";
+        for (Set<Long> modelIds : Arrays.asList(Collections.<Long>emptySet(), Collections.singleton(1L))) {
+            SegmentLattice lattice = SegmentLattice.build(text, trie, suffixTrie, modelIds);
+            int accepted = 0;
+            for (int start = 0; start < text.length(); start++) {
+                for (int end = start + 1; end <= text.length(); end++) {
+                    String segment = text.substring(start, end).trim();
+                    boolean found = !trie.prefixSearch(segment.toLowerCase(), 10, modelIds).isEmpty()
+                            || !suffixTrie.prefixSearch(StringUtils.reverse(segment).toLowerCase(), 10,
+                            modelIds).isEmpty();
+                    if (found) {
+                        Assertions.assertTrue(lattice.accept(start, end), segment);
+                    }
+                    accepted += lattice.accept(start, end) ? 1 : 0;
+                }
+            }
+            Assertions.assertTrue(accepted < text.length() * (text.length() + 1) / 4);
+        }
+        SegmentLattice lattice = SegmentLattice.build(text, trie, suffixTrie, Collections.singleton(1L));
+        Assertions.assertTrue(lattice.accept(text.indexOf("访问"), text.indexOf("访问") + 2));
+        Assertions.assertFalse(lattice.accept(text.indexOf("部门"), text.indexOf("部门") + 2));
+    }
+
+    private static KnowledgeTrie build(Map.Entry<String, List<String>>... entries) {
+        List<Map.Entry<String, List<String>>> sorted = new ArrayList<>(Arrays.asList(entries));
+        sorted.sort(Map.Entry.comparingByKey());
+        return KnowledgeTrie.build(sorted);
+    }
+
+    private static Map.Entry<String, List<String>> entry(String word, String... natures) {
+        return new AbstractMap.SimpleEntry<>(word, Arrays.asList(natures));
+    }
+
+    private static List<String> words(List<Map.Entry<String, List<String>>> entries) {
+        return entries.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import com.tencent.supersonic.headless.api.pojo.request.DimensionValueReq;
+import com.tencent.supersonic.headless.core.knowledge.helper.HanlpHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class MultiCustomDictionaryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRemoveNature() throws Exception {
+        Path file = directory.resolve("DimValue_9_1.txt");
+        Files.write(file, Arrays.asList("apple _9_1 10", "pear _9_1 5", "Apple _9_2 3"), StandardCharsets.UTF_8);
+        MultiCustomDictionary dictionary = new MultiCustomDictionary(file.toString());
+
+        Assertions.assertTrue(dictionary.removeNature("apple", "_9_1"));
+        Assertions.assertFalse(dictionary.removeNature("apple", "_9_1"));
+        Assertions.assertEquals(Collections.singletonList("_9_2"), natures(dictionary.get("apple")));
+
+        Assertions.assertTrue(dictionary.removeNature("pear", "_9_1"));
+        Assertions.assertNull(dictionary.get("pear"));
+        Assertions.assertTrue(dictionary.insert("pear", "_9_3 7"));
+        Assertions.assertEquals(Collections.singletonList("_9_3"), natures(dictionary.get("pear")));
+    }
+
+    @Test
+    void testLoadCompiled() throws Exception {
+        Path file = directory.resolve("DimValue_9_4.txt");
+        Files.write(file, Arrays.asList("Banana _9_4 10", "cherry _9_4 5", "cherry _9_5 2"), StandardCharsets.UTF_8);
+        Assertions.assertTrue(MultiCustomDictionary.compile(file.toString()));
+        Path compiled = directory.resolve("DimValue_9_4.txt.compiled");
+        Assertions.assertTrue(Files.exists(compiled));
+
+        MultiCustomDictionary dictionary = new MultiCustomDictionary(file.toString());
+        Assertions.assertEquals(Arrays.asList("_9_4", "_9_5"), natures(dictionary.get("cherry")));
+        Assertions.assertEquals("Banana", dictionary.get("banana").original);
+
+        Files.write(file, Collections.singletonList("cherry _9_4 5"), StandardCharsets.UTF_8);
+        Files.deleteIfExists(directory.resolve("DimValue_9_4.txt.bin"));
+        dictionary = new MultiCustomDictionary(file.toString());
+        Assertions.assertNull(dictionary.get("banana"));
+        MultiCustomDictionary.deleteCompiled(file.toString());
+        Assertions.assertFalse(Files.exists(compiled));
+    }
+
+    @Test
+    void testUpdateCustomDictionary() throws Exception {
+        List<String> loadedLines = Arrays.asList("incrementalone _8_1 10", "incrementaltwo _8_1 5");
+        HanlpHelper.updateCustomDictionary(Collections.emptyList(), loadedLines);
+        HanlpHelper.updateCustomDictionary(loadedLines, Arrays.asList("incrementaltwo _8_1 6",
+                "incrementalthree _8_1 20"));
+        HanlpHelper.publishCustomDictionary();
+
+        Assertions.assertNull(HanlpHelper.getDynamicCustomDictionary().get("incrementalone"));
+        Assertions.assertEquals(6, HanlpHelper.getDynamicCustomDictionary().get("incrementaltwo").frequency[0]);
+        List<String> words = SearchService.prefixSearch("incremental", 10, Collections.emptyMap()).stream()
+                .map(HanlpMapResult::getName).collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("incrementaltwo", "incrementalthree"), words);
+
+        DimensionValueReq dimensionValueReq = new DimensionValueReq();
+        dimensionValueReq.setModelId(8L);
+        dimensionValueReq.setElementID(1L);
+        Assertions.assertEquals(Arrays.asList("incrementalthree", "incrementaltwo"),
+                SearchService.getDimensionValue(dimensionValueReq));
+    }
+
+    @Test
+    void testDimensionValuePage() {
+        DimensionValueDictionary dictionary = new DimensionValueDictionary(3);
+        dictionary.offer("_9_1", "a", 1);
+        dictionary.offer("_9_1", "b", 5);
+        dictionary.offer("_9_1", "c", 3);
+        dictionary.offer("_9_1", "b", 9);
+        dictionary.offer("_9_1", "d", 4);
+        dictionary.offer("_9_1", "e", 2);
+
+        Assertions.assertEquals(Arrays.asList("b", "d", "c"), dictionary.getValues("_9_1", 0, 10));
+        Assertions.assertEquals(Collections.singletonList("d"), dictionary.getValues("_9_1", 1, 1));
+        Assertions.assertTrue(dictionary.getValues("_9_1", 3, 10).isEmpty());
+        Assertions.assertTrue(dictionary.getValues("_9_2", 0, 10).isEmpty());
+    }
+
+    private List<String> natures(CoreDictionary.Attribute attribute) {
+        return Arrays.stream(attribute.nature).map(Object::toString).collect(Collectors.toList());
+    }
+}
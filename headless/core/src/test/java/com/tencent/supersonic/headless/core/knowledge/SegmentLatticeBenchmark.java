@@ -0,0 +1,141 @@
+package com.tencent.supersonic.headless.core.knowledge;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * segment search over the questions of evaluation/data/internet.txt. Every segment of every
+ * question is searched by prefix and suffix, as detect does when no term spans several chars, or
+ * only the segments accepted by the lattice. The dictionary holds the 2 to 4 char ngrams found in
+ * at least three questions, spread over ten models. run the main method from the test classpath
+ * with the repository as working directory or below it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentLatticeBenchmark {
+
+    private static final int LIMIT = 20;
+
+    private List<String> questions;
+
+    private KnowledgeTrie trie;
+
+    private KnowledgeTrie suffixTrie;
+
+    private Map<Long, List<Long>> modelIdToDataSetIds;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SegmentLatticeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        questions = Files.readAllLines(findQuestions(), StandardCharsets.UTF_8);
+        Map<String, Set<Integer>> ngramToQuestions = new HashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            String question = questions.get(i).toLowerCase();
+            for (int length = 2; length <= 4; length++) {
+                for (int start = 0; start + length <= question.length(); start++) {
+                    ngramToQuestions.computeIfAbsent(question.substring(start, start + length),
+                            key -> new HashSet<>()).add(i);
+                }
+            }
+        }
+        TreeMap<String, List<String>> words = new TreeMap<>();
+        TreeMap<String, List<String>> suffixWords = new TreeMap<>();
+        int id = 0;
+        for (Map.Entry<String, Set<Integer>> entry : ngramToQuestions.entrySet()) {
+            if (entry.getValue().size() < 3 || StringUtils.isBlank(entry.getKey())) {
+                continue;
+            }
+            String nature = "_" + (id % 10) + "_" + id++ + "_metric";
+            words.put(entry.getKey(), Collections.singletonList(nature));
+            suffixWords.put(StringUtils.reverse(entry.getKey()), Collections.singletonList(nature + "_suffix"));
+        }
+        trie = KnowledgeTrie.build(new ArrayList<>(words.entrySet()));
+        suffixTrie = KnowledgeTrie.build(new ArrayList<>(suffixWords.entrySet()));
+        modelIdToDataSetIds = new HashMap<>();
+        for (long modelId : Arrays.asList(1L, 4L, 7L)) {
+            modelIdToDataSetIds.put(modelId, Collections.singletonList(modelId));
+        }
+    }
+
+    @Benchmark
+    public int allSegments() {
+        int count = 0;
+        for (String question : questions) {
+            for (int start = 0; start < question.length(); start++) {
+                for (int end = start + 1; end <= question.length(); end++) {
+                    count += search(question.substring(start, end).trim()).size();
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int latticeSegments() {
+        int count = 0;
+        for (String question : questions) {
+            SegmentLattice lattice = SegmentLattice.build(question, trie, suffixTrie, modelIdToDataSetIds.keySet());
+            for (int start = 0; start < question.length(); start++) {
+                for (int end = start + 1; end <= question.length(); end++) {
+                    if (lattice.accept(start, end)) {
+                        count += search(question.substring(start, end).trim()).size();
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<HanlpMapResult> search(String segment) {
+        List<HanlpMapResult> results = new ArrayList<>(SearchService.prefixSearch(segment, LIMIT, trie,
+                modelIdToDataSetIds));
+        results.addAll(SearchService.suffixSearch(StringUtils.reverse(segment), LIMIT, suffixTrie,
+                modelIdToDataSetIds.keySet()));
+        return results;
+    }
+
+    private static Path findQuestions() {
+        Path directory = Paths.get(System.getProperty("user.dir")).toAbsolutePath();
+        while (directory != null) {
+            Path questions = directory.resolve("evaluation").resolve("data").resolve("internet.txt");
+            if (Files.isRegularFile(questions)) {
+                return questions;
+            }
+            directory = directory.getParent();
+        }
+        throw new IllegalStateException("evaluation/data/internet.txt not found");
+    }
+}
@@ -0,0 +1,93 @@
+package com.tencent.supersonic.headless.core.parser.calcite;
+
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.pojo.Database;
+import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PlanCacheTest {
+
+    @Test
+    void testBindLiterals() throws Exception {
+        PlanCache planCache = buildPlanCache();
+        AtomicInteger plans = new AtomicInteger();
+        PlanCache.PlanFunction planFunction = (queryStatement, aggOption) -> {
+            plans.incrementAndGet();
+            queryStatement.setSql("select pv from t where " + queryStatement.getMetricQueryParam().getWhere());
+            queryStatement.setSourceId("t");
+        };
+
+        QueryStatement first = buildQueryStatement(1L, "imp_date >= '2024-01-01' and page = 'p1'");
+        planCache.explain(first, AggOption.DEFAULT, planFunction);
+        Assertions.assertEquals("select pv from t where imp_date >= '2024-01-01' and page = 'p1'", first.getSql());
+        Assertions.assertEquals(2, plans.get());
+
+        QueryStatement second = buildQueryStatement(1L, "imp_date >= '2024-02-01' and page = 'p2'");
+        planCache.explain(second, AggOption.DEFAULT, planFunction);
+        Assertions.assertEquals("select pv from t where imp_date >= '2024-02-01' and page = 'p2'", second.getSql());
+        Assertions.assertEquals("t", second.getSourceId());
+        Assertions.assertEquals(2, plans.get());
+        Assertions.assertEquals(1, planCache.getHitCount());
+
+        QueryStatement recompiled = buildQueryStatement(2L, "imp_date >= '2024-02-01' and page = 'p2'");
+        planCache.explain(recompiled, AggOption.DEFAULT, planFunction);
+        Assertions.assertEquals(2, planCache.getMissCount());
+
+        QueryStatement untracked = buildQueryStatement(null, "imp_date >= '2024-02-01' and page = 'p2'");
+        planCache.explain(untracked, AggOption.DEFAULT, planFunction);
+        Assertions.assertEquals(2, planCache.getMissCount());
+        Assertions.assertEquals(5, plans.get());
+    }
+
+    @Test
+    void testValueDependentPlan() throws Exception {
+        PlanCache planCache = buildPlanCache();
+        AtomicInteger plans = new AtomicInteger();
+        PlanCache.PlanFunction planFunction = (queryStatement, aggOption) -> {
+            plans.incrementAndGet();
+            queryStatement.setSql("select pv from t where "
+                    + queryStatement.getMetricQueryParam().getWhere().toUpperCase());
+        };
+
+        QueryStatement first = buildQueryStatement(1L, "page = 'p1'");
+        planCache.explain(first, AggOption.DEFAULT, planFunction);
+        QueryStatement second = buildQueryStatement(1L, "page = 'p2'");
+        planCache.explain(second, AggOption.DEFAULT, planFunction);
+        Assertions.assertEquals("select pv from t where PAGE = 'P2'", second.getSql());
+        Assertions.assertEquals(0, planCache.getHitCount());
+        Assertions.assertEquals(3, plans.get());
+    }
+
+    private PlanCache buildPlanCache() {
+        PlanCache planCache = new PlanCache();
+        ReflectionTestUtils.setField(planCache, "cacheEnable", true);
+        ReflectionTestUtils.setField(planCache, "cacheSize", 10);
+        planCache.init();
+        return planCache;
+    }
+
+    private QueryStatement buildQueryStatement(Long version, String where) {
+        SemanticModel semanticModel = new SemanticModel();
+        semanticModel.setSchemaKey("DATASET_1");
+        semanticModel.setVersion(version);
+        Database database = new Database();
+        database.setType("h2");
+        semanticModel.setDatabase(database);
+        MetricQueryParam metricQueryParam = new MetricQueryParam();
+        metricQueryParam.setMetrics(new ArrayList<>(Collections.singletonList("pv")));
+        metricQueryParam.setDimensions(new ArrayList<>());
+        metricQueryParam.setWhere(where);
+        QueryStatement queryStatement = new QueryStatement();
+        queryStatement.setMetricQueryParam(metricQueryParam);
+        queryStatement.setSemanticModel(semanticModel);
+        return queryStatement;
+    }
+}
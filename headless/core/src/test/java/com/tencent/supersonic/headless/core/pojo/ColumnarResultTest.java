@@ -0,0 +1,95 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ColumnarResultTest {
+
+    @Test
+    void testReadRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:columnar");
+                Statement statement = connection.createStatement()) {
+            statement.execute("create table t(id bigint, cnt int, score double, name varchar(16), dt date)");
+            statement.execute("insert into t values(1, 10, 0.5, 'a', '2024-01-01'), (null, null, null, null, null)");
+            ColumnarResult columnarResult;
+            try (ResultSet rs = statement.executeQuery("select id, cnt, score, name, dt from t order by id desc")) {
+                columnarResult = ColumnarResult.of(rs.getMetaData());
+                while (rs.next()) {
+                    columnarResult.readRow(rs);
+                }
+            }
+            List<Map<String, Object>> rows = columnarResult.asRows();
+            Assertions.assertEquals(2, rows.size());
+            Map<String, Object> row = rows.get(0);
+            Assertions.assertEquals(1L, row.get("ID"));
+            Assertions.assertEquals(10, row.get("CNT"));
+            Assertions.assertEquals(0.5D, row.get("SCORE"));
+            Assertions.assertEquals("a", row.get("NAME"));
+            Assertions.assertEquals("2024-01-01", row.get("DT"));
+            Assertions.assertTrue(rows.get(1).containsKey("ID"));
+            Assertions.assertNull(rows.get(1).get("ID"));
+            Assertions.assertEquals(5, row.size());
+        }
+    }
+
+    @Test
+    void testRowUpdate() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:columnar_update");
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("select 1 as id, 'x' as name")) {
+            ColumnarResult columnarResult = ColumnarResult.of(rs.getMetaData());
+            while (rs.next()) {
+                columnarResult.readRow(rs);
+            }
+            Map<String, Object> row = columnarResult.asRows().get(0);
+            row.put("ID", "******");
+            row.put("EXTRA", 2);
+            Assertions.assertEquals("******", row.get("ID"));
+            Assertions.assertEquals(2, row.get("EXTRA"));
+            Assertions.assertEquals(3, row.size());
+            Assertions.assertEquals(3, row.entrySet().size());
+        }
+    }
+
+    @Test
+    void testSortRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:columnar_sort");
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("select x as id, 'n' || x as name "
+                        + "from system_range(1, 5) order by x")) {
+            ColumnarResult columnarResult = ColumnarResult.of(rs.getMetaData());
+            while (rs.next()) {
+                columnarResult.readRow(rs);
+            }
+            List<Map<String, Object>> rows = columnarResult.asRows();
+            rows.sort(Comparator.comparing((Map<String, Object> row) -> (Long) row.get("ID")).reversed());
+            for (int i = 0; i < rows.size(); i++) {
+                Assertions.assertEquals(5L - i, rows.get(i).get("ID"));
+                Assertions.assertEquals("n" + (5 - i), rows.get(i).get("NAME"));
+            }
+
+            Map<String, Object> added = new HashMap<>();
+            added.put("ID", 0L);
+            rows.add(added);
+            rows.remove(0);
+            Assertions.assertEquals(5, rows.size());
+            Assertions.assertEquals(4L, rows.get(0).get("ID"));
+            Assertions.assertSame(added, rows.get(4));
+
+            Map<String, Object> row = rows.get(0);
+            row.keySet().remove("NAME");
+            Assertions.assertFalse(row.containsKey("NAME"));
+            Assertions.assertEquals(1, row.size());
+            Assertions.assertEquals("n3", rows.get(1).get("NAME"));
+        }
+    }
+}
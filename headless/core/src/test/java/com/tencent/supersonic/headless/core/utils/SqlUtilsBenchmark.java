@@ -0,0 +1,95 @@
+package com.tencent.supersonic.headless.core.utils;
+
+import com.alibaba.druid.wall.WallConfig;
+import com.alibaba.druid.wall.WallFilter;
+import com.tencent.supersonic.headless.core.pojo.Database;
+import com.tencent.supersonic.headless.core.pojo.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * per-query overhead of getting an execution handle on H2, the legacy path probes a connection
+ * and builds a new JdbcTemplate for every query while the cached path is a map lookup.
+ * run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlUtilsBenchmark {
+
+    private JdbcDataSource jdbcDataSource;
+
+    private SqlUtils sqlUtils;
+
+    private Database database;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SqlUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        jdbcDataSource = new JdbcDataSource();
+        ReflectionTestUtils.setField(jdbcDataSource, "lockTime", 30L);
+        ReflectionTestUtils.setField(jdbcDataSource, "maxActive", 8);
+        ReflectionTestUtils.setField(jdbcDataSource, "minIdle", 1);
+        ReflectionTestUtils.setField(jdbcDataSource, "maxWait", 60000L);
+        ReflectionTestUtils.setField(jdbcDataSource, "timeBetweenEvictionRunsMillis", 2000L);
+        ReflectionTestUtils.setField(jdbcDataSource, "minEvictableIdleTimeMillis", 600000L);
+        ReflectionTestUtils.setField(jdbcDataSource, "maxEvictableIdleTimeMillis", 900000L);
+        ReflectionTestUtils.setField(jdbcDataSource, "testWhileIdle", true);
+        ReflectionTestUtils.setField(jdbcDataSource, "validationQueryTimeout", 5);
+        ReflectionTestUtils.setField(jdbcDataSource, "filters", "stat");
+        WallFilter wallFilter = new WallFilter();
+        wallFilter.setConfig(new WallConfig());
+        ReflectionTestUtils.setField(jdbcDataSource, "wallFilter", wallFilter);
+
+        sqlUtils = new SqlUtils();
+        ReflectionTestUtils.setField(sqlUtils, "jdbcDataSource", jdbcDataSource);
+        ReflectionTestUtils.setField(sqlUtils, "resultLimit", 1000000);
+        ReflectionTestUtils.setField(sqlUtils, "fetchSize", 500);
+
+        database = Database.builder().id(1L).name("benchmark").type("h2")
+                .url("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1").username("sa").password("").build();
+    }
+
+    @Benchmark
+    public JdbcTemplate legacyHandle() {
+        Database named = Database.builder().name(database.getId() + "@" + database.getName())
+                .type(database.getType()).url(database.getUrl()).username(database.getUsername())
+                .password(database.getPassword()).build();
+        JdbcDataSourceUtils jdbcDataSourceUtils = new JdbcDataSourceUtils(jdbcDataSource);
+        Connection connection = null;
+        try {
+            connection = jdbcDataSourceUtils.getConnection(named);
+        } finally {
+            JdbcDataSourceUtils.releaseConnection(connection);
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(jdbcDataSourceUtils.getDataSource(named));
+        jdbcTemplate.setFetchSize(500);
+        return jdbcTemplate;
+    }
+
+    @Benchmark
+    public JdbcTemplate cachedHandle() {
+        return sqlUtils.init(database).jdbcTemplate();
+    }
+}
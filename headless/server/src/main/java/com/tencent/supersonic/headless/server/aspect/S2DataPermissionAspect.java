@@ -31,6 +31,8 @@ import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.DataSetResp;
+import com.tencent.supersonic.headless.core.executor.QueryCursorManager;
+import com.tencent.supersonic.headless.core.executor.ResultRowHandler;
 import com.tencent.supersonic.headless.server.pojo.MetaFilter;
 import com.tencent.supersonic.headless.server.pojo.ModelFilter;
 import com.tencent.supersonic.headless.server.service.DimensionService;
@@ -61,6 +63,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -87,6 +90,8 @@ public class S2DataPermissionAspect {
     private DataSetService dataSetService;
     @Autowired
     private AuthService authService;
+    @Autowired
+    private QueryCursorManager queryCursorManager;
 
     @Pointcut("@annotation(com.tencent.supersonic.headless.server.annotation.S2DataPermission)")
     private void s2PermissionCheck() {
@@ -104,6 +109,10 @@ public class S2DataPermissionAspect {
         if (Objects.isNull(user) || Strings.isNullOrEmpty(user.getName())) {
             throw new RuntimeException("please provide user information");
         }
+        if (StringUtils.isNotBlank(queryReq.getContinuationToken())) {
+            // the cursor serves its pages with the permission of the query that opened it
+            return joinPoint.proceed();
+        }
         List<Long> modelIds = getModelsInDataSet(queryReq);
 
         // determine whether admin of the model
@@ -151,9 +160,32 @@ public class S2DataPermissionAspect {
         // row permission pre-filter
         doRowPermission(querySqlReq, authorizedResource);
 
+        if (isStreamQuery(joinPoint)) {
+            return proceedStream(joinPoint, sensitiveResReq.stream().filter(req -> !resAuthSet.contains(req))
+                    .collect(Collectors.toSet()));
+        }
+
         // proceed
         SemanticQueryResp queryResultWithColumns = (SemanticQueryResp) joinPoint.proceed();
+        return applyPermission(queryResultWithColumns, result -> applyPermission(result, modelIdInDataSet,
+                authorizedResource, sensitiveResReq, resAuthSet));
+    }
+
+    /**
+     * apply the permission to the result, a cursor opened by the query keeps applying it to its
+     * following pages
+     */
+    private SemanticQueryResp applyPermission(SemanticQueryResp queryResultWithColumns,
+            UnaryOperator<SemanticQueryResp> permission) {
+        if (Objects.nonNull(queryResultWithColumns)
+                && StringUtils.isNotBlank(queryResultWithColumns.getContinuationToken())) {
+            queryCursorManager.bindPageFilter(queryResultWithColumns.getContinuationToken(), permission);
+        }
+        return permission.apply(queryResultWithColumns);
+    }
 
+    private SemanticQueryResp applyPermission(SemanticQueryResp queryResultWithColumns, List<Long> modelIdInDataSet,
+            AuthorizedResourceResp authorizedResource, Set<String> sensitiveResReq, Set<String> resAuthSet) {
         if (CollectionUtils.isEmpty(sensitiveResReq) || allSensitiveResReqIsOk(sensitiveResReq, resAuthSet)) {
             // if sensitiveRes is empty
             log.info("sensitiveResReq is empty");
@@ -252,24 +284,65 @@ public class S2DataPermissionAspect {
         // row permission pre-filter
         doRowPermission(queryStructReq, authorizedResource);
 
+        if (isStreamQuery(point)) {
+            return proceedStream(point, sensitiveResReq.stream().filter(req -> !resAuthSet.contains(req))
+                    .collect(Collectors.toSet()));
+        }
+
         // proceed
         SemanticQueryResp queryResultWithColumns = (SemanticQueryResp) point.proceed();
+        return applyPermission(queryResultWithColumns, result -> applyPermission(result, modelIdInDataSet,
+                authorizedResource, sensitiveResReq, resAuthSet));
+    }
 
-        if (CollectionUtils.isEmpty(sensitiveResReq) || allSensitiveResReqIsOk(sensitiveResReq, resAuthSet)) {
-            // if sensitiveRes is empty
-            log.info("sensitiveResReq is empty");
-            return getQueryResultWithColumns(queryResultWithColumns, modelIdInDataSet, authorizedResource);
+    private boolean isStreamQuery(ProceedingJoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        return args.length > 2 && args[2] instanceof ResultRowHandler;
+    }
+
+    /**
+     * streamed rows never come back to the aspect, so the desensitization is applied
+     * to each batch on its way to the handler
+     */
+    private Object proceedStream(ProceedingJoinPoint joinPoint, Set<String> need2Apply) throws Throwable {
+        if (CollectionUtils.isEmpty(need2Apply)) {
+            return joinPoint.proceed();
         }
+        Object[] args = joinPoint.getArgs();
+        ResultRowHandler handler = (ResultRowHandler) args[2];
+        args[2] = new ResultRowHandler() {
+            @Override
+            public void onColumns(List<QueryColumn> columns) {
+                addAuthorizedSchemaInfo(columns, need2Apply);
+                handler.onColumns(columns);
+            }
 
-        // if the column has no permission, hit *
-        Set<String> need2Apply = sensitiveResReq.stream().filter(req -> !resAuthSet.contains(req))
-                .collect(Collectors.toSet());
-        SemanticQueryResp queryResultAfterDesensitization =
-                desensitizationData(queryResultWithColumns, need2Apply);
-        addPromptInfoInfo(modelIdInDataSet, queryResultAfterDesensitization, authorizedResource, need2Apply);
+            @Override
+            public void onRows(List<Map<String, Object>> rows) {
+                for (Map<String, Object> row : rows) {
+                    List<String> cols = new ArrayList<>(row.keySet());
+                    cols.stream().filter(col -> need2Apply.stream().anyMatch(col::contains))
+                            .forEach(col -> row.put(col, "******"));
+                }
+                handler.onRows(rows);
+            }
 
-        return queryResultAfterDesensitization;
+            @Override
+            public void onTruncated() {
+                handler.onTruncated();
+            }
+
+            @Override
+            public void onComplete() {
+                handler.onComplete();
+            }
 
+            @Override
+            public void onError(Throwable e) {
+                handler.onError(e);
+            }
+        };
+        return joinPoint.proceed(args);
     }
 
     public boolean allSensitiveResReqIsOk(Set<String> sensitiveResReq, Set<String> resAuthSet) {
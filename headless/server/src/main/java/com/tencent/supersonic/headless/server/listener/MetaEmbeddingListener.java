@@ -7,17 +7,28 @@ import com.tencent.supersonic.common.pojo.enums.EventType;
 import com.tencent.supersonic.common.util.ComponentFactory;
 import com.tencent.supersonic.common.util.embedding.EmbeddingQuery;
 import com.tencent.supersonic.common.util.embedding.S2EmbeddingStore;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+/**
+ * Keep the meta collection in line with the data events. The events are not written one by one,
+ * the latest change of every item is kept until the batch is flushed by a single thread, either
+ * a while after its first change or as soon as the batch is full, so a burst of events such as a
+ * batch of new metrics ends up as one delete and one add call on the embedding store. Every flush
+ * logs the queue depth it drained, how long its oldest change waited and how long the writes took.
+ */
 @Component
 @Slf4j
 public class MetaEmbeddingListener implements ApplicationListener<DataEvent> {
@@ -25,46 +36,168 @@ public class MetaEmbeddingListener implements ApplicationListener<DataEvent> {
     @Autowired
     private EmbeddingConfig embeddingConfig;
 
-    private S2EmbeddingStore s2EmbeddingStore = ComponentFactory.getS2EmbeddingStore();
+    /**
+     * resolved on the first flush, the store is not needed to queue the events
+     */
+    private volatile S2EmbeddingStore s2EmbeddingStore;
 
-    @Value("${embedding.operation.sleep.time:3000}")
-    private Integer embeddingOperationSleepTime;
+    @Value("${embedding.operation.flush.delay:1000}")
+    private long flushDelay;
+
+    @Value("${embedding.operation.batch.size:500}")
+    private int batchSize;
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "meta-embedding-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PendingQuery> pendingQueries = new LinkedHashMap<>();
+
+    private boolean flushScheduled;
+
+    /**
+     * when the oldest pending change was queued
+     */
+    private long firstPendingTime;
+
+    private volatile long lastFlushCost;
+
+    public MetaEmbeddingListener() {
+    }
+
+    public MetaEmbeddingListener(S2EmbeddingStore s2EmbeddingStore) {
+        this.s2EmbeddingStore = s2EmbeddingStore;
+    }
 
-    @Async
     @Override
     public void onApplicationEvent(DataEvent event) {
         if (CollectionUtils.isEmpty(event.getDataItems())) {
             return;
         }
+        synchronized (pendingQueries) {
+            if (pendingQueries.isEmpty()) {
+                firstPendingTime = System.currentTimeMillis();
+            }
+            event.getDataItems().forEach(dataItem -> {
+                EmbeddingQuery embeddingQuery = new EmbeddingQuery();
+                embeddingQuery.setQueryId(
+                        dataItem.getId() + dataItem.getType().name().toLowerCase());
+                embeddingQuery.setQuery(dataItem.getName());
+                Map meta = JSONObject.parseObject(JSONObject.toJSONString(dataItem), Map.class);
+                embeddingQuery.setMetadata(meta);
+                embeddingQuery.setQueryEmbedding(null);
+                merge(embeddingQuery, event.getEventType());
+            });
+            if (pendingQueries.size() >= batchSize) {
+                scheduleFlush(0);
+            } else if (!flushScheduled && !pendingQueries.isEmpty()) {
+                scheduleFlush(flushDelay);
+            }
+        }
+    }
 
-        List<EmbeddingQuery> embeddingQueries = event.getDataItems()
-                .stream()
-                .map(dataItem -> {
-                    EmbeddingQuery embeddingQuery = new EmbeddingQuery();
-                    embeddingQuery.setQueryId(
-                            dataItem.getId() + dataItem.getType().name().toLowerCase());
-                    embeddingQuery.setQuery(dataItem.getName());
-                    Map meta = JSONObject.parseObject(JSONObject.toJSONString(dataItem), Map.class);
-                    embeddingQuery.setMetadata(meta);
-                    embeddingQuery.setQueryEmbedding(null);
-                    return embeddingQuery;
-                }).collect(Collectors.toList());
-        if (CollectionUtils.isEmpty(embeddingQueries)) {
-            return;
+    public int getQueueDepth() {
+        synchronized (pendingQueries) {
+            return pendingQueries.size();
+        }
+    }
+
+    public long getLastFlushCost() {
+        return lastFlushCost;
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * fold the change into the pending change of the same item: an item added and deleted in the
+     * same batch is never written, and a delete followed by an add becomes an update
+     */
+    private void merge(EmbeddingQuery embeddingQuery, EventType eventType) {
+        PendingQuery pending = pendingQueries.get(embeddingQuery.getQueryId());
+        EventType merged = eventType;
+        if (pending != null) {
+            if (EventType.DELETE.equals(eventType) && EventType.ADD.equals(pending.eventType)) {
+                pendingQueries.remove(embeddingQuery.getQueryId());
+                return;
+            }
+            if (EventType.ADD.equals(eventType) && !EventType.ADD.equals(pending.eventType)) {
+                merged = EventType.UPDATE;
+            } else if (EventType.UPDATE.equals(eventType) && EventType.ADD.equals(pending.eventType)) {
+                merged = EventType.ADD;
+            }
+        }
+        pendingQueries.put(embeddingQuery.getQueryId(), new PendingQuery(embeddingQuery, merged));
+    }
+
+    private void scheduleFlush(long delay) {
+        flushScheduled = true;
+        flushExecutor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        List<PendingQuery> batch;
+        long startTime;
+        long waitTime;
+        synchronized (pendingQueries) {
+            flushScheduled = false;
+            if (pendingQueries.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingQueries.values());
+            pendingQueries.clear();
+            startTime = System.currentTimeMillis();
+            waitTime = startTime - firstPendingTime;
+        }
+        List<EmbeddingQuery> deleteQueries = new ArrayList<>();
+        List<EmbeddingQuery> addQueries = new ArrayList<>();
+        for (PendingQuery pending : batch) {
+            if (!EventType.ADD.equals(pending.eventType)) {
+                deleteQueries.add(pending.embeddingQuery);
+            }
+            if (!EventType.DELETE.equals(pending.eventType)) {
+                addQueries.add(pending.embeddingQuery);
+            }
         }
         try {
-            Thread.sleep(embeddingOperationSleepTime);
-        } catch (InterruptedException e) {
-            log.error("", e);
+            String collectionName = embeddingConfig.getMetaCollectionName();
+            S2EmbeddingStore s2EmbeddingStore = getS2EmbeddingStore();
+            s2EmbeddingStore.addCollection(collectionName);
+            if (!deleteQueries.isEmpty()) {
+                s2EmbeddingStore.deleteQuery(collectionName, deleteQueries);
+            }
+            if (!addQueries.isEmpty()) {
+                s2EmbeddingStore.addQuery(collectionName, addQueries);
+            }
+        } catch (Exception e) {
+            log.error("flush meta embedding error, deletes:{}, adds:{}", deleteQueries.size(), addQueries.size(), e);
         }
-        s2EmbeddingStore.addCollection(embeddingConfig.getMetaCollectionName());
-        if (event.getEventType().equals(EventType.ADD)) {
-            s2EmbeddingStore.addQuery(embeddingConfig.getMetaCollectionName(), embeddingQueries);
-        } else if (event.getEventType().equals(EventType.DELETE)) {
-            s2EmbeddingStore.deleteQuery(embeddingConfig.getMetaCollectionName(), embeddingQueries);
-        } else if (event.getEventType().equals(EventType.UPDATE)) {
-            s2EmbeddingStore.deleteQuery(embeddingConfig.getMetaCollectionName(), embeddingQueries);
-            s2EmbeddingStore.addQuery(embeddingConfig.getMetaCollectionName(), embeddingQueries);
+        lastFlushCost = System.currentTimeMillis() - startTime;
+        log.info("flush meta embedding, queueDepth:{}, deletes:{}, adds:{}, wait:{}, cost:{}, pending:{}",
+                batch.size(), deleteQueries.size(), addQueries.size(), waitTime, lastFlushCost, getQueueDepth());
+    }
+
+    private S2EmbeddingStore getS2EmbeddingStore() {
+        if (s2EmbeddingStore == null) {
+            s2EmbeddingStore = ComponentFactory.getS2EmbeddingStore();
+        }
+        return s2EmbeddingStore;
+    }
+
+    private static class PendingQuery {
+
+        private final EmbeddingQuery embeddingQuery;
+
+        private final EventType eventType;
+
+        PendingQuery(EmbeddingQuery embeddingQuery, EventType eventType) {
+            this.embeddingQuery = embeddingQuery;
+            this.eventType = eventType;
         }
     }
 
@@ -0,0 +1,38 @@
+package com.tencent.supersonic.headless.server.listener;
+
+import com.tencent.supersonic.common.pojo.Constants;
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.headless.core.cache.QueryCache;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * evict the cached query results of the models whose metrics, dimensions or tags changed
+ */
+@Component
+@Slf4j
+public class QueryCacheListener implements ApplicationListener<DataEvent> {
+
+    @Autowired
+    private QueryCache queryCache;
+
+    @Override
+    public void onApplicationEvent(DataEvent event) {
+        if (CollectionUtils.isEmpty(event.getDataItems())) {
+            return;
+        }
+        Set<Long> modelIds = event.getDataItems().stream()
+                .map(dataItem -> StringUtils.removeEnd(dataItem.getModelId(), Constants.UNDERLINE))
+                .filter(StringUtils::isNumeric)
+                .map(Long::parseLong)
+                .collect(Collectors.toSet());
+        queryCache.evict(modelIds);
+    }
+
+}
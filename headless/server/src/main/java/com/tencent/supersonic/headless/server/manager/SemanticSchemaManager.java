@@ -1,9 +1,14 @@
 package com.tencent.supersonic.headless.server.manager;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.tencent.supersonic.common.pojo.ModelRela;
+import com.tencent.supersonic.common.pojo.RecordInfo;
 import com.tencent.supersonic.common.pojo.enums.FilterOperatorEnum;
 import com.tencent.supersonic.headless.api.pojo.Field;
+import com.tencent.supersonic.headless.api.pojo.ModelMaterialization;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
+import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.TagResp;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Constants;
@@ -13,11 +18,14 @@ import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Dimension;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.DimensionTimeTypeParams;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Identify;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.JoinRelation;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization.TimePartType;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.MaterializationElement;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Measure;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Metric;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.MetricTypeParams;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.TimeRange;
 import com.tencent.supersonic.headless.core.parser.calcite.schema.SemanticSchema;
 import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
 import com.tencent.supersonic.headless.server.pojo.yaml.DimensionTimeTypeParamsTpl;
@@ -30,7 +38,10 @@ import com.tencent.supersonic.headless.server.pojo.yaml.MetricTypeParamsYamlTpl;
 import com.tencent.supersonic.headless.server.pojo.yaml.MetricYamlTpl;
 import com.tencent.supersonic.headless.server.service.Catalog;
 import com.tencent.supersonic.headless.server.utils.DatabaseConverter;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -39,7 +50,9 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Triple;
 import org.springframework.stereotype.Service;
@@ -50,13 +63,71 @@ import org.springframework.util.CollectionUtils;
 @Service
 public class SemanticSchemaManager {
 
+    private static final int CACHE_SIZE = 1000;
+
     private final Catalog catalog;
 
-    public SemanticSchemaManager(Catalog catalog) {
+    private final SchemaVersionUtils schemaVersionUtils;
+
+    private final Cache<String, CompiledModel> compiledModelCache =
+            CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong buildCost = new AtomicLong();
+
+    private final AtomicLong buildSequence = new AtomicLong();
+
+    public SemanticSchemaManager(Catalog catalog, SchemaVersionUtils schemaVersionUtils) {
         this.catalog = catalog;
+        this.schemaVersionUtils = schemaVersionUtils;
     }
 
+    /**
+     * the semantic model of the schema, compiled once per schema version. The compiled model is
+     * reused while the schema version and the fingerprint of the schema content are unchanged, so a
+     * schema response reloaded with the same content hits as well. Every call gets its own copy of
+     * the containers and data sources so the query can change them.
+     */
     public SemanticModel getSemanticModel(SemanticSchemaResp semanticSchemaResp) {
+        long version = schemaVersionUtils.getVersion();
+        String schemaKey = semanticSchemaResp.getSchemaKey();
+        String fingerprint = getFingerprint(semanticSchemaResp);
+        CompiledModel compiledModel = compiledModelCache.getIfPresent(schemaKey);
+        if (compiledModel != null && compiledModel.version == version
+                && compiledModel.fingerprint.equals(fingerprint)) {
+            hitCount.incrementAndGet();
+            return copy(compiledModel.semanticModel);
+        }
+        missCount.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        SemanticModel semanticModel = buildSemanticModel(semanticSchemaResp);
+        semanticModel.setVersion(buildSequence.incrementAndGet());
+        long cost = System.currentTimeMillis() - startTime;
+        buildCost.addAndGet(cost);
+        log.debug("build semantic model, schemaKey:{}, version:{}, cost:{}", schemaKey, version, cost);
+        compiledModelCache.put(schemaKey, new CompiledModel(version, fingerprint, semanticModel));
+        return copy(semanticModel);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return total milliseconds spent building semantic models on cache misses
+     */
+    public long getBuildCost() {
+        return buildCost.get();
+    }
+
+    private SemanticModel buildSemanticModel(SemanticSchemaResp semanticSchemaResp) {
         SemanticModel semanticModel = new SemanticModel();
         semanticModel.setSchemaKey(semanticSchemaResp.getSchemaKey());
         Map<String, List<DimensionYamlTpl>> dimensionYamlTpls = new HashMap<>();
@@ -85,6 +156,50 @@ public class SemanticSchemaManager {
         if (!metricYamlTpls.isEmpty()) {
             semanticModel.setMetrics(getMetrics(metricYamlTpls));
         }
+        semanticModel.setMaterializationList(getMaterializations(semanticSchemaResp.getModelResps()));
+        return semanticModel;
+    }
+
+    /**
+     * the count and latest update time of every kind of schema item, changes when an item is
+     * added, removed or updated even by a change the schema version does not count
+     */
+    private static String getFingerprint(SemanticSchemaResp semanticSchemaResp) {
+        return Stream.<List<? extends RecordInfo>>of(semanticSchemaResp.getModelResps(),
+                        semanticSchemaResp.getMetrics(), semanticSchemaResp.getDimensions(),
+                        semanticSchemaResp.getTags(), semanticSchemaResp.getModelRelas(),
+                        Collections.singletonList(semanticSchemaResp.getDataSetResp()),
+                        Collections.singletonList(semanticSchemaResp.getDatabaseResp()))
+                .map(SemanticSchemaManager::getItemsFingerprint)
+                .collect(Collectors.joining(","));
+    }
+
+    private static String getItemsFingerprint(List<? extends RecordInfo> items) {
+        if (CollectionUtils.isEmpty(items)) {
+            return "0";
+        }
+        long maxUpdatedAt = items.stream().filter(Objects::nonNull).map(RecordInfo::getUpdatedAt)
+                .filter(Objects::nonNull).mapToLong(Date::getTime).max().orElse(0L);
+        return items.size() + ":" + maxUpdatedAt;
+    }
+
+    private static SemanticModel copy(SemanticModel compiled) {
+        SemanticModel semanticModel = new SemanticModel();
+        semanticModel.setSchemaKey(compiled.getSchemaKey());
+        semanticModel.setVersion(compiled.getVersion());
+        semanticModel.setDatabase(compiled.getDatabase());
+        semanticModel.setMetrics(new ArrayList<>(compiled.getMetrics()));
+        semanticModel.setMaterializationList(new ArrayList<>(compiled.getMaterializationList()));
+        if (compiled.getJoinRelations() != null) {
+            semanticModel.setJoinRelations(new ArrayList<>(compiled.getJoinRelations()));
+        }
+        Map<String, DataSource> datasourceMap = new HashMap<>();
+        compiled.getDatasourceMap().forEach((name, dataSource) -> datasourceMap.put(name,
+                dataSource.toBuilder().build()));
+        semanticModel.setDatasourceMap(datasourceMap);
+        Map<String, List<Dimension>> dimensionMap = new HashMap<>();
+        compiled.getDimensionMap().forEach((name, dimensions) -> dimensionMap.put(name, new ArrayList<>(dimensions)));
+        semanticModel.setDimensionMap(dimensionMap);
         return semanticModel;
     }
 
@@ -133,6 +248,8 @@ public class SemanticSchemaManager {
         }
         // metric ignored
         semanticModel.setMetrics(new ArrayList<>());
+        // the tag model is not a compiled model, its plans are not cached
+        semanticModel.setVersion(null);
         return semanticModel;
     }
 
@@ -310,6 +427,37 @@ public class SemanticSchemaManager {
         return joinRelations;
     }
 
+    private static List<Materialization> getMaterializations(List<ModelResp> modelResps) {
+        List<Materialization> materializations = new ArrayList<>();
+        if (CollectionUtils.isEmpty(modelResps)) {
+            return materializations;
+        }
+        for (ModelResp modelResp : modelResps) {
+            if (Objects.isNull(modelResp.getModelDetail())
+                    || CollectionUtils.isEmpty(modelResp.getModelDetail().getMaterializations())) {
+                continue;
+            }
+            for (ModelMaterialization m : modelResp.getModelDetail().getMaterializations()) {
+                boolean bounded = Objects.nonNull(m.getStartDate()) || Objects.nonNull(m.getEndDate());
+                List<TimeRange> timeRanges = new ArrayList<>();
+                if (bounded) {
+                    timeRanges.add(TimeRange.builder().start(m.getStartDate()).end(m.getEndDate()).build());
+                }
+                Materialization materialization = Materialization.builder()
+                        .materializationId((long) materializations.size() + 1).modelId(modelResp.getId())
+                        .destinationTable(m.getDestinationTable()).rowCount(m.getRowCount())
+                        .level(m.getDimensions().size())
+                        .timePartType(bounded ? TimePartType.PARTITION : TimePartType.FULL).build();
+                materialization.setDimensions(m.getDimensions().stream().map(name -> MaterializationElement.builder()
+                        .name(name).timeRangeList(timeRanges).build()).collect(Collectors.toList()));
+                materialization.setMetrics(m.getMeasures().stream().map(name -> MaterializationElement.builder()
+                        .name(name).timeRangeList(timeRanges).build()).collect(Collectors.toList()));
+                materializations.add(materialization);
+            }
+        }
+        return materializations;
+    }
+
     public static void update(SemanticSchema schema, List<Metric> metric) throws Exception {
         if (schema != null) {
             updateMetric(metric, schema.getMetrics());
@@ -374,4 +522,18 @@ public class SemanticSchemaManager {
         metrics.addAll(metricYamlTpls);
     }
 
-}
\ No newline at end of file
+    private static class CompiledModel {
+
+        private final long version;
+
+        private final String fingerprint;
+
+        private final SemanticModel semanticModel;
+
+        CompiledModel(long version, String fingerprint, SemanticModel semanticModel) {
+            this.version = version;
+            this.fingerprint = fingerprint;
+            this.semanticModel = semanticModel;
+        }
+    }
+}
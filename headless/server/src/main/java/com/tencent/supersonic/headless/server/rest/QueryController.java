@@ -19,6 +19,7 @@ import com.tencent.supersonic.headless.api.pojo.response.ItemUseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.server.service.DownloadService;
 import com.tencent.supersonic.headless.server.service.QueryService;
+import com.tencent.supersonic.headless.server.utils.StreamResultWriter;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -50,6 +51,27 @@ public class QueryController {
         return queryService.queryByReq(querySqlReq, user);
     }
 
+    /**
+     * queryByStructStream
+     * write rows to the response while they are read from the engine
+     */
+    @PostMapping("/struct/stream")
+    public void queryByStructStream(@RequestBody QueryStructReq queryStructReq,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        User user = UserHolder.findUser(request, response);
+        QuerySqlReq querySqlReq = queryStructReq.convert(true);
+        StreamResultWriter streamResultWriter = new StreamResultWriter(response);
+        try {
+            queryService.streamByReq(querySqlReq, user, streamResultWriter);
+        } catch (Exception e) {
+            log.error("stream query error", e);
+            streamResultWriter.onError(e);
+        } finally {
+            streamResultWriter.close();
+        }
+    }
+
     @PostMapping("/queryMetricDataById")
     public ItemQueryResultResp queryMetricDataById(@Valid @RequestBody QueryItemReq queryApiReq,
             HttpServletRequest request) throws Exception {
@@ -4,6 +4,7 @@ import com.tencent.supersonic.auth.api.authentication.pojo.User;
 import com.tencent.supersonic.auth.api.authentication.utils.UserHolder;
 import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.server.service.QueryService;
+import com.tencent.supersonic.headless.server.utils.StreamResultWriter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -28,4 +29,20 @@ public class SqlQueryApiController {
         User user = UserHolder.findUser(request, response);
         return queryService.queryByReq(querySqlReq, user);
     }
+
+    @PostMapping("/sql/stream")
+    public void queryBySqlStream(@RequestBody QuerySqlReq querySqlReq,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        User user = UserHolder.findUser(request, response);
+        StreamResultWriter streamResultWriter = new StreamResultWriter(response);
+        try {
+            queryService.streamByReq(querySqlReq, user, streamResultWriter);
+        } catch (Exception e) {
+            log.error("stream query error", e);
+            streamResultWriter.onError(e);
+        } finally {
+            streamResultWriter.close();
+        }
+    }
 }
@@ -4,6 +4,7 @@ package com.tencent.supersonic.headless.server.service;
 import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.core.knowledge.DictWord;
 import com.tencent.supersonic.headless.core.knowledge.HanlpMapResult;
+import com.tencent.supersonic.headless.core.knowledge.SegmentLattice;
 
 import java.util.List;
 import java.util.Set;
@@ -16,10 +17,14 @@ public interface KnowledgeService {
 
     List<HanlpMapResult> suffixSearch(String key, int limit, Set<Long> dataSetIds);
 
+    SegmentLattice getSegmentLattice(String text, Set<Long> dataSetIds);
+
     void updateSemanticKnowledge(List<DictWord> natures);
 
     void reloadAllData(List<DictWord> natures);
 
     void updateOnlineKnowledge(List<DictWord> natures);
 
+    void removeOnlineKnowledge(List<DictWord> natures);
+
 }
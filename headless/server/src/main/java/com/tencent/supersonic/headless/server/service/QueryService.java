@@ -10,6 +10,7 @@ import com.tencent.supersonic.headless.api.pojo.response.ExplainResp;
 import com.tencent.supersonic.headless.api.pojo.response.ItemQueryResultResp;
 import com.tencent.supersonic.headless.api.pojo.response.ItemUseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.ResultRowHandler;
 import com.tencent.supersonic.headless.server.annotation.ApiHeaderCheck;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
@@ -18,6 +19,8 @@ public interface QueryService {
 
     SemanticQueryResp queryByReq(SemanticQueryReq queryReq, User user) throws Exception;
 
+    void streamByReq(SemanticQueryReq queryReq, User user, ResultRowHandler handler) throws Exception;
+
     SemanticQueryResp queryDimValue(QueryDimValueReq queryDimValueReq, User user);
 
     List<ItemUseResp> getStatInfo(ItemUseReq itemUseCommend);
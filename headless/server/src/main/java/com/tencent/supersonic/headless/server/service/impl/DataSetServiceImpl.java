@@ -30,6 +30,7 @@ import com.tencent.supersonic.headless.server.service.DimensionService;
 import com.tencent.supersonic.headless.server.service.DomainService;
 import com.tencent.supersonic.headless.server.service.MetricService;
 import com.tencent.supersonic.headless.server.service.DataSetService;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.BeanUtils;
@@ -59,6 +60,9 @@ public class DataSetServiceImpl
     @Autowired
     private DomainService domainService;
 
+    @Autowired
+    private SchemaVersionUtils schemaVersionUtils;
+
     @Lazy
     @Autowired
     private DimensionService dimensionService;
@@ -75,6 +79,7 @@ public class DataSetServiceImpl
         DataSetResp dataSetResp = convert(dataSetDO);
         conflictCheck(dataSetResp);
         save(dataSetDO);
+        schemaVersionUtils.increase();
         return dataSetResp;
     }
 
@@ -85,6 +90,7 @@ public class DataSetServiceImpl
         DataSetResp dataSetResp = convert(dataSetDO);
         conflictCheck(dataSetResp);
         updateById(dataSetDO);
+        schemaVersionUtils.increase();
         return dataSetResp;
     }
 
@@ -117,6 +123,7 @@ public class DataSetServiceImpl
         dataSetDO.setUpdatedBy(user.getName());
         dataSetDO.setUpdatedAt(new Date());
         updateById(dataSetDO);
+        schemaVersionUtils.increase();
     }
 
     @Override
@@ -21,6 +21,7 @@ import com.tencent.supersonic.headless.server.pojo.ModelFilter;
 import com.tencent.supersonic.headless.server.service.DatabaseService;
 import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.utils.DatabaseConverter;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
@@ -39,13 +40,16 @@ public class DatabaseServiceImpl implements DatabaseService {
     private final SqlUtils sqlUtils;
     private DatabaseRepository databaseRepository;
     private ModelService datasourceService;
+    private final SchemaVersionUtils schemaVersionUtils;
 
     public DatabaseServiceImpl(DatabaseRepository databaseRepository,
             SqlUtils sqlUtils,
-            @Lazy ModelService datasourceService) {
+            @Lazy ModelService datasourceService,
+            SchemaVersionUtils schemaVersionUtils) {
         this.databaseRepository = databaseRepository;
         this.sqlUtils = sqlUtils;
         this.datasourceService = datasourceService;
+        this.schemaVersionUtils = schemaVersionUtils;
     }
 
     @Override
@@ -62,6 +66,8 @@ public class DatabaseServiceImpl implements DatabaseService {
             database.updatedBy(user.getName());
             DatabaseConverter.convert(database, databaseDO);
             databaseRepository.updateDatabase(databaseDO);
+            sqlUtils.invalidate(databaseDO.getId());
+            schemaVersionUtils.increase();
             return DatabaseConverter.convertWithPassword(databaseDO);
         }
         database.createdBy(user.getName());
@@ -107,6 +113,8 @@ public class DatabaseServiceImpl implements DatabaseService {
             throw new RuntimeException(message);
         }
         databaseRepository.deleteDatabase(databaseId);
+        sqlUtils.invalidate(databaseId);
+        schemaVersionUtils.increase();
     }
 
     @Override
@@ -21,7 +21,9 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -61,9 +63,14 @@ public class DictTaskServiceImpl implements DictTaskService {
             return 0L;
         }
         DictItemResp dictItemResp = fetchDictItemResp(taskReq);
-        return handleDictTaskByItemResp(dictItemResp, user);
+        Long idInDb = handleDictTaskByItemResp(dictItemResp, user);
+        publishCustomDictionary();
+        return idInDb;
     }
 
+    /**
+     * the changed words are applied in place, call publishCustomDictionary after a batch of items
+     */
     private Long handleDictTaskByItemResp(DictItemResp dictItemResp, User user) {
         DictTaskDO dictTaskDO = dictConverter.generateDictTaskDO(dictItemResp, user, TaskStatusEnum.PENDING);
         log.info("[addDictTask] dictTaskDO:{}", dictTaskDO);
@@ -100,30 +107,43 @@ public class DictTaskServiceImpl implements DictTaskService {
 
         // 2.Change dictionary file
         String fileName = dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
+        List<String> loadedLines = fileHandler.readFile(fileName);
         fileHandler.writeFile(data, fileName, false);
+        HanlpHelper.compileCustomDictionary(fileHandler.getDictRootPath() + File.separator + fileName);
 
-        // 3.Change in-memory dictionary data in real time
+        // 3.Change in-memory dictionary data in real time by the changed words only
         try {
-            HanlpHelper.reloadCustomDictionary();
+            HanlpHelper.updateCustomDictionary(loadedLines, fileHandler.readFile(fileName));
             dictTaskDO.setStatus(TaskStatusEnum.SUCCESS.getStatus());
             dictRepository.editDictTask(dictTaskDO);
-        } catch (IOException e) {
-            log.error("reloadCustomDictionary error", e);
+        } catch (Exception e) {
+            log.error("updateCustomDictionary error", e);
         }
 
     }
 
+    private void publishCustomDictionary() {
+        try {
+            HanlpHelper.publishCustomDictionary();
+        } catch (IOException e) {
+            log.error("publishCustomDictionary error", e);
+        }
+    }
+
     @Override
     public Long deleteDictTask(DictSingleTaskReq taskReq, User user) {
         DictItemResp dictItemResp = fetchDictItemResp(taskReq);
         String fileName = dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
+        List<String> loadedLines = fileHandler.readFile(fileName);
         fileHandler.deleteDictFile(fileName);
+        HanlpHelper.deleteCompiledDictionary(fileHandler.getDictRootPath() + File.separator + fileName);
 
         try {
-            HanlpHelper.reloadCustomDictionary();
+            HanlpHelper.updateCustomDictionary(loadedLines, Collections.emptyList());
         } catch (Exception e) {
-            log.error("reloadCustomDictionary error", e);
+            log.error("updateCustomDictionary error", e);
         }
+        publishCustomDictionary();
         // Add a clear dictionary file record
         DictTaskDO dictTaskDO = dictConverter.generateDictTaskDO(dictItemResp, user, TaskStatusEnum.INITIAL);
         log.info("[addDictTask] dictTaskDO:{}", dictTaskDO);
@@ -141,6 +161,7 @@ public class DictTaskServiceImpl implements DictTaskService {
         DictItemFilter filter = DictItemFilter.builder().status(StatusEnum.ONLINE).build();
         List<DictItemResp> dictItemRespList = dictRepository.queryDictConf(filter);
         dictItemRespList.stream().forEach(item -> handleDictTaskByItemResp(item, null));
+        publishCustomDictionary();
         log.info("[dailyDictTask] finish");
         return true;
     }
@@ -38,6 +38,7 @@ import com.tencent.supersonic.headless.server.service.ModelRelaService;
 import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.utils.DimensionConverter;
 import com.tencent.supersonic.headless.server.utils.NameCheckUtils;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -72,6 +73,9 @@ public class DimensionServiceImpl implements DimensionService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private SchemaVersionUtils schemaVersionUtils;
+
 
     public DimensionServiceImpl(DimensionRepository dimensionRepository,
             ModelService modelService,
@@ -130,6 +134,7 @@ public class DimensionServiceImpl implements DimensionService {
         String oldName = dimensionDO.getName();
         DimensionConverter.convert(dimensionDO, dimensionReq);
         dimensionRepository.updateDimension(dimensionDO);
+        schemaVersionUtils.increase();
         if (!oldName.equals(dimensionDO.getName())) {
             sendEvent(DataItem.builder().modelId(dimensionDO.getModelId() + Constants.UNDERLINE)
                     .newName(dimensionReq.getName()).name(oldName).type(TypeEnums.DIMENSION)
@@ -28,6 +28,7 @@ import com.tencent.supersonic.headless.server.service.DimensionService;
 import com.tencent.supersonic.headless.server.service.DownloadService;
 import com.tencent.supersonic.headless.server.service.MetricService;
 import com.tencent.supersonic.headless.server.service.QueryService;
+import com.tencent.supersonic.headless.server.utils.SubQueryExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.stereotype.Service;
@@ -65,11 +66,15 @@ public class DownloadServiceImpl implements DownloadService {
 
     private QueryService queryService;
 
+    private SubQueryExecutor subQueryExecutor;
+
     public DownloadServiceImpl(MetricService metricService,
-            DimensionService dimensionService, QueryService queryService) {
+            DimensionService dimensionService, QueryService queryService,
+            SubQueryExecutor subQueryExecutor) {
         this.metricService = metricService;
         this.dimensionService = dimensionService;
         this.queryService = queryService;
+        this.subQueryExecutor = subQueryExecutor;
     }
 
     @Override
@@ -124,21 +129,25 @@ public class DownloadServiceImpl implements DownloadService {
             }
             MetricResp metricResp = metrics.get(0);
             List<DimensionResp> dimensions = getMetricRelaDimensions(metricResp, dimensionRespMap);
-            for (MetricResp metric : metrics) {
-                try {
+            String sheetName = "Sheet" + sheetCount;
+            try {
+                // the metrics of a sheet are queried at the same time and each one is written as soon as
+                // the metrics before it are, only a few downloads are held in memory at once
+                subQueryExecutor.invokeInOrder(metrics, metric -> {
                     DownloadStructReq downloadStructReq = buildDownloadReq(dimensions, metric, batchDownloadReq);
                     QuerySqlReq querySqlReq = downloadStructReq.convert();
                     querySqlReq.setNeedAuth(true);
                     SemanticQueryResp queryResult = queryService.queryByReq(querySqlReq, user);
-                    DataDownload dataDownload = buildDataDownload(queryResult, downloadStructReq);
-                    WriteSheet writeSheet = EasyExcel.writerSheet("Sheet" + sheetCount)
+                    return buildDataDownload(queryResult, downloadStructReq);
+                }, dataDownload -> {
+                    WriteSheet writeSheet = EasyExcel.writerSheet(sheetName)
                             .head(dataDownload.getHeaders()).build();
                     excelWriter.write(dataDownload.getData(), writeSheet);
-                } catch (RuntimeException e) {
-                    EasyExcel.write(file).sheet("Sheet1").head(buildErrMessageHead())
-                            .doWrite(buildErrMessageData(e.getMessage()));
-                    return;
-                }
+                });
+            } catch (RuntimeException e) {
+                EasyExcel.write(file).sheet("Sheet1").head(buildErrMessageHead())
+                        .doWrite(buildErrMessageData(e.getMessage()));
+                return;
             }
             sheetCount++;
         }
@@ -5,26 +5,39 @@ import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.core.knowledge.DictWord;
 import com.tencent.supersonic.headless.core.knowledge.HanlpMapResult;
 import com.tencent.supersonic.headless.core.knowledge.SearchService;
+import com.tencent.supersonic.headless.core.knowledge.SegmentLattice;
 import com.tencent.supersonic.headless.core.knowledge.helper.HanlpHelper;
 import com.tencent.supersonic.headless.server.service.KnowledgeService;
 import com.tencent.supersonic.headless.server.service.DataSetService;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class KnowledgeServiceImpl implements KnowledgeService {
 
+    private static final long SNAPSHOT_EXPIRE = TimeUnit.SECONDS.toMillis(30);
+
     private final DataSetService dataSetService;
 
-    public KnowledgeServiceImpl(DataSetService dataSetService) {
+    private final SchemaVersionUtils schemaVersionUtils;
+
+    private volatile ModelIdToDataSetIds modelIdToDataSetIds = new ModelIdToDataSetIds(-1, new HashMap<>());
+
+    public KnowledgeServiceImpl(DataSetService dataSetService, SchemaVersionUtils schemaVersionUtils) {
         this.dataSetService = dataSetService;
+        this.schemaVersionUtils = schemaVersionUtils;
     }
 
     @Override
@@ -67,15 +80,35 @@ public class KnowledgeServiceImpl implements KnowledgeService {
         }
     }
 
+    @Override
+    public void removeOnlineKnowledge(List<DictWord> natures) {
+        for (DictWord dictWord : natures) {
+            try {
+                String[] param = dictWord.getNatureWithFrequency().split(" ");
+                for (int i = 0; i < param.length; i += 2) {
+                    if (param[i].contains(DictWordType.SUFFIX.getType())) {
+                        SearchService.removeSuffix(dictWord.getWord(), param[i]);
+                        continue;
+                    }
+                    DictWord nature = new DictWord();
+                    nature.setWord(dictWord.getWord());
+                    nature.setNature(param[i]);
+                    HanlpHelper.removeFromCustomDictionary(nature);
+                }
+            } catch (Exception e) {
+                log.error("removeOnlineKnowledge error, dictWord:{}", dictWord, e);
+            }
+        }
+    }
+
     @Override
     public List<S2Term> getTerms(String text) {
-        Map<Long, List<Long>> modelIdToDataSetIds = dataSetService.getModelIdToDataSetIds(new ArrayList<>());
-        return HanlpHelper.getTerms(text, modelIdToDataSetIds);
+        return HanlpHelper.getTerms(text, getModelIdToDataSetIds(new ArrayList<>()));
     }
 
     @Override
     public List<HanlpMapResult> prefixSearch(String key, int limit, Set<Long> dataSetIds) {
-        Map<Long, List<Long>> modelIdToDataSetIds = dataSetService.getModelIdToDataSetIds(new ArrayList<>(dataSetIds));
+        Map<Long, List<Long>> modelIdToDataSetIds = getModelIdToDataSetIds(dataSetIds);
         return prefixSearchByModel(key, limit, modelIdToDataSetIds);
     }
 
@@ -86,7 +119,7 @@ public class KnowledgeServiceImpl implements KnowledgeService {
 
     @Override
     public List<HanlpMapResult> suffixSearch(String key, int limit, Set<Long> dataSetIds) {
-        Map<Long, List<Long>> modelIdToDataSetIds = dataSetService.getModelIdToDataSetIds(new ArrayList<>(dataSetIds));
+        Map<Long, List<Long>> modelIdToDataSetIds = getModelIdToDataSetIds(dataSetIds);
         return suffixSearchByModel(key, limit, modelIdToDataSetIds.keySet());
     }
 
@@ -94,4 +127,48 @@ public class KnowledgeServiceImpl implements KnowledgeService {
         return SearchService.suffixSearch(key, limit, models);
     }
 
-}
\ No newline at end of file
+    @Override
+    public SegmentLattice getSegmentLattice(String text, Set<Long> dataSetIds) {
+        return SearchService.getSegmentLattice(text, getModelIdToDataSetIds(dataSetIds).keySet());
+    }
+
+    /**
+     * the model to data set mapping of the online data sets is kept as a snapshot of the schema
+     * version, and narrowed to the given data sets on read. Like the data set cache the snapshot
+     * is also rebuilt after 30 seconds, for the changes made by other instances
+     */
+    private Map<Long, List<Long>> getModelIdToDataSetIds(Collection<Long> dataSetIds) {
+        ModelIdToDataSetIds snapshot = modelIdToDataSetIds;
+        long version = schemaVersionUtils.getVersion();
+        if (snapshot.version != version || System.currentTimeMillis() - snapshot.createTime > SNAPSHOT_EXPIRE) {
+            snapshot = new ModelIdToDataSetIds(version, dataSetService.getModelIdToDataSetIds(new ArrayList<>()));
+            modelIdToDataSetIds = snapshot;
+        }
+        if (CollectionUtils.isEmpty(dataSetIds)) {
+            return snapshot.modelIdToDataSetIds;
+        }
+        Map<Long, List<Long>> result = new HashMap<>();
+        snapshot.modelIdToDataSetIds.forEach((modelId, ids) -> {
+            List<Long> selected = ids.stream().filter(dataSetIds::contains).collect(Collectors.toList());
+            if (!selected.isEmpty()) {
+                result.put(modelId, selected);
+            }
+        });
+        return result;
+    }
+
+    private static class ModelIdToDataSetIds {
+
+        private final long version;
+
+        private final Map<Long, List<Long>> modelIdToDataSetIds;
+
+        private final long createTime = System.currentTimeMillis();
+
+        ModelIdToDataSetIds(long version, Map<Long, List<Long>> modelIdToDataSetIds) {
+            this.version = version;
+            this.modelIdToDataSetIds = modelIdToDataSetIds;
+        }
+    }
+
+}
@@ -50,6 +50,7 @@ import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.utils.MetricCheckUtils;
 import com.tencent.supersonic.headless.server.utils.MetricConverter;
 import com.tencent.supersonic.headless.server.utils.ModelClusterBuilder;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationEventPublisher;
@@ -85,13 +86,16 @@ public class MetricServiceImpl implements MetricService {
 
     private ApplicationEventPublisher eventPublisher;
 
+    private SchemaVersionUtils schemaVersionUtils;
+
     public MetricServiceImpl(MetricRepository metricRepository,
             ModelService modelService,
             ChatGptHelper chatGptHelper,
             CollectService collectService,
             DataSetService dataSetService,
             ApplicationEventPublisher eventPublisher,
-            DimensionService dimensionService) {
+            DimensionService dimensionService,
+            SchemaVersionUtils schemaVersionUtils) {
         this.metricRepository = metricRepository;
         this.modelService = modelService;
         this.chatGptHelper = chatGptHelper;
@@ -99,6 +103,7 @@ public class MetricServiceImpl implements MetricService {
         this.collectService = collectService;
         this.dataSetService = dataSetService;
         this.dimensionService = dimensionService;
+        this.schemaVersionUtils = schemaVersionUtils;
     }
 
     @Override
@@ -144,6 +149,7 @@ public class MetricServiceImpl implements MetricService {
         String oldName = metricDO.getName();
         MetricConverter.convert(metricDO, metricReq);
         metricRepository.updateMetric(metricDO);
+        schemaVersionUtils.increase();
         if (!oldName.equals(metricDO.getName())) {
             DataItem dataItem = getDataItem(metricDO);
             dataItem.setName(oldName);
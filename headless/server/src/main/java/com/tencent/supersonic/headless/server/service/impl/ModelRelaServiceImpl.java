@@ -11,6 +11,8 @@ import com.tencent.supersonic.common.util.BeanMapper;
 import com.tencent.supersonic.headless.server.persistence.dataobject.ModelRelaDO;
 import com.tencent.supersonic.headless.server.persistence.mapper.ModelRelaDOMapper;
 import com.tencent.supersonic.headless.server.service.ModelRelaService;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -21,11 +23,15 @@ import java.util.stream.Collectors;
 public class ModelRelaServiceImpl
         extends ServiceImpl<ModelRelaDOMapper, ModelRelaDO> implements ModelRelaService {
 
+    @Autowired
+    private SchemaVersionUtils schemaVersionUtils;
+
     @Override
     public void save(ModelRela modelRela, User user) {
         modelRela.createdBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         save(modelRelaDO);
+        schemaVersionUtils.increase();
     }
 
     @Override
@@ -33,6 +39,7 @@ public class ModelRelaServiceImpl
         modelRela.updatedBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         updateById(modelRelaDO);
+        schemaVersionUtils.increase();
     }
 
     @Override
@@ -56,6 +63,7 @@ public class ModelRelaServiceImpl
     @Override
     public void delete(Long id) {
         removeById(id);
+        schemaVersionUtils.increase();
     }
 
     private ModelRela convert(ModelRelaDO modelRelaDO) {
@@ -40,6 +40,7 @@ import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.service.DataSetService;
 import com.tencent.supersonic.headless.server.utils.ModelConverter;
 import com.tencent.supersonic.headless.server.utils.NameCheckUtils;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
@@ -80,6 +81,8 @@ public class ModelServiceImpl implements ModelService {
 
     private DateInfoRepository dateInfoRepository;
 
+    private SchemaVersionUtils schemaVersionUtils;
+
     public ModelServiceImpl(ModelRepository modelRepository,
             DatabaseService databaseService,
             @Lazy DimensionService dimensionService,
@@ -87,7 +90,8 @@ public class ModelServiceImpl implements ModelService {
             DomainService domainService,
             UserService userService,
             DataSetService dataSetService,
-            DateInfoRepository dateInfoRepository) {
+            DateInfoRepository dateInfoRepository,
+            SchemaVersionUtils schemaVersionUtils) {
         this.modelRepository = modelRepository;
         this.databaseService = databaseService;
         this.dimensionService = dimensionService;
@@ -96,6 +100,7 @@ public class ModelServiceImpl implements ModelService {
         this.userService = userService;
         this.dataSetService = dataSetService;
         this.dateInfoRepository = dateInfoRepository;
+        this.schemaVersionUtils = schemaVersionUtils;
     }
 
     @Override
@@ -106,6 +111,7 @@ public class ModelServiceImpl implements ModelService {
         modelRepository.createModel(modelDO);
         batchCreateDimension(modelDO, user);
         batchCreateMetric(modelDO, user);
+        schemaVersionUtils.increase();
         return ModelConverter.convert(modelDO);
     }
 
@@ -120,6 +126,7 @@ public class ModelServiceImpl implements ModelService {
         batchCreateDimension(modelDO, user);
         batchCreateMetric(modelDO, user);
         statusPublish(oldStatus, modelDO);
+        schemaVersionUtils.increase();
         return ModelConverter.convert(modelDO);
     }
 
@@ -174,6 +181,7 @@ public class ModelServiceImpl implements ModelService {
         datasourceDO.setUpdatedAt(new Date());
         datasourceDO.setUpdatedBy(user.getName());
         modelRepository.updateModel(datasourceDO);
+        schemaVersionUtils.increase();
     }
 
     @Override
@@ -418,6 +426,7 @@ public class ModelServiceImpl implements ModelService {
                 })
                 .collect(Collectors.toList());
         modelRepository.batchUpdate(modelDOS);
+        schemaVersionUtils.increase();
     }
 
     protected ModelDO getModelDO(Long id) {
@@ -6,6 +6,7 @@ import com.tencent.supersonic.auth.api.authentication.pojo.User;
 import com.tencent.supersonic.common.pojo.Aggregator;
 import com.tencent.supersonic.common.pojo.Constants;
 import com.tencent.supersonic.common.pojo.DateConf;
+import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.enums.ApiItemType;
 import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
 import com.tencent.supersonic.common.pojo.enums.TimeDimensionEnum;
@@ -34,7 +35,10 @@ import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
 import com.tencent.supersonic.headless.core.cache.QueryCache;
+import com.tencent.supersonic.headless.core.executor.QueryCursor;
+import com.tencent.supersonic.headless.core.executor.QueryCursorManager;
 import com.tencent.supersonic.headless.core.executor.QueryExecutor;
+import com.tencent.supersonic.headless.core.executor.ResultRowHandler;
 import com.tencent.supersonic.headless.core.parser.DefaultQueryParser;
 import com.tencent.supersonic.headless.core.parser.QueryParser;
 import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
@@ -50,10 +54,12 @@ import com.tencent.supersonic.headless.server.service.QueryService;
 import com.tencent.supersonic.headless.server.utils.QueryReqConverter;
 import com.tencent.supersonic.headless.server.utils.QueryUtils;
 import com.tencent.supersonic.headless.server.utils.StatUtils;
+import com.tencent.supersonic.headless.server.utils.SubQueryExecutor;
 import com.tencent.supersonic.headless.server.utils.TagConverter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
@@ -79,6 +85,8 @@ public class QueryServiceImpl implements QueryService {
     private final SemanticSchemaManager semanticSchemaManager;
     private final QueryParser queryParser;
     private final QueryPlanner queryPlanner;
+    private final QueryCursorManager queryCursorManager;
+    private final SubQueryExecutor subQueryExecutor;
 
     public QueryServiceImpl(
             StatUtils statUtils,
@@ -89,7 +97,9 @@ public class QueryServiceImpl implements QueryService {
             QueryCache queryCache,
             SemanticSchemaManager semanticSchemaManager,
             DefaultQueryParser queryParser,
-            QueryPlanner queryPlanner) {
+            QueryPlanner queryPlanner,
+            QueryCursorManager queryCursorManager,
+            SubQueryExecutor subQueryExecutor) {
         this.statUtils = statUtils;
         this.queryUtils = queryUtils;
         this.queryReqConverter = queryReqConverter;
@@ -100,6 +110,8 @@ public class QueryServiceImpl implements QueryService {
         this.semanticSchemaManager = semanticSchemaManager;
         this.queryParser = queryParser;
         this.queryPlanner = queryPlanner;
+        this.queryCursorManager = queryCursorManager;
+        this.subQueryExecutor = subQueryExecutor;
     }
 
     @Override
@@ -111,22 +123,31 @@ public class QueryServiceImpl implements QueryService {
         try {
             //1.initStatInfo
             statUtils.initStatInfo(queryReq, user);
-            //2.query from cache
-            String cacheKey = queryCache.getCacheKey(queryReq);
-            Object query = queryCache.query(queryReq, cacheKey);
-            if (Objects.nonNull(query)) {
-                return (SemanticQueryResp) query;
+            //2.page through a server-side cursor, pages are never cached
+            if (StringUtils.isNotBlank(queryReq.getContinuationToken())) {
+                StatUtils.get().setUseResultCache(false);
+                return fetchCursor(queryReq, user);
             }
-            StatUtils.get().setUseResultCache(false);
-            //3 query
-            QueryStatement queryStatement = buildQueryStatement(queryReq);
-            SemanticQueryResp result = query(queryStatement);
-            //4 reset cache and set stateInfo
-            Boolean setCacheSuccess = queryCache.put(cacheKey, result);
-            if (setCacheSuccess) {
-                // if result is not null, update cache data
-                statUtils.updateResultCacheKey(cacheKey);
+            if (Objects.nonNull(queryReq.getCursorPageSize()) && queryReq.getCursorPageSize() > 0) {
+                StatUtils.get().setUseResultCache(false);
+                SemanticQueryResp result = openCursor(queryReq, user);
+                if (Objects.nonNull(result)) {
+                    return result;
+                }
             }
+            //3.query from cache, concurrent identical queries wait for the running one
+            String cacheKey = queryCache.getCacheKey(queryReq);
+            SemanticQueryResp result = (SemanticQueryResp) queryCache.load(queryReq, cacheKey, () -> {
+                StatUtils.get().setUseResultCache(false);
+                //4 query
+                SemanticQueryResp queryResp = queryReq instanceof QueryMultiStructReq
+                        ? queryMultiStruct((QueryMultiStructReq) queryReq) : query(buildQueryStatement(queryReq));
+                //5 set stateInfo
+                if (Objects.nonNull(queryResp)) {
+                    statUtils.updateResultCacheKey(cacheKey);
+                }
+                return queryResp;
+            });
             if (Objects.isNull(result)) {
                 state = TaskStatusEnum.ERROR;
             }
@@ -140,6 +161,59 @@ public class QueryServiceImpl implements QueryService {
         }
     }
 
+    @Override
+    @S2DataPermission
+    public void streamByReq(SemanticQueryReq queryReq, User user, ResultRowHandler handler) throws Exception {
+        TaskStatusEnum state = TaskStatusEnum.SUCCESS;
+        log.info("[stream queryReq:{}]", queryReq);
+        try {
+            statUtils.initStatInfo(queryReq, user);
+            StatUtils.get().setUseResultCache(false);
+            QueryStatement queryStatement = buildQueryStatement(queryReq);
+            queryParser.parse(queryStatement);
+            QueryExecutor queryExecutor = queryPlanner.plan(queryStatement);
+            if (queryExecutor == null) {
+                state = TaskStatusEnum.ERROR;
+                handler.onError(new InvalidArgumentException("no executor can run the query"));
+                return;
+            }
+            SemanticSchemaResp semanticSchemaResp = queryStatement.getSemanticSchemaResp();
+            queryExecutor.execute(queryStatement, new ResultRowHandler() {
+                @Override
+                public void onColumns(List<QueryColumn> columns) {
+                    queryUtils.fillItemNameInfo(columns, semanticSchemaResp);
+                    handler.onColumns(columns);
+                }
+
+                @Override
+                public void onRows(List<Map<String, Object>> rows) {
+                    handler.onRows(rows);
+                }
+
+                @Override
+                public void onTruncated() {
+                    handler.onTruncated();
+                }
+
+                @Override
+                public void onComplete() {
+                    handler.onComplete();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    handler.onError(e);
+                }
+            });
+        } catch (Exception e) {
+            log.error("exception in streamByReq, e: ", e);
+            state = TaskStatusEnum.ERROR;
+            throw e;
+        } finally {
+            statUtils.statInfo2DbAsync(state);
+        }
+    }
+
     private QueryStatement buildSqlQueryStatement(QuerySqlReq querySqlReq) throws Exception {
         SchemaFilterReq filter = buildSchemaFilterReq(querySqlReq);
         SemanticSchemaResp semanticSchemaResp = catalog.fetchSemanticSchema(filter);
@@ -152,6 +226,34 @@ public class QueryServiceImpl implements QueryService {
         return queryStatement;
     }
 
+    private SemanticQueryResp openCursor(SemanticQueryReq queryReq, User user) throws Exception {
+        QueryStatement queryStatement = buildQueryStatement(queryReq);
+        queryParser.parse(queryStatement);
+        QueryExecutor queryExecutor = queryPlanner.plan(queryStatement);
+        if (queryExecutor == null) {
+            return null;
+        }
+        String source = String.valueOf(queryStatement.getSemanticModel().getDatabase().getId());
+        QueryCursor queryCursor = queryCursorManager.open(source, () -> queryExecutor.openCursor(queryStatement));
+        if (queryCursor == null) {
+            log.info("executor does not support cursor, fall back to a full query");
+            return null;
+        }
+        SemanticQueryResp semanticQueryResp = queryCursorManager.register(queryCursor, user.getName(),
+                queryReq.getCursorPageSize());
+        queryUtils.fillItemNameInfo(semanticQueryResp.getColumns(), queryStatement.getSemanticSchemaResp());
+        semanticQueryResp.setSql(queryStatement.getSql());
+        return semanticQueryResp;
+    }
+
+    private SemanticQueryResp fetchCursor(SemanticQueryReq queryReq, User user) throws Exception {
+        SemanticQueryResp semanticQueryResp = queryCursorManager.fetch(queryReq.getContinuationToken(),
+                user.getName(), queryReq.getCursorPageSize());
+        SemanticSchemaResp semanticSchemaResp = catalog.fetchSemanticSchema(buildSchemaFilterReq(queryReq));
+        queryUtils.fillItemNameInfo(semanticQueryResp.getColumns(), semanticSchemaResp);
+        return semanticQueryResp;
+    }
+
     private QueryStatement buildQueryStatement(SemanticQueryReq semanticQueryReq) throws Exception {
         if (semanticQueryReq instanceof QuerySqlReq) {
             return buildSqlQueryStatement((QuerySqlReq) semanticQueryReq);
@@ -186,18 +288,56 @@ public class QueryServiceImpl implements QueryService {
 
     private QueryStatement buildMultiStructQueryStatement(QueryMultiStructReq queryMultiStructReq)
             throws Exception {
-        List<QueryStatement> sqlParsers = new ArrayList<>();
-        for (QueryStructReq queryStructReq : queryMultiStructReq.getQueryStructReqs()) {
-            QueryStatement queryStatement = buildQueryStatement(queryStructReq);
-            SemanticModel semanticModel = queryStatement.getSemanticModel();
-            queryStatement.setModelIds(queryStructReq.getModelIds());
-            queryStatement.setSemanticModel(semanticModel);
-            queryStatement.setEnableOptimize(queryUtils.enableOptimize());
-            queryStatement = plan(queryStatement);
-            sqlParsers.add(queryStatement);
-        }
+        return queryUtils.sqlParserUnion(queryMultiStructReq, planMultiStruct(queryMultiStructReq));
+    }
+
+    /**
+     * plan the struct queries at the same time, the statements are in the order of the queries
+     */
+    private List<QueryStatement> planMultiStruct(QueryMultiStructReq queryMultiStructReq) throws Exception {
+        List<QueryStatement> sqlParsers = subQueryExecutor.invokeAll(queryMultiStructReq.getQueryStructReqs(),
+                queryStructReq -> {
+                    QueryStatement queryStatement = buildQueryStatement(queryStructReq);
+                    queryStatement.setModelIds(queryStructReq.getModelIds());
+                    queryStatement.setEnableOptimize(queryUtils.enableOptimize());
+                    return plan(queryStatement);
+                });
         log.info("multi sqlParser:{}", sqlParsers);
-        return queryUtils.sqlParserUnion(queryMultiStructReq, sqlParsers);
+        return sqlParsers;
+    }
+
+    /**
+     * run the struct queries as one union sql, or when the union is disabled run each of them at the
+     * same time and union the results in memory
+     */
+    private SemanticQueryResp queryMultiStruct(QueryMultiStructReq queryMultiStructReq) throws Exception {
+        List<QueryStatement> sqlParsers = planMultiStruct(queryMultiStructReq);
+        if (queryUtils.isUnionEnable() || sqlParsers.size() <= 1) {
+            return execute(queryUtils.sqlParserUnion(queryMultiStructReq, sqlParsers));
+        }
+        List<QueryStatement> unionParts = new ArrayList<>();
+        for (int i = 0; i < sqlParsers.size(); i++) {
+            QueryStatement queryStatement = sqlParsers.get(i);
+            queryStatement.setSql(queryUtils.getUnionPartSql(queryMultiStructReq, queryStatement, i));
+            unionParts.add(queryStatement);
+        }
+        List<SemanticQueryResp> results = subQueryExecutor.invokeAll(unionParts, this::execute);
+        if (results.stream().allMatch(Objects::isNull)) {
+            return null;
+        }
+        return queryUtils.unionResults(results);
+    }
+
+    private SemanticQueryResp execute(QueryStatement queryStatement) {
+        QueryExecutor queryExecutor = queryPlanner.route(queryStatement);
+        if (queryExecutor == null) {
+            return null;
+        }
+        SemanticQueryResp semanticQueryResp = queryExecutor.execute(queryStatement);
+        if (semanticQueryResp != null) {
+            queryUtils.fillItemNameInfo(semanticQueryResp, queryStatement.getSemanticSchemaResp());
+        }
+        return semanticQueryResp;
     }
 
     private QueryStatement buildTagQueryStatement(QueryTagReq queryTagReq)
@@ -239,7 +379,9 @@ public class QueryServiceImpl implements QueryService {
     public <T> ExplainResp explain(ExplainSqlReq<T> explainSqlReq, User user) throws Exception {
         T queryReq = explainSqlReq.getQueryReq();
         QueryStatement queryStatement = buildQueryStatement((SemanticQueryReq) queryReq);
-        queryStatement = plan(queryStatement);
+        if (!(queryReq instanceof QueryMultiStructReq)) {
+            queryStatement = plan(queryStatement);
+        }
         return getExplainResp(queryStatement);
     }
 
@@ -323,10 +465,14 @@ public class QueryServiceImpl implements QueryService {
 
     private ExplainResp getExplainResp(QueryStatement queryStatement) {
         String sql = "";
+        String materialization = null;
         if (Objects.nonNull(queryStatement)) {
             sql = queryStatement.getSql();
+            if (Objects.nonNull(queryStatement.getMaterialization())) {
+                materialization = queryStatement.getMaterialization().getDestinationTable();
+            }
         }
-        return ExplainResp.builder().sql(sql).build();
+        return ExplainResp.builder().sql(sql).materialization(materialization).build();
     }
 
     private QuerySqlReq buildQuerySqlReq(QueryDimValueReq queryDimValueReq) {
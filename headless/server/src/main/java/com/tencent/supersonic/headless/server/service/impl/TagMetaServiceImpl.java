@@ -28,6 +28,7 @@ import com.tencent.supersonic.headless.server.service.CollectService;
 import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.service.TagMetaService;
 import com.tencent.supersonic.headless.server.utils.NameCheckUtils;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -41,6 +42,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -52,6 +54,8 @@ public class TagMetaServiceImpl implements TagMetaService {
     private final ModelService modelService;
     private final CollectService collectService;
     private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private SchemaVersionUtils schemaVersionUtils;
 
     public TagMetaServiceImpl(TagRepository tagRepository, ModelService modelService,
                               CollectService collectService, ApplicationEventPublisher eventPublisher) {
@@ -109,6 +113,7 @@ public class TagMetaServiceImpl implements TagMetaService {
         tagDO.setUpdatedBy(user.getName());
         tagDO.setUpdatedAt(new Date());
         tagRepository.update(tagDO);
+        schemaVersionUtils.increase();
         if (!oldName.equals(tagReq.getName())) {
             DataItem dataItem = getDataItem(tagDO);
             dataItem.setName(oldName);
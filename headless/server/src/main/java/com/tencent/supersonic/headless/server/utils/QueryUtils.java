@@ -18,11 +18,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -45,6 +48,9 @@ public class QueryUtils {
     @Value("${query.optimizer.enable:true}")
     private Boolean optimizeEnable;
 
+    @Value("${query.multi.union.enable:true}")
+    private boolean unionEnable;
+
     @PostConstruct
     public void fillPattern() {
         Set<String> aggFunctions = new HashSet<>(Arrays.asList("MAX", "MIN", "SUM", "AVG"));
@@ -55,6 +61,10 @@ public class QueryUtils {
     }
 
     public void fillItemNameInfo(SemanticQueryResp semanticQueryResp, SemanticSchemaResp semanticSchemaResp) {
+        fillItemNameInfo(semanticQueryResp.getColumns(), semanticSchemaResp);
+    }
+
+    public void fillItemNameInfo(List<QueryColumn> columns, SemanticSchemaResp semanticSchemaResp) {
         List<MetricSchemaResp> metricDescList = semanticSchemaResp.getMetrics();
         List<DimSchemaResp> dimSchemaResps = semanticSchemaResp.getDimensions();
         Map<String, MetricResp> metricRespMap =
@@ -70,7 +80,6 @@ public class QueryUtils {
             namePair.put(dimensionDesc.getBizName(), dimensionDesc.getName());
             nameTypePair.put(dimensionDesc.getBizName(), dimensionDesc.getSemanticType());
         });
-        List<QueryColumn> columns = semanticQueryResp.getColumns();
         columns.forEach(column -> {
             String nameEn = getName(column.getNameEn().toLowerCase());
             if (nameEn.contains(JOIN_UNDERLINE)) {
@@ -149,19 +158,62 @@ public class QueryUtils {
         QueryStatement sqlParser = new QueryStatement();
         StringBuilder unionSqlBuilder = new StringBuilder();
         for (int i = 0; i < sqlParsers.size(); i++) {
-            String selectStr = SqlGenerateUtils.getUnionSelect(queryMultiStructCmd.getQueryStructReqs().get(i));
-            unionSqlBuilder.append(String.format("select %s from ( %s ) sub_sql_%s",
-                    selectStr,
-                    sqlParsers.get(i).getSql(), i));
+            unionSqlBuilder.append(getUnionPartSql(queryMultiStructCmd, sqlParsers.get(i), i));
             unionSqlBuilder.append(UNIONALL);
         }
         String unionSql = unionSqlBuilder.substring(0, unionSqlBuilder.length() - Constants.UNIONALL.length());
         sqlParser.setSql(unionSql);
         sqlParser.setSourceId(sqlParsers.get(0).getSourceId());
+        sqlParser.setSemanticModel(sqlParsers.get(0).getSemanticModel());
+        sqlParser.setSemanticSchemaResp(sqlParsers.get(0).getSemanticSchemaResp());
         log.info("union sql parser:{}", sqlParser);
         return sqlParser;
     }
 
+    /**
+     * the select of one struct query as it is put into the union sql
+     */
+    public String getUnionPartSql(QueryMultiStructReq queryMultiStructCmd, QueryStatement sqlParser, int index) {
+        String selectStr = SqlGenerateUtils.getUnionSelect(queryMultiStructCmd.getQueryStructReqs().get(index));
+        return String.format("select %s from ( %s ) sub_sql_%s", selectStr, sqlParser.getSql(), index);
+    }
+
+    /**
+     * merge the results of the union parts executed one by one the way union all does: the columns
+     * are the ones of the first part and the rows of every part are matched to them by position
+     */
+    public SemanticQueryResp unionResults(List<SemanticQueryResp> results) {
+        SemanticQueryResp unionResult = new SemanticQueryResp();
+        List<SemanticQueryResp> parts = results.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (parts.isEmpty()) {
+            return unionResult;
+        }
+        List<QueryColumn> columns = parts.get(0).getColumns();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (SemanticQueryResp part : parts) {
+            if (part.getColumns().size() != columns.size()) {
+                throw new IllegalStateException(String.format("union parts have %s and %s columns",
+                        columns.size(), part.getColumns().size()));
+            }
+            for (Map<String, Object> row : part.getResultList()) {
+                Map<String, Object> unionRow = new LinkedHashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    unionRow.put(columns.get(i).getNameEn(), row.get(part.getColumns().get(i).getNameEn()));
+                }
+                rows.add(unionRow);
+            }
+        }
+        unionResult.setColumns(columns);
+        unionResult.setResultList(rows);
+        unionResult.setTruncated(parts.stream().anyMatch(SemanticQueryResp::isTruncated));
+        unionResult.setSql(parts.stream().map(SemanticQueryResp::getSql).collect(Collectors.joining(UNIONALL)));
+        return unionResult;
+    }
+
+    public boolean isUnionEnable() {
+        return unionEnable;
+    }
+
     public Boolean enableOptimize() {
         return optimizeEnable;
     }
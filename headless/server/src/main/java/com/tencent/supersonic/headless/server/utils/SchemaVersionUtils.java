@@ -0,0 +1,32 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.common.pojo.DataEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * version of the semantic schema in this instance, increased on every change of the models, data
+ * sets, dimensions, metrics and tags the knowledge words are built from. Changes published as data
+ * events are counted here, the other changes call increase directly.
+ */
+@Component
+public class SchemaVersionUtils {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void increase() {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDataEvent(DataEvent dataEvent) {
+        increase();
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.common.pojo.ResultData;
+import com.tencent.supersonic.common.pojo.enums.ReturnCode;
+import com.tencent.supersonic.common.pojo.exception.AccessException;
+import com.tencent.supersonic.common.pojo.exception.CommonException;
+import com.tencent.supersonic.common.pojo.exception.InvalidArgumentException;
+import com.tencent.supersonic.common.pojo.exception.InvalidPermissionException;
+import com.tencent.supersonic.common.util.TraceIdUtil;
+import com.tencent.supersonic.headless.core.executor.ResultRowHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * write streamed query rows to the http response in the same layout as ResultData<SemanticQueryResp>.
+ * A failure before the first row is written as the usual failed ResultData, a failure after the
+ * rows started ends the rows and adds an error field next to the success code, so a client never
+ * takes a partial result for a complete one.
+ */
+@Slf4j
+public class StreamResultWriter implements ResultRowHandler {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final HttpServletResponse response;
+
+    private JsonGenerator generator;
+
+    /**
+     * the context of the resultList array, rows are written inside it
+     */
+    private JsonStreamContext rowsContext;
+
+    private boolean truncated;
+
+    private boolean completed;
+
+    public StreamResultWriter(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public void onColumns(List<QueryColumn> columns) {
+        try {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            generator = MAPPER.getFactory().createGenerator(response.getOutputStream());
+            generator.writeStartObject();
+            generator.writeNumberField("code", ReturnCode.SUCCESS.getCode());
+            generator.writeStringField("msg", ReturnCode.SUCCESS.getMessage());
+            generator.writeFieldName("data");
+            generator.writeStartObject();
+            generator.writeFieldName("columns");
+            MAPPER.writeValue(generator, columns);
+            generator.writeArrayFieldStart("resultList");
+            rowsContext = generator.getOutputContext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onRows(List<Map<String, Object>> rows) {
+        try {
+            for (Map<String, Object> row : rows) {
+                MAPPER.writeValue(generator, row);
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onTruncated() {
+        truncated = true;
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            generator.writeEndArray();
+            generator.writeBooleanField("truncated", truncated);
+            generator.writeEndObject();
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeStringField("traceId", MDC.get(TraceIdUtil.TRACE_ID));
+            generator.writeEndObject();
+            generator.close();
+            completed = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        try {
+            if (generator == null) {
+                ResultData<String> resultData = getFailResult(e);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                MAPPER.writeValue(response.getOutputStream(), resultData);
+                return;
+            }
+            // close the row the error interrupted before ending the rows
+            while (generator.getOutputContext() != rowsContext && !generator.getOutputContext().inRoot()) {
+                if (generator.getOutputContext().inObject()) {
+                    generator.writeEndObject();
+                } else {
+                    generator.writeEndArray();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeBooleanField("truncated", truncated);
+            generator.writeEndObject();
+            generator.writeStringField("error", getMessage(e));
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeStringField("traceId", MDC.get(TraceIdUtil.TRACE_ID));
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException | RuntimeException writeError) {
+            // the body stays unterminated json, so the partial rows can not be read as a result
+            log.warn("write stream error failed, the response is left incomplete", writeError);
+        }
+    }
+
+    /**
+     * finish the response when the executor produced no result at all
+     */
+    public void close() {
+        if (completed) {
+            return;
+        }
+        if (generator == null) {
+            onColumns(Collections.emptyList());
+        }
+        onComplete();
+    }
+
+    private static ResultData<String> getFailResult(Throwable e) {
+        if (e instanceof CommonException) {
+            return ResultData.fail(((CommonException) e).getCode(), e.getMessage());
+        }
+        if (e instanceof AccessException) {
+            return ResultData.fail(ReturnCode.ACCESS_ERROR.getCode(), e.getMessage());
+        }
+        if (e instanceof InvalidPermissionException) {
+            return ResultData.fail(ReturnCode.INVALID_PERMISSION.getCode(), e.getMessage());
+        }
+        if (e instanceof InvalidArgumentException) {
+            return ResultData.fail(ReturnCode.INVALID_REQUEST.getCode(), e.getMessage());
+        }
+        return ResultData.fail(ReturnCode.SYSTEM_ERROR.getCode(), e.getMessage());
+    }
+
+    private static String getMessage(Throwable e) {
+        return e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+    }
+}
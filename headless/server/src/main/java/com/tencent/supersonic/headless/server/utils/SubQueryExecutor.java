@@ -0,0 +1,212 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.common.util.ThreadMdcUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Run the parts of a multi-part request, such as the struct queries of a multi struct query, at
+ * the same time. A request never runs more than query.multi.parallelism parts at once: the calling
+ * thread works on the parts together with at most parallelism - 1 workers of the shared pool, and
+ * a worker that does not fit in the bounded queue is simply left out, so a request always makes
+ * progress even when the pool is busy. The results are returned in the order of the parts.
+ */
+@Component
+@Slf4j
+public class SubQueryExecutor {
+
+    @Value("${query.multi.parallelism:4}")
+    private int parallelism;
+
+    @Value("${query.multi.threads:8}")
+    private int threads;
+
+    @Value("${query.multi.queue.size:100}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "sub-query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return the result of every part in the order of the parts, the first error of a part is
+     *         thrown once the running parts are done and the parts not started yet are skipped
+     */
+    public <T, R> List<R> invokeAll(List<T> parts, SubQuery<T, R> subQuery) throws Exception {
+        int workers = Math.min(Math.max(parallelism, 1), parts.size());
+        if (workers <= 1) {
+            List<R> results = new ArrayList<>();
+            for (T part : parts) {
+                results.add(subQuery.run(part));
+            }
+            return results;
+        }
+        Object[] results = new Object[parts.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < parts.size() && error.get() == null;
+                    i = next.getAndIncrement()) {
+                try {
+                    results[i] = subQuery.run(parts.get(i));
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                }
+            }
+        };
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            try {
+                futures.add(executor.submit(ThreadMdcUtil.wrap(worker, mdcContext)));
+            } catch (RejectedExecutionException e) {
+                log.debug("sub query pool is full, run with {} workers", futures.size() + 1);
+                break;
+            }
+        }
+        long startTime = System.currentTimeMillis();
+        worker.run();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, e);
+            } catch (ExecutionException e) {
+                error.compareAndSet(null, e);
+            }
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        log.debug("sub queries:{}, workers:{}, cost:{}", parts.size(), futures.size() + 1,
+                System.currentTimeMillis() - startTime);
+        return (List<R>) Arrays.asList(results);
+    }
+
+    /**
+     * Run the parts at the same time and hand their results to the consumer on the calling thread, in
+     * the order of the parts. A part only starts when fewer than parallelism parts are running or
+     * waiting for the consumer, and a result is dropped once consumed, so at most parallelism results
+     * are held at once whatever the number of parts. The first error of a part or of the consumer is
+     * thrown once the running parts are done and the parts not started yet are skipped.
+     */
+    public <T, R> void invokeInOrder(List<T> parts, SubQuery<T, R> subQuery, Consumer<R> consumer)
+            throws Exception {
+        int workers = Math.min(Math.max(parallelism, 1), parts.size());
+        List<CompletableFuture<R>> results = parts.stream().map(part -> new CompletableFuture<R>())
+                .collect(Collectors.toList());
+        Semaphore window = new Semaphore(workers);
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Runnable worker = () -> {
+            while (!stopped.get()) {
+                try {
+                    window.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int i = next.getAndIncrement();
+                if (i >= parts.size() || stopped.get()) {
+                    window.release();
+                    return;
+                }
+                try {
+                    results.get(i).complete(subQuery.run(parts.get(i)));
+                } catch (Exception e) {
+                    results.get(i).completeExceptionally(e);
+                }
+            }
+        };
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < workers && workers > 1; i++) {
+            try {
+                futures.add(executor.submit(ThreadMdcUtil.wrap(worker, mdcContext)));
+            } catch (RejectedExecutionException e) {
+                log.debug("sub query pool is full, run with {} workers", futures.size());
+                break;
+            }
+        }
+        if (futures.isEmpty()) {
+            // the calling thread consumes the results, so it runs the parts one by one
+            for (T part : parts) {
+                consumer.accept(subQuery.run(part));
+            }
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                R result;
+                try {
+                    result = results.get(i).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                results.set(i, null);
+                consumer.accept(result);
+                window.release();
+            }
+        } finally {
+            stopped.set(true);
+            window.release(parts.size());
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    log.warn("sub query worker error", e);
+                }
+            }
+        }
+        log.debug("sub queries:{}, workers:{}, cost:{}", parts.size(), futures.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * runs one part of the request
+     */
+    public interface SubQuery<T, R> {
+
+        R run(T part) throws Exception;
+    }
+}
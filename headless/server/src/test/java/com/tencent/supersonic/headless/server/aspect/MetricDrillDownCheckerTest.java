@@ -6,11 +6,15 @@ import com.tencent.supersonic.headless.api.pojo.DrillDownDimension;
 import com.tencent.supersonic.headless.api.pojo.response.DimSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.MetricSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.server.service.MetricService;
 import com.tencent.supersonic.headless.server.utils.DataUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
 
 
 @Slf4j
@@ -18,46 +22,57 @@ public class MetricDrillDownCheckerTest {
 
     @Test
     void test_groupBy_in_drillDownDimension() {
-        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
         String sql = "select user_name, sum(pv) from t_1 group by user_name";
         SemanticSchemaResp semanticSchemaResp = mockModelSchemaResp();
+        MetricDrillDownChecker metricDrillDownChecker = mockChecker(semanticSchemaResp);
         metricDrillDownChecker.checkQuery(semanticSchemaResp, sql);
     }
 
     @Test
     void test_groupBy_not_in_drillDownDimension() {
-        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
         String sql = "select page, sum(pv) from t_1 group by page";
         SemanticSchemaResp semanticSchemaResp = mockModelSchemaResp();
+        MetricDrillDownChecker metricDrillDownChecker = mockChecker(semanticSchemaResp);
         assertThrows(InvalidArgumentException.class,
                 () -> metricDrillDownChecker.checkQuery(semanticSchemaResp, sql));
     }
 
     @Test
     void test_groupBy_not_in_necessary_dimension() {
-        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
         String sql = "select user_name, count(distinct uv) from t_1 group by user_name";
         SemanticSchemaResp semanticSchemaResp = mockModelSchemaResp();
+        MetricDrillDownChecker metricDrillDownChecker = mockChecker(semanticSchemaResp);
         assertThrows(InvalidArgumentException.class,
                 () -> metricDrillDownChecker.checkQuery(semanticSchemaResp, sql));
     }
 
     @Test
     void test_groupBy_no_necessary_dimension_setting() {
-        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
         String sql = "select user_name, page, count(distinct uv) from t_1 group by user_name,page";
         SemanticSchemaResp semanticSchemaResp = mockModelSchemaNoDimensionSetting();
+        MetricDrillDownChecker metricDrillDownChecker = mockChecker(semanticSchemaResp);
         metricDrillDownChecker.checkQuery(semanticSchemaResp, sql);
     }
 
     @Test
     void test_groupBy_no_necessary_dimension_setting_no_metric() {
-        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
         String sql = "select user_name, page, count(*) from t_1 group by user_name,page";
         SemanticSchemaResp semanticSchemaResp = mockModelSchemaNoDimensionSetting();
+        MetricDrillDownChecker metricDrillDownChecker = mockChecker(semanticSchemaResp);
         metricDrillDownChecker.checkQuery(semanticSchemaResp, sql);
     }
 
+    private MetricDrillDownChecker mockChecker(SemanticSchemaResp semanticSchemaResp) {
+        MetricService metricService = Mockito.mock(MetricService.class);
+        for (MetricSchemaResp metric : semanticSchemaResp.getMetrics()) {
+            when(metricService.getDrillDownDimension(metric.getId()))
+                    .thenReturn(metric.getRelateDimension().getDrillDownDimensions());
+        }
+        MetricDrillDownChecker metricDrillDownChecker = new MetricDrillDownChecker();
+        ReflectionTestUtils.setField(metricDrillDownChecker, "metricService", metricService);
+        return metricDrillDownChecker;
+    }
+
     private SemanticSchemaResp mockModelSchemaResp() {
         SemanticSchemaResp semanticSchemaResp = new SemanticSchemaResp();
         semanticSchemaResp.setMetrics(mockMetrics());
@@ -0,0 +1,137 @@
+package com.tencent.supersonic.headless.server.aspect;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.tencent.supersonic.auth.api.authentication.pojo.User;
+import com.tencent.supersonic.auth.api.authorization.response.AuthorizedResourceResp;
+import com.tencent.supersonic.auth.api.authorization.service.AuthService;
+import com.tencent.supersonic.common.pojo.enums.AuthType;
+import com.tencent.supersonic.common.pojo.enums.SensitiveLevelEnum;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.api.pojo.response.DimSchemaResp;
+import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.executor.QueryCursor;
+import com.tencent.supersonic.headless.core.executor.QueryCursorManager;
+import com.tencent.supersonic.headless.server.service.DimensionService;
+import com.tencent.supersonic.headless.server.service.ModelService;
+import com.tencent.supersonic.headless.server.service.SchemaService;
+import com.tencent.supersonic.headless.server.utils.QueryStructUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+
+class S2DataPermissionAspectTest {
+
+    private static final String SQL = "select \"user_name\", \"pv\" from t order by \"pv\"";
+
+    @Test
+    void testSensitiveColumnMaskedAcrossPages() throws Throwable {
+        User user = User.getFakeUser();
+        QueryCursorManager queryCursorManager = new QueryCursorManager();
+        ReflectionTestUtils.setField(queryCursorManager, "maxOpen", 4);
+        S2DataPermissionAspect aspect = buildAspect(queryCursorManager, user);
+
+        QuerySqlReq openReq = buildReq(SQL);
+        openReq.setCursorPageSize(1);
+        QueryStructUtils queryStructUtils = (QueryStructUtils) ReflectionTestUtils.getField(aspect,
+                "queryStructUtils");
+        Mockito.when(queryStructUtils.getResNameEnExceptInternalCol(ArgumentMatchers.eq(openReq),
+                ArgumentMatchers.any())).thenReturn(Sets.newHashSet("user_name", "pv"));
+        QueryCursor queryCursor = openCursor();
+        SemanticQueryResp firstPage = (SemanticQueryResp) aspect.doAround(
+                joinPoint(() -> queryCursorManager.register(queryCursor, user.getName(), 1), openReq, user));
+        assertMasked(firstPage);
+
+        // a harmless request must not lift the masking of the query that opened the cursor
+        String token = firstPage.getContinuationToken();
+        while (token != null) {
+            QuerySqlReq nextReq = buildReq("select \"pv\" from t");
+            nextReq.setContinuationToken(token);
+            String pageToken = token;
+            SemanticQueryResp page = (SemanticQueryResp) aspect.doAround(
+                    joinPoint(() -> queryCursorManager.fetch(pageToken, user.getName(), null), nextReq, user));
+            assertMasked(page);
+            token = page.getContinuationToken();
+        }
+    }
+
+    private void assertMasked(SemanticQueryResp page) {
+        Assertions.assertEquals(1, page.getResultList().size());
+        Map<String, Object> row = page.getResultList().get(0);
+        Assertions.assertEquals("******", row.get("user_name"));
+        Assertions.assertNotEquals("******", row.get("pv"));
+    }
+
+    private S2DataPermissionAspect buildAspect(QueryCursorManager queryCursorManager, User user) {
+        ModelResp modelResp = new ModelResp();
+        modelResp.setId(1L);
+        modelResp.setName("pv_uv");
+        DimSchemaResp dimension = new DimSchemaResp();
+        dimension.setBizName("user_name");
+        dimension.setModelId(1L);
+        dimension.setSensitiveLevel(SensitiveLevelEnum.HIGH.getCode());
+        SemanticSchemaResp semanticSchemaResp = new SemanticSchemaResp();
+        semanticSchemaResp.setModelResps(Lists.newArrayList(modelResp));
+        semanticSchemaResp.setDimensions(Lists.newArrayList(dimension));
+
+        ModelService modelService = Mockito.mock(ModelService.class);
+        Mockito.when(modelService.getModelListWithAuth(user, null, AuthType.ADMIN))
+                .thenReturn(Collections.emptyList());
+        Mockito.when(modelService.getModelListWithAuth(user, null, AuthType.VISIBLE))
+                .thenReturn(Lists.newArrayList(modelResp));
+        Mockito.when(modelService.getModelList(ArgumentMatchers.any())).thenReturn(Lists.newArrayList(modelResp));
+        Mockito.when(modelService.getModelAdmin(1L)).thenReturn(Lists.newArrayList("admin"));
+        SchemaService schemaService = Mockito.mock(SchemaService.class);
+        Mockito.when(schemaService.fetchSemanticSchema(ArgumentMatchers.any())).thenReturn(semanticSchemaResp);
+        AuthService authService = Mockito.mock(AuthService.class);
+        Mockito.when(authService.queryAuthorizedResources(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new AuthorizedResourceResp());
+
+        S2DataPermissionAspect aspect = new S2DataPermissionAspect();
+        ReflectionTestUtils.setField(aspect, "queryStructUtils", Mockito.mock(QueryStructUtils.class));
+        ReflectionTestUtils.setField(aspect, "dimensionService", Mockito.mock(DimensionService.class));
+        ReflectionTestUtils.setField(aspect, "modelService", modelService);
+        ReflectionTestUtils.setField(aspect, "schemaService", schemaService);
+        ReflectionTestUtils.setField(aspect, "authService", authService);
+        ReflectionTestUtils.setField(aspect, "queryCursorManager", queryCursorManager);
+        return aspect;
+    }
+
+    private QuerySqlReq buildReq(String sql) {
+        QuerySqlReq querySqlReq = new QuerySqlReq();
+        querySqlReq.setSql(sql);
+        querySqlReq.addModelId(1L);
+        return querySqlReq;
+    }
+
+    private QueryCursor openCursor() throws Exception {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:permission_cursor");
+        Statement statement = connection.createStatement();
+        statement.execute("create table t as select 'user' || x as \"user_name\", x as \"pv\" "
+                + "from system_range(1, 3)");
+        return new QueryCursor(connection, statement, statement.executeQuery(SQL), true, 0, 0);
+    }
+
+    private ProceedingJoinPoint joinPoint(Proceed proceed, Object... args) throws Throwable {
+        ProceedingJoinPoint joinPoint = Mockito.mock(ProceedingJoinPoint.class);
+        Mockito.when(joinPoint.getArgs()).thenReturn(args);
+        Mockito.when(joinPoint.proceed()).thenAnswer(invocation -> proceed.run());
+        return joinPoint;
+    }
+
+    private interface Proceed {
+
+        Object run() throws Exception;
+    }
+}
@@ -0,0 +1,177 @@
+package com.tencent.supersonic.headless.server.benchmark;
+
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.core.parser.calcite.CalciteSqlParser;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.DataSource;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.pojo.Database;
+import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.server.manager.SemanticSchemaManager;
+import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.DimensionTimeTypeParamsTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.DimensionYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.IdentifyYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MeasureYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MetricTypeParamsYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MetricYamlTpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * planning of small struct queries over the three models of the supersonic demo domain as they are
+ * loaded by ModelDemoDataLoader, from the compiled semantic model to the sql. run the main method
+ * from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggPlannerBenchmark {
+
+    @Param({"pv_by_date", "stay_hours_by_page", "pv_by_department"})
+    private String query;
+
+    private final CalciteSqlParser calciteSqlParser = new CalciteSqlParser();
+
+    private SemanticModel semanticModel;
+
+    private List<String> dimensions;
+
+    private List<String> metrics;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AggPlannerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        semanticModel = new SemanticModel();
+        semanticModel.setSchemaKey("DATASET_1");
+        Database database = new Database();
+        database.setType("h2");
+        semanticModel.setDatabase(database);
+        Map<String, DataSource> datasourceMap = new HashMap<>();
+        datasourceMap.put("user_department", SemanticSchemaManager.getDatasource(
+                model("user_department", "select user_name,department from s2_user_department",
+                        Collections.singletonList(dimension("department", "categorical")),
+                        Collections.emptyList())));
+        datasourceMap.put("s2_pv_uv_statis", SemanticSchemaManager.getDatasource(
+                model("s2_pv_uv_statis", "SELECT imp_date, user_name, page, 1 as pv, user_name as user_id "
+                                + "FROM s2_pv_uv_statis",
+                        Arrays.asList(dimension("imp_date", "time"), dimension("page", "categorical")),
+                        Arrays.asList(measure("s2_pv_uv_statis_pv", "sum", "pv"),
+                                measure("s2_pv_uv_statis_user_id", "sum", "user_id")))));
+        datasourceMap.put("s2_stay_time_statis", SemanticSchemaManager.getDatasource(
+                model("s2_stay_time_statis", "select imp_date,user_name,stay_hours,page from s2_stay_time_statis",
+                        Arrays.asList(dimension("imp_date", "time"), dimension("page", "categorical")),
+                        Collections.singletonList(measure("s2_stay_time_statis_stay_hours", "sum", "stay_hours")))));
+        semanticModel.setDatasourceMap(datasourceMap);
+        semanticModel.setMetrics(SemanticSchemaManager.getMetrics(Arrays.asList(
+                metric("pv", "s2_pv_uv_statis_pv"), metric("stay_hours", "s2_stay_time_statis_stay_hours"))));
+        switch (query) {
+            case "stay_hours_by_page":
+                dimensions = Collections.singletonList("page");
+                metrics = Collections.singletonList("stay_hours");
+                break;
+            case "pv_by_department":
+                dimensions = Collections.singletonList("user_name__department");
+                metrics = Collections.singletonList("pv");
+                break;
+            default:
+                dimensions = Collections.singletonList("imp_date");
+                metrics = Collections.singletonList("pv");
+        }
+    }
+
+    @Benchmark
+    public String plan() throws Exception {
+        MetricQueryParam metricQueryParam = new MetricQueryParam();
+        metricQueryParam.setDimensions(new ArrayList<>(dimensions));
+        metricQueryParam.setMetrics(new ArrayList<>(metrics));
+        metricQueryParam.setWhere("imp_date >= '2024-01-01' and imp_date <= '2024-01-31'");
+        metricQueryParam.setLimit(100L);
+        QueryStatement queryStatement = new QueryStatement();
+        queryStatement.setMetricQueryParam(metricQueryParam);
+        queryStatement.setSemanticModel(semanticModel);
+        calciteSqlParser.explain(queryStatement, AggOption.DEFAULT);
+        if (queryStatement.getSql() == null) {
+            throw new IllegalStateException(queryStatement.getErrMsg());
+        }
+        return queryStatement.getSql();
+    }
+
+    private static DataModelYamlTpl model(String name, String sqlQuery, List<DimensionYamlTpl> dimensions,
+            List<MeasureYamlTpl> measures) {
+        DataModelYamlTpl dataModelYamlTpl = new DataModelYamlTpl();
+        dataModelYamlTpl.setId((long) name.hashCode());
+        dataModelYamlTpl.setName(name);
+        dataModelYamlTpl.setSourceId(1L);
+        dataModelYamlTpl.setType("h2");
+        dataModelYamlTpl.setSqlQuery(sqlQuery);
+        IdentifyYamlTpl identify = new IdentifyYamlTpl();
+        identify.setName("user_name");
+        identify.setType("primary");
+        dataModelYamlTpl.setIdentifiers(Collections.singletonList(identify));
+        dataModelYamlTpl.setDimensions(dimensions);
+        dataModelYamlTpl.setMeasures(new ArrayList<>(measures));
+        return dataModelYamlTpl;
+    }
+
+    private static DimensionYamlTpl dimension(String name, String type) {
+        DimensionYamlTpl dimension = new DimensionYamlTpl();
+        dimension.setName(name);
+        dimension.setBizName(name);
+        dimension.setExpr(name);
+        dimension.setType(type);
+        if ("time".equals(type)) {
+            DimensionTimeTypeParamsTpl typeParams = new DimensionTimeTypeParamsTpl();
+            typeParams.setIsPrimary("true");
+            typeParams.setTimeGranularity("day");
+            dimension.setTypeParams(typeParams);
+        }
+        return dimension;
+    }
+
+    private static MeasureYamlTpl measure(String name, String agg, String expr) {
+        MeasureYamlTpl measure = new MeasureYamlTpl();
+        measure.setName(name);
+        measure.setAgg(agg);
+        measure.setExpr(expr);
+        return measure;
+    }
+
+    private static MetricYamlTpl metric(String name, String measureName) {
+        MetricYamlTpl metric = new MetricYamlTpl();
+        metric.setName(name);
+        metric.setType("expr");
+        MetricTypeParamsYamlTpl typeParams = new MetricTypeParamsYamlTpl();
+        MeasureYamlTpl measure = new MeasureYamlTpl();
+        measure.setName(measureName);
+        typeParams.setMeasures(Collections.singletonList(measure));
+        typeParams.setExpr(measureName);
+        metric.setTypeParams(typeParams);
+        return metric;
+    }
+}
@@ -0,0 +1,159 @@
+package com.tencent.supersonic.headless.server.calcite;
+
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.core.parser.calcite.CalciteSqlParser;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.DataSource;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.Materialization;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.MaterializationElement;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.TimeRange;
+import com.tencent.supersonic.headless.core.pojo.Database;
+import com.tencent.supersonic.headless.core.pojo.MetricQueryParam;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.server.manager.SemanticSchemaManager;
+import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.DimensionTimeTypeParamsTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.DimensionYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.IdentifyYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MeasureYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MetricTypeParamsYamlTpl;
+import com.tencent.supersonic.headless.server.pojo.yaml.MetricYamlTpl;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class MaterializationRouterTest {
+
+    private static final Long MODEL_ID = 1L;
+
+    @Test
+    void testRoute() throws Exception {
+        SemanticModel semanticModel = buildSemanticModel();
+
+        QueryStatement byDate = explain(semanticModel, Collections.singletonList("imp_date"),
+                "imp_date >= '2024-01-01' and imp_date <= '2024-01-31'", "2024-01-01", "2024-01-31");
+        Assertions.assertEquals("mv_pv_date", byDate.getMaterialization().getDestinationTable());
+        Assertions.assertTrue(byDate.getSql().contains("mv_pv_date"));
+        Assertions.assertFalse(byDate.getSql().contains("FROM s2_pv_uv_statis"));
+
+        QueryStatement byPage = explain(semanticModel, Collections.singletonList("imp_date"),
+                "imp_date >= '2024-01-01' and imp_date <= '2024-01-31' and page = 'p1'", "2024-01-01", "2024-01-31");
+        Assertions.assertEquals("mv_pv_page_date", byPage.getMaterialization().getDestinationTable());
+        Assertions.assertTrue(byPage.getSql().contains("mv_pv_page_date"));
+    }
+
+    @Test
+    void testFallback() throws Exception {
+        SemanticModel semanticModel = buildSemanticModel();
+
+        QueryStatement outOfRange = explain(semanticModel, Collections.singletonList("imp_date"),
+                "imp_date >= '2023-12-01' and imp_date <= '2024-01-31'", "2023-12-01", "2024-01-31");
+        Assertions.assertNull(outOfRange.getMaterialization());
+        Assertions.assertTrue(outOfRange.getSql().contains("s2_pv_uv_statis"));
+
+        QueryStatement byUser = explain(semanticModel, Collections.singletonList("user_name"),
+                "imp_date >= '2024-01-01' and imp_date <= '2024-01-31'", "2024-01-01", "2024-01-31");
+        Assertions.assertNull(byUser.getMaterialization());
+        Assertions.assertFalse(byUser.getSql().contains("mv_pv"));
+    }
+
+    private QueryStatement explain(SemanticModel semanticModel, List<String> dimensions, String where,
+            String startDate, String endDate) throws Exception {
+        CalciteSqlParser calciteSqlParser = new CalciteSqlParser();
+        ReflectionTestUtils.setField(calciteSqlParser, "routeEnable", true);
+        MetricQueryParam metricQueryParam = new MetricQueryParam();
+        metricQueryParam.setMetrics(new ArrayList<>(Collections.singletonList("pv")));
+        metricQueryParam.setDimensions(new ArrayList<>(dimensions));
+        metricQueryParam.setWhere(where);
+        metricQueryParam.setLimit(100L);
+        QueryStatement queryStatement = new QueryStatement();
+        queryStatement.setMetricQueryParam(metricQueryParam);
+        queryStatement.setSemanticModel(semanticModel);
+        queryStatement.setMinMaxTime(new ImmutableTriple<>("imp_date", startDate, endDate));
+        calciteSqlParser.explain(queryStatement, AggOption.DEFAULT);
+        return queryStatement;
+    }
+
+    private SemanticModel buildSemanticModel() {
+        SemanticModel semanticModel = new SemanticModel();
+        semanticModel.setSchemaKey("DATASET_1");
+        Database database = new Database();
+        database.setType("h2");
+        semanticModel.setDatabase(database);
+        DataModelYamlTpl dataModelYamlTpl = new DataModelYamlTpl();
+        dataModelYamlTpl.setId(MODEL_ID);
+        dataModelYamlTpl.setName("s2_pv_uv_statis");
+        dataModelYamlTpl.setSourceId(1L);
+        dataModelYamlTpl.setType("h2");
+        dataModelYamlTpl.setSqlQuery("SELECT imp_date, user_name, page, pv FROM s2_pv_uv_statis");
+        IdentifyYamlTpl identify = new IdentifyYamlTpl();
+        identify.setName("user_name");
+        identify.setType("primary");
+        dataModelYamlTpl.setIdentifiers(Collections.singletonList(identify));
+        dataModelYamlTpl.setDimensions(Arrays.asList(dimension("imp_date", "time"), dimension("page", "categorical")));
+        MeasureYamlTpl measure = new MeasureYamlTpl();
+        measure.setName("s2_pv_uv_statis_pv");
+        measure.setAgg("sum");
+        measure.setExpr("pv");
+        dataModelYamlTpl.setMeasures(new ArrayList<>(Collections.singletonList(measure)));
+        DataSource dataSource = SemanticSchemaManager.getDatasource(dataModelYamlTpl);
+        Map<String, DataSource> datasourceMap = new HashMap<>();
+        datasourceMap.put(dataSource.getName(), dataSource);
+        semanticModel.setDatasourceMap(datasourceMap);
+        semanticModel.setMetrics(SemanticSchemaManager.getMetrics(Collections.singletonList(metric())));
+        semanticModel.setMaterializationList(Arrays.asList(
+                materialization("mv_pv_page_date", Arrays.asList("imp_date", "page"), 1000L),
+                materialization("mv_pv_date", Collections.singletonList("imp_date"), 100L)));
+        return semanticModel;
+    }
+
+    private static Materialization materialization(String destinationTable, List<String> dimensions,
+            Long rowCount) {
+        List<TimeRange> timeRanges = Collections.singletonList(
+                TimeRange.builder().start("2024-01-01").end("2024-12-31").build());
+        Materialization materialization = Materialization.builder().modelId(MODEL_ID)
+                .destinationTable(destinationTable).rowCount(rowCount).level(dimensions.size()).build();
+        materialization.setDimensions(dimensions.stream().map(name -> MaterializationElement.builder()
+                .name(name).timeRangeList(timeRanges).build()).collect(Collectors.toList()));
+        materialization.setMetrics(Collections.singletonList(MaterializationElement.builder()
+                .name("s2_pv_uv_statis_pv").timeRangeList(timeRanges).build()));
+        return materialization;
+    }
+
+    private static DimensionYamlTpl dimension(String name, String type) {
+        DimensionYamlTpl dimension = new DimensionYamlTpl();
+        dimension.setName(name);
+        dimension.setBizName(name);
+        dimension.setExpr(name);
+        dimension.setType(type);
+        if ("time".equals(type)) {
+            DimensionTimeTypeParamsTpl typeParams = new DimensionTimeTypeParamsTpl();
+            typeParams.setIsPrimary("true");
+            typeParams.setTimeGranularity("day");
+            dimension.setTypeParams(typeParams);
+        }
+        return dimension;
+    }
+
+    private static MetricYamlTpl metric() {
+        MetricYamlTpl metric = new MetricYamlTpl();
+        metric.setName("pv");
+        metric.setType("expr");
+        MetricTypeParamsYamlTpl typeParams = new MetricTypeParamsYamlTpl();
+        MeasureYamlTpl measure = new MeasureYamlTpl();
+        measure.setName("s2_pv_uv_statis_pv");
+        typeParams.setMeasures(Collections.singletonList(measure));
+        typeParams.setExpr("s2_pv_uv_statis_pv");
+        metric.setTypeParams(typeParams);
+        return metric;
+    }
+}
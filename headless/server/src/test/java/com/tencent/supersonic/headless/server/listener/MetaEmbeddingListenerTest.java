@@ -0,0 +1,103 @@
+package com.tencent.supersonic.headless.server.listener;
+
+import com.tencent.supersonic.common.config.EmbeddingConfig;
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.common.pojo.DataItem;
+import com.tencent.supersonic.common.pojo.enums.EventType;
+import com.tencent.supersonic.common.pojo.enums.TypeEnums;
+import com.tencent.supersonic.common.util.embedding.EmbeddingQuery;
+import com.tencent.supersonic.common.util.embedding.RetrieveQuery;
+import com.tencent.supersonic.common.util.embedding.RetrieveQueryResult;
+import com.tencent.supersonic.common.util.embedding.S2EmbeddingStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class MetaEmbeddingListenerTest {
+
+    @Test
+    void testCoalesceEvents() {
+        RecordingEmbeddingStore embeddingStore = new RecordingEmbeddingStore();
+        MetaEmbeddingListener listener = buildListener(embeddingStore);
+
+        listener.onApplicationEvent(buildEvent(EventType.ADD, "1_", "2_", "3_"));
+        listener.onApplicationEvent(buildEvent(EventType.UPDATE, "1_"));
+        listener.onApplicationEvent(buildEvent(EventType.DELETE, "2_"));
+        listener.onApplicationEvent(buildEvent(EventType.UPDATE, "4_"));
+        listener.onApplicationEvent(buildEvent(EventType.DELETE, "5_"));
+        Assertions.assertEquals(4, listener.getQueueDepth());
+        Assertions.assertTrue(embeddingStore.operations.isEmpty());
+
+        listener.onShutdown();
+        Assertions.assertEquals(0, listener.getQueueDepth());
+        Assertions.assertEquals(Arrays.asList("delete:4_metric,5_metric", "add:1_metric,3_metric,4_metric"),
+                embeddingStore.operations);
+    }
+
+    @Test
+    void testFlushFullBatch() throws Exception {
+        RecordingEmbeddingStore embeddingStore = new RecordingEmbeddingStore();
+        MetaEmbeddingListener listener = buildListener(embeddingStore);
+        ReflectionTestUtils.setField(listener, "batchSize", 2);
+
+        listener.onApplicationEvent(buildEvent(EventType.ADD, "1_", "2_"));
+        for (int i = 0; i < 100 && embeddingStore.operations.isEmpty(); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Assertions.assertEquals(Collections.singletonList("add:1_metric,2_metric"), embeddingStore.operations);
+        Assertions.assertEquals(0, listener.getQueueDepth());
+        listener.onShutdown();
+    }
+
+    private MetaEmbeddingListener buildListener(S2EmbeddingStore embeddingStore) {
+        MetaEmbeddingListener listener = new MetaEmbeddingListener(embeddingStore);
+        EmbeddingConfig embeddingConfig = new EmbeddingConfig();
+        embeddingConfig.setMetaCollectionName("meta_collection");
+        ReflectionTestUtils.setField(listener, "embeddingConfig", embeddingConfig);
+        ReflectionTestUtils.setField(listener, "flushDelay", 60000L);
+        ReflectionTestUtils.setField(listener, "batchSize", 100);
+        return listener;
+    }
+
+    private DataEvent buildEvent(EventType eventType, String... ids) {
+        List<DataItem> dataItems = Arrays.stream(ids)
+                .map(id -> DataItem.builder().id(id).name("name" + id).type(TypeEnums.METRIC).build())
+                .collect(Collectors.toList());
+        return new DataEvent(this, dataItems, eventType);
+    }
+
+    private static class RecordingEmbeddingStore implements S2EmbeddingStore {
+
+        private final List<String> operations = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void addCollection(String collectionName) {
+        }
+
+        @Override
+        public void addQuery(String collectionName, List<EmbeddingQuery> queries) {
+            operations.add("add:" + ids(queries));
+        }
+
+        @Override
+        public void deleteQuery(String collectionName, List<EmbeddingQuery> queries) {
+            operations.add("delete:" + ids(queries));
+        }
+
+        @Override
+        public List<RetrieveQueryResult> retrieveQuery(String collectionName, RetrieveQuery retrieveQuery, int num) {
+            return Collections.emptyList();
+        }
+
+        private String ids(List<EmbeddingQuery> queries) {
+            return queries.stream().map(EmbeddingQuery::getQueryId).sorted().collect(Collectors.joining(","));
+        }
+    }
+}
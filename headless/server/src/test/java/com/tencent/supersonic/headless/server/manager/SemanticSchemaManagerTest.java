@@ -0,0 +1,73 @@
+package com.tencent.supersonic.headless.server.manager;
+
+import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
+import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.parser.calcite.s2sql.SemanticModel;
+import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
+import com.tencent.supersonic.headless.server.service.Catalog;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+class SemanticSchemaManagerTest {
+
+    @Test
+    void testCompiledModelCache() {
+        Catalog catalog = Mockito.mock(Catalog.class);
+        Mockito.doAnswer(invocation -> {
+            List<DataModelYamlTpl> dataModelYamlTpls = invocation.getArgument(2);
+            DataModelYamlTpl dataModelYamlTpl = new DataModelYamlTpl();
+            dataModelYamlTpl.setId(1L);
+            dataModelYamlTpl.setName("user");
+            dataModelYamlTpl.setSqlQuery("select * from user");
+            dataModelYamlTpl.setIdentifiers(new ArrayList<>());
+            dataModelYamlTpl.setDimensions(new ArrayList<>());
+            dataModelYamlTpl.setMeasures(new ArrayList<>());
+            dataModelYamlTpls.add(dataModelYamlTpl);
+            return null;
+        }).when(catalog).getSchemaYamlTpl(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+        SchemaVersionUtils schemaVersionUtils = new SchemaVersionUtils();
+        SemanticSchemaManager semanticSchemaManager = new SemanticSchemaManager(catalog, schemaVersionUtils);
+        SemanticSchemaResp semanticSchemaResp = buildSemanticSchemaResp(1000L);
+
+        SemanticModel semanticModel = semanticSchemaManager.getSemanticModel(semanticSchemaResp);
+        semanticModel.getDatasourceMap().get("user").setSqlQuery("select * from user where 1 = 1");
+        SemanticModel cached = semanticSchemaManager.getSemanticModel(semanticSchemaResp);
+        Assertions.assertEquals("select * from user", cached.getDatasourceMap().get("user").getSqlQuery());
+        Assertions.assertEquals(1, semanticSchemaManager.getHitCount());
+        Assertions.assertEquals(1, semanticSchemaManager.getMissCount());
+
+        // a schema response reloaded with the same content
+        semanticSchemaManager.getSemanticModel(buildSemanticSchemaResp(1000L));
+        Assertions.assertEquals(2, semanticSchemaManager.getHitCount());
+        Assertions.assertEquals(1, semanticSchemaManager.getMissCount());
+
+        semanticSchemaManager.getSemanticModel(buildSemanticSchemaResp(2000L));
+        Assertions.assertEquals(2, semanticSchemaManager.getMissCount());
+
+        schemaVersionUtils.increase();
+        semanticSchemaManager.getSemanticModel(buildSemanticSchemaResp(2000L));
+        Assertions.assertEquals(3, semanticSchemaManager.getMissCount());
+        Mockito.verify(catalog, Mockito.times(3)).getSchemaYamlTpl(Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    private SemanticSchemaResp buildSemanticSchemaResp(long modelUpdatedAt) {
+        ModelResp modelResp = new ModelResp();
+        modelResp.setId(1L);
+        modelResp.setUpdatedAt(new Date(modelUpdatedAt));
+        SemanticSchemaResp semanticSchemaResp = new SemanticSchemaResp();
+        semanticSchemaResp.setDataSetId(1L);
+        semanticSchemaResp.setModelIds(Collections.singletonList(1L));
+        semanticSchemaResp.setModelResps(Collections.singletonList(modelResp));
+        semanticSchemaResp.setDatabaseResp(new DatabaseResp());
+        return semanticSchemaResp;
+    }
+}
@@ -22,6 +22,7 @@ import com.tencent.supersonic.headless.server.persistence.repository.MetricRepos
 import com.tencent.supersonic.headless.server.service.impl.DataSetServiceImpl;
 import com.tencent.supersonic.headless.server.service.impl.MetricServiceImpl;
 import com.tencent.supersonic.headless.server.utils.MetricConverter;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -70,7 +71,7 @@ public class MetricServiceImplTest {
         DataSetService dataSetService = Mockito.mock(DataSetServiceImpl.class);
         DimensionService dimensionService = Mockito.mock(DimensionService.class);
         return new MetricServiceImpl(metricRepository, modelService, chatGptHelper, collectService, dataSetService,
-                eventPublisher, dimensionService);
+                eventPublisher, dimensionService, new SchemaVersionUtils());
     }
 
     private MetricReq buildMetricReq() {
@@ -19,6 +19,7 @@ import com.tencent.supersonic.headless.server.persistence.repository.DateInfoRep
 import com.tencent.supersonic.headless.server.persistence.repository.ModelRepository;
 import com.tencent.supersonic.headless.server.service.impl.ModelServiceImpl;
 import com.tencent.supersonic.headless.server.utils.ModelConverter;
+import com.tencent.supersonic.headless.server.utils.SchemaVersionUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -78,7 +79,7 @@ class ModelServiceImplTest {
         DataSetService viewService = Mockito.mock(DataSetService.class);
         return new ModelServiceImpl(modelRepository, databaseService,
                 dimensionService, metricService, domainService, userService,
-                viewService, dateInfoRepository);
+                viewService, dateInfoRepository, new SchemaVersionUtils());
     }
 
     private ModelReq mockModelReq() {
@@ -112,6 +113,7 @@ class ModelServiceImplTest {
         modelDetail.setSqlQuery("SELECT imp_date, user_name, page, 1 as pv, user_name as uv FROM s2_pv_uv_statis");
         modelDetail.setQueryType("sql_query");
         modelReq.setDomainId(1L);
+        modelReq.setDrillDownDimensions(Lists.newArrayList());
         modelReq.setFilterSql("where user_name = 'alice'");
         modelReq.setModelDetail(modelDetail);
         return modelReq;
@@ -154,6 +156,7 @@ class ModelServiceImplTest {
                 + " user_name as uv_a FROM s2_pv_uv_statis");
         modelDetail.setQueryType("sql_query");
         modelReq.setDomainId(1L);
+        modelReq.setDrillDownDimensions(Lists.newArrayList());
         modelReq.setFilterSql("where user_name = 'tom'");
         modelReq.setModelDetail(modelDetail);
         return modelReq;
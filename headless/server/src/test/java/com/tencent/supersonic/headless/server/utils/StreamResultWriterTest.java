@@ -0,0 +1,79 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.common.pojo.enums.ReturnCode;
+import com.tencent.supersonic.common.pojo.exception.InvalidPermissionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+class StreamResultWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testComplete() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        StreamResultWriter streamResultWriter = new StreamResultWriter(response);
+        streamResultWriter.onColumns(Collections.singletonList(new QueryColumn("pv", "BIGINT", "pv")));
+        streamResultWriter.onRows(Collections.singletonList(row(1L)));
+        streamResultWriter.onComplete();
+        streamResultWriter.close();
+
+        JsonNode body = MAPPER.readTree(response.getContentAsString());
+        Assertions.assertEquals(ReturnCode.SUCCESS.getCode(), body.get("code").asInt());
+        Assertions.assertFalse(body.has("error"));
+        Assertions.assertEquals(1, body.get("data").get("resultList").size());
+    }
+
+    @Test
+    void testFailPartway() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        StreamResultWriter streamResultWriter = new StreamResultWriter(response);
+        try {
+            streamResultWriter.onColumns(Collections.singletonList(new QueryColumn("pv", "BIGINT", "pv")));
+            streamResultWriter.onRows(Collections.singletonList(row(1L)));
+            Map<String, Object> broken = row(2L);
+            broken.put("bad", new Object() {
+                public Object getValue() {
+                    throw new IllegalStateException("read row 2 error");
+                }
+            });
+            streamResultWriter.onRows(Collections.singletonList(broken));
+            streamResultWriter.onComplete();
+        } catch (Exception e) {
+            streamResultWriter.onError(e);
+        } finally {
+            streamResultWriter.close();
+        }
+
+        JsonNode body = MAPPER.readTree(response.getContentAsString());
+        Assertions.assertTrue(body.get("error").asText().contains("read row 2 error"));
+        Assertions.assertEquals(1L, body.get("data").get("resultList").get(0).get("pv").asLong());
+    }
+
+    @Test
+    void testFailBeforeRows() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        StreamResultWriter streamResultWriter = new StreamResultWriter(response);
+        streamResultWriter.onError(new InvalidPermissionException("no permission"));
+        streamResultWriter.close();
+
+        JsonNode body = MAPPER.readTree(response.getContentAsString());
+        Assertions.assertEquals(ReturnCode.INVALID_PERMISSION.getCode(), body.get("code").asInt());
+        Assertions.assertEquals("no permission", body.get("msg").asText());
+        Assertions.assertTrue(body.get("data").isNull());
+    }
+
+    private Map<String, Object> row(Object pv) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("pv", pv);
+        return row;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class SubQueryExecutorTest {
+
+    @Test
+    void testInvokeAll() throws Exception {
+        SubQueryExecutor subQueryExecutor = buildExecutor(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> parts = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<Integer> results = subQueryExecutor.invokeAll(parts, part -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return part * 2;
+        });
+        subQueryExecutor.destroy();
+
+        Assertions.assertEquals(parts.stream().map(part -> part * 2).collect(Collectors.toList()), results);
+        Assertions.assertTrue(maxRunning.get() > 1);
+        Assertions.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    void testInvokeAllError() {
+        SubQueryExecutor subQueryExecutor = buildExecutor(2);
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                () -> subQueryExecutor.invokeAll(Arrays.asList(1, 2, 3), part -> {
+                    if (part == 2) {
+                        throw new IllegalStateException("part 2");
+                    }
+                    return part;
+                }));
+        subQueryExecutor.destroy();
+        Assertions.assertEquals("part 2", exception.getMessage());
+    }
+
+    @Test
+    void testInvokeInOrder() throws Exception {
+        SubQueryExecutor subQueryExecutor = buildExecutor(3);
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger maxHeld = new AtomicInteger();
+        List<Integer> parts = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<Integer> consumed = new ArrayList<>();
+        subQueryExecutor.invokeInOrder(parts, part -> {
+            maxHeld.accumulateAndGet(held.incrementAndGet(), Math::max);
+            // the early parts are the slow ones, the later parts wait for them to be consumed
+            Thread.sleep(part % 5 == 0 ? 20 : 1);
+            return part * 2;
+        }, result -> {
+            consumed.add(result);
+            held.decrementAndGet();
+        });
+        subQueryExecutor.destroy();
+
+        Assertions.assertEquals(parts.stream().map(part -> part * 2).collect(Collectors.toList()), consumed);
+        Assertions.assertTrue(maxHeld.get() > 1);
+        Assertions.assertTrue(maxHeld.get() <= 3);
+    }
+
+    @Test
+    void testInvokeInOrderError() {
+        SubQueryExecutor subQueryExecutor = buildExecutor(2);
+        List<Integer> consumed = new ArrayList<>();
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                () -> subQueryExecutor.invokeInOrder(Arrays.asList(1, 2, 3, 4, 5), part -> {
+                    if (part == 3) {
+                        throw new IllegalStateException("part 3");
+                    }
+                    return part;
+                }, consumed::add));
+        subQueryExecutor.destroy();
+        Assertions.assertEquals("part 3", exception.getMessage());
+        Assertions.assertEquals(Arrays.asList(1, 2), consumed);
+    }
+
+    @Test
+    void testUnionResults() {
+        SemanticQueryResp first = buildResult(Arrays.asList("sys_imp_date", "value1"), "2024-01-01", 1L);
+        SemanticQueryResp second = buildResult(Arrays.asList("sys_imp_month", "value1"), "2024-01", 2L);
+
+        SemanticQueryResp union = new QueryUtils().unionResults(Arrays.asList(first, null, second));
+        Assertions.assertEquals(2, union.getColumns().size());
+        Assertions.assertEquals(2, union.getResultList().size());
+        Assertions.assertEquals("2024-01", union.getResultList().get(1).get("sys_imp_date"));
+        Assertions.assertEquals(2L, union.getResultList().get(1).get("value1"));
+    }
+
+    private SubQueryExecutor buildExecutor(int parallelism) {
+        SubQueryExecutor subQueryExecutor = new SubQueryExecutor();
+        ReflectionTestUtils.setField(subQueryExecutor, "parallelism", parallelism);
+        ReflectionTestUtils.setField(subQueryExecutor, "threads", 4);
+        ReflectionTestUtils.setField(subQueryExecutor, "queueSize", 10);
+        subQueryExecutor.init();
+        return subQueryExecutor;
+    }
+
+    private SemanticQueryResp buildResult(List<String> columns, Object dimension, Object value) {
+        SemanticQueryResp semanticQueryResp = new SemanticQueryResp();
+        semanticQueryResp.setColumns(columns.stream().map(column -> new QueryColumn(column, "VARCHAR", column))
+                .collect(Collectors.toList()));
+        Map<String, Object> row = new HashMap<>();
+        row.put(columns.get(0), dimension);
+        row.put(columns.get(1), value);
+        semanticQueryResp.setResultList(Collections.singletonList(row));
+        return semanticQueryResp;
+    }
+}